@@ -0,0 +1,167 @@
+package com.dnikitin.benchmark;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.BatchAdmissionLockStrategy;
+import com.dnikitin.lock.LockStrategy;
+import com.dnikitin.lock.PhaseFairLockStrategy;
+import com.dnikitin.lock.ReadWriteLockStrategy;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import com.dnikitin.lock.StampedLockStrategy;
+import com.dnikitin.model.Library;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of entering and leaving the {@link Library} with no simulated work inside.
+ * <p>
+ * The measured JMH threads run against the selected {@link Engine} and a configurable amount of background contention:
+ * {@code contenders} threads of the chosen {@link ThreadKind} cycle through the library
+ * with the same reader/writer mix as the measured operation.
+ * Throughput mode reports ops/sec, sample mode reports the p50/p99/p999 latency of one entry/exit cycle
+ * (the exit protocol never blocks, so the samples are dominated by the acquire).
+ * <p>
+ * Usage: {@code java -jar benchmarks/target/benchmarks.jar LibraryBenchmark -t 4}
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LibraryBenchmark {
+
+    /**
+     * Kind of thread used for the background contenders.
+     */
+    public enum ThreadKind {
+        PLATFORM, VIRTUAL;
+
+        Thread.Builder builder() {
+            return this == VIRTUAL ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        }
+    }
+
+    /**
+     * Admission engine installed behind the library.
+     */
+    public enum Engine {
+        SEMAPHORE, BATCH, RW_FAIR, RW_NONFAIR, STAMPED, PHASE_FAIR;
+
+        LockStrategy create() {
+            return switch (this) {
+                case SEMAPHORE -> new SemaphoreLockStrategy(Library.DEFAULT_MAX_READERS);
+                case BATCH -> new BatchAdmissionLockStrategy(Library.DEFAULT_MAX_READERS);
+                case RW_FAIR -> new ReadWriteLockStrategy(Library.DEFAULT_MAX_READERS, true);
+                case RW_NONFAIR -> new ReadWriteLockStrategy(Library.DEFAULT_MAX_READERS, false);
+                case STAMPED -> new StampedLockStrategy(Library.DEFAULT_MAX_READERS);
+                case PHASE_FAIR -> new PhaseFairLockStrategy(Library.DEFAULT_MAX_READERS);
+            };
+        }
+    }
+
+    @Param({"SEMAPHORE", "BATCH", "RW_FAIR", "RW_NONFAIR", "STAMPED", "PHASE_FAIR"})
+    public Engine engine;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public ThreadKind threadKind;
+
+    @Param({"0", "4", "64"})
+    public int contenders;
+
+    // share of write operations (0-100) for both measured and background threads
+    @Param({"0", "10", "50"})
+    public int writerPercent;
+
+    private Library library;
+    private final List<Thread> background = new ArrayList<>();
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // we want to measure the lock, not the event log
+        library = new Library(engine.create(), EventRecorder.DISABLED);
+        running = true;
+        for (int i = 0; i < contenders; i++) {
+            background.add(threadKind.builder().name("Contender-" + (i + 1)).start(this::contend));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        for (Thread t : background) {
+            t.interrupt();
+            t.join();
+        }
+        background.clear();
+    }
+
+    /**
+     * One entry/exit cycle whose role is drawn from {@code writerPercent}.
+     */
+    @Benchmark
+    public void mixed() throws InterruptedException {
+        cycle(ThreadLocalRandom.current().nextInt(100) < writerPercent);
+    }
+
+    /**
+     * One reader entry/exit cycle under the configured background mix.
+     */
+    @Benchmark
+    public void read() throws InterruptedException {
+        cycle(false);
+    }
+
+    /**
+     * One writer entry/exit cycle under the configured background mix.
+     */
+    @Benchmark
+    public void write() throws InterruptedException {
+        cycle(true);
+    }
+
+    /**
+     * One write submitted through {@link Library#submitWrite}; concurrent submissions share an exclusive section.
+     */
+    @Benchmark
+    public Object combinedWrite() {
+        return library.submitWrite(() -> Boolean.TRUE).join();
+    }
+
+    private void cycle(boolean writer) throws InterruptedException {
+        if (writer) {
+            library.startWriting(0);
+            library.stopWriting();
+        } else {
+            library.startReading(0);
+            library.stopReading();
+        }
+    }
+
+    private void contend() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            try {
+                cycle(random.nextInt(100) < writerPercent);
+            } catch (InterruptedException _) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.dnikitin.benchmark;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.LockStrategy;
+import com.dnikitin.lock.ReaderBiasedLockStrategy;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import com.dnikitin.model.Library;
+import com.dnikitin.model.VersionedResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-only throughput of the plain fair semaphore against the reader-biased (BRAVO) mode,
+ * and of a copy-on-write {@link VersionedResource} read.
+ * Both use a reader limit well above the thread count, so only the cost of the shared state is measured.
+ * <p>
+ * Run it with increasing thread counts to see the scaling, e.g.
+ * {@code for t in 1 2 4 8 16; do java -jar benchmarks/target/benchmarks.jar ReadScalingBenchmark -t $t; done}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadScalingBenchmark {
+    private static final int READER_LIMIT = 4096;
+
+    public enum Engine {
+        SEMAPHORE, READER_BIASED;
+
+        LockStrategy create() {
+            LockStrategy semaphore = new SemaphoreLockStrategy(READER_LIMIT);
+            return this == READER_BIASED ? new ReaderBiasedLockStrategy(semaphore) : semaphore;
+        }
+    }
+
+    @Param({"SEMAPHORE", "READER_BIASED"})
+    public Engine engine;
+
+    private Library library;
+    private VersionedResource<Integer> resource;
+
+    @Setup
+    public void setUp() {
+        library = new Library(engine.create(), EventRecorder.DISABLED);
+        resource = new VersionedResource<>(library, 42);
+    }
+
+    @Benchmark
+    public void read() throws InterruptedException {
+        library.startReading(0);
+        library.stopReading();
+    }
+
+    /**
+     * Copy-on-write read that never enters the library; the baseline the lock-based reads are compared to.
+     */
+    @Benchmark
+    public Integer versionedRead() {
+        return resource.get();
+    }
+}
@@ -0,0 +1,77 @@
+package com.dnikitin.benchmark;
+
+import com.dnikitin.model.Role;
+import com.dnikitin.model.Visit;
+import com.dnikitin.model.VisitRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one admission (arrive, admit, leave) while {@code queueDepth} other visits are waiting.
+ * <p>
+ * {@code registry} measures {@link VisitRegistry}, which should stay flat as the queue grows.
+ * {@code linkedList} replays the former {@code LinkedList} bookkeeping, whose {@code remove(thread)}
+ * scans the whole queue, for comparison.
+ * <p>
+ * Usage: {@code java -jar benchmarks/target/benchmarks.jar RegistryBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RegistryBenchmark {
+
+    @Param({"0", "1000", "10000", "100000"})
+    public int queueDepth;
+
+    private VisitRegistry registry;
+    private LinkedList<Thread> waitingList;
+    private LinkedList<Thread> runningList;
+    private Thread self;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        self = Thread.currentThread();
+        Thread queued = Thread.ofVirtual().unstarted(() -> {});
+
+        registry = new VisitRegistry();
+        waitingList = new LinkedList<>();
+        runningList = new LinkedList<>();
+        for (int i = 0; i < queueDepth; i++) {
+            registry.arrive(queued, Role.READER);
+            waitingList.add(queued);
+        }
+    }
+
+    @Benchmark
+    public int registry() {
+        Visit visit = registry.arrive(self, Role.READER);
+        registry.admit(visit);
+        registry.leave(visit);
+        return registry.waitingCount();
+    }
+
+    @Benchmark
+    public int linkedList() {
+        waitingList.add(self);
+        waitingList.remove(self);
+        runningList.add(self);
+        runningList.remove(self);
+        return waitingList.size();
+    }
+}
@@ -1,11 +1,36 @@
 package com.dnikitin;
 
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.BatchAdmissionLockStrategy;
+import com.dnikitin.lock.LockStrategy;
+import com.dnikitin.lock.PhaseFairLockStrategy;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import com.dnikitin.metrics.FairnessAuditor;
+import com.dnikitin.metrics.LibraryMetrics;
+import com.dnikitin.metrics.RunSummary;
 import com.dnikitin.model.Library;
+import com.dnikitin.simulation.AdmissionModel;
+import com.dnikitin.simulation.FairSemaphoreModel;
+import com.dnikitin.simulation.PhaseFairModel;
+import com.dnikitin.simulation.Simulation;
 import com.dnikitin.threads.Reader;
 import com.dnikitin.threads.Writer;
+import com.dnikitin.workload.ArrivalProcess;
+import com.dnikitin.workload.OpenLoopDriver;
+import com.dnikitin.workload.ServiceTime;
+import com.dnikitin.workload.Workload;
+import com.dnikitin.workload.WorkloadResult;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Entry point for the Readers-Writers simulation.
@@ -17,6 +42,77 @@ public class LibraryRunner {
      */
     public record SimulationParams(int numReaders, int numWriters, int restingTime) {}
 
+    /**
+     * Settings of the discrete-event mode, enabled with {@code --simulate}.
+     *
+     * @param seed   Seed of the random generator, {@code --seed=<n>}.
+     * @param cycles Reader and writer visits to simulate, {@code --cycles=<n>}.
+     */
+    public record VirtualClockParams(long seed, long cycles) {}
+
+    /**
+     * Settings of the open-loop mode, enabled with {@code --rate}.
+     *
+     * @param rate     Requests per second, {@code --rate=<n>}.
+     * @param arrivals Arrival process, {@code --arrivals=poisson|bursty|constant}.
+     * @param service  Service time distribution, {@code --service=uniform|exponential|lognormal|<trace file>}.
+     * @param seed     Seed of the random generator, {@code --seed=<n>}.
+     */
+    public record OpenLoopParams(double rate, String arrivals, String service, long seed) {}
+
+    /**
+     * Limits of a run; 0 means unlimited. A run without limits goes on until the process is stopped.
+     *
+     * @param duration   How long actors keep visiting, {@code --duration=<seconds>}.
+     * @param operations Reader and writer visits in total, {@code --operations=<n>}.
+     */
+    public record RunLimits(Duration duration, long operations) {
+        public static final RunLimits UNLIMITED = new RunLimits(Duration.ZERO, 0);
+
+        public boolean isBounded() {
+            return duration.isPositive() || operations > 0;
+        }
+    }
+
+    static final Duration OPEN_LOOP_DURATION = Duration.ofSeconds(30);
+
+    /**
+     * Admission policy, {@code --policy=fifo|phase-fair|batch}.
+     */
+    public enum Policy {
+        FIFO, BATCH, PHASE_FAIR;
+
+        public static Policy parse(String[] args) {
+            for (String arg : args) {
+                if (arg.startsWith("--policy=")) {
+                    String name = arg.substring("--policy=".length());
+                    try {
+                        return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+                    } catch (IllegalArgumentException _) {
+                        System.err.println("Unknown policy " + name + ". Using default.");
+                    }
+                }
+            }
+            return FIFO;
+        }
+
+        public LockStrategy newStrategy(int maxReaders) {
+            return switch (this) {
+                case FIFO -> new SemaphoreLockStrategy(maxReaders);
+                case BATCH -> new BatchAdmissionLockStrategy(maxReaders);
+                case PHASE_FAIR -> new PhaseFairLockStrategy(maxReaders);
+            };
+        }
+
+        public AdmissionModel newModel(int maxReaders) {
+            return switch (this) {
+                // same arrival-order admission, only the wake-up differs
+                case FIFO, BATCH -> new FairSemaphoreModel(maxReaders);
+                case PHASE_FAIR -> new PhaseFairModel(maxReaders);
+            };
+        }
+    }
+
     /**
      * Extracts simulation parameters from command-line arguments.
      *
@@ -24,6 +120,8 @@ public class LibraryRunner {
      * @return Configuration object with parsed or default values.
      */
     public static SimulationParams parseArguments(String[] args) {
+        // flags are handled separately, only the positional arguments count here
+        args = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
         int numReaders = 10;
         int numWriters = 3;
         int restingTime = 2000;
@@ -52,41 +150,247 @@ public class LibraryRunner {
         return new SimulationParams(numReaders, numWriters, restingTime);
     }
 
+    /**
+     * Extracts the discrete-event settings from command-line flags.
+     *
+     * @param args Command-line arguments.
+     * @return Settings if {@code --simulate} is present.
+     */
+    public static Optional<VirtualClockParams> parseVirtualClock(String[] args) {
+        if (!Arrays.asList(args).contains("--simulate")) {
+            return Optional.empty();
+        }
+        long seed = 42;
+        long cycles = 1_000_000;
+        for (String arg : args) {
+            try {
+                if (arg.startsWith("--seed=")) {
+                    seed = Long.parseLong(arg.substring("--seed=".length()));
+                } else if (arg.startsWith("--cycles=")) {
+                    long maybeCycles = Long.parseLong(arg.substring("--cycles=".length()));
+                    if (maybeCycles > 0) {
+                        cycles = maybeCycles;
+                    }
+                }
+            } catch (NumberFormatException _) {
+                System.err.println("Invalid flag " + arg + ". Using default.");
+            }
+        }
+        return Optional.of(new VirtualClockParams(seed, cycles));
+    }
+
+    /**
+     * Extracts the run limits from command-line flags.
+     *
+     * @param args Command-line arguments.
+     * @return Limits, {@link RunLimits#UNLIMITED} if none are given.
+     */
+    public static RunLimits parseLimits(String[] args) {
+        Duration duration = Duration.ZERO;
+        long operations = 0;
+        for (String arg : args) {
+            try {
+                if (arg.startsWith("--duration=")) {
+                    long seconds = Long.parseLong(arg.substring("--duration=".length()));
+                    if (seconds > 0) {
+                        duration = Duration.ofSeconds(seconds);
+                    }
+                } else if (arg.startsWith("--operations=")) {
+                    long maybeOperations = Long.parseLong(arg.substring("--operations=".length()));
+                    if (maybeOperations > 0) {
+                        operations = maybeOperations;
+                    }
+                }
+            } catch (NumberFormatException _) {
+                System.err.println("Invalid flag " + arg + ". Using default.");
+            }
+        }
+        return new RunLimits(duration, operations);
+    }
+
+    /**
+     * Extracts the fairness audit flag: {@code --audit} or {@code --audit=<ms>} with the wait bound.
+     *
+     * @param args Command-line arguments.
+     * @return Wait bound if auditing was requested.
+     */
+    public static Optional<Duration> parseAudit(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--audit")) {
+                return Optional.of(FairnessAuditor.DEFAULT_WAIT_BOUND);
+            }
+            if (arg.startsWith("--audit=")) {
+                try {
+                    long millis = Long.parseLong(arg.substring("--audit=".length()));
+                    if (millis >= 0) {
+                        return Optional.of(Duration.ofMillis(millis));
+                    }
+                } catch (NumberFormatException _) {
+                    // reported below
+                }
+                System.err.println("Invalid flag " + arg + ". Using default.");
+                return Optional.of(FairnessAuditor.DEFAULT_WAIT_BOUND);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Runs the reader and writer actors until the limits are reached, then interrupts the ones still running
+     * and waits for all of them to leave the library.
+     *
+     * @param library Library to visit.
+     * @param params  Number of actors and resting time.
+     * @param limits  When to stop; an unbounded run only returns if the calling thread is interrupted.
+     * @return Report over the whole run.
+     */
+    public static RunSummary runActors(Library library, SimulationParams params, RunLimits limits)
+            throws InterruptedException {
+        AtomicLong remainingVisits = new AtomicLong(limits.operations() > 0 ? limits.operations() : Long.MAX_VALUE);
+        long deadline = limits.duration().isPositive() ? limits.duration().toNanos() : Long.MAX_VALUE;
+        try (LibraryMetrics metrics = new LibraryMetrics(library)) {
+            long start = System.nanoTime();
+            // the executor owns every actor: closing it waits until all of them have finished
+            try (ExecutorService actors = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < params.numReaders(); i++) {
+                    actors.execute(named("Reader-" + (i + 1),
+                            new Reader(library, params.restingTime(), remainingVisits)));
+                }
+                for (int i = 0; i < params.numWriters(); i++) {
+                    actors.execute(named("Writer-" + (i + 1),
+                            new Writer(library, params.restingTime(), remainingVisits)));
+                }
+                actors.shutdown();
+                try {
+                    actors.awaitTermination(deadline, TimeUnit.NANOSECONDS);
+                } finally {
+                    // out of time or interrupted: stop the actors, each one leaves the library on its way out
+                    actors.shutdownNow();
+                }
+            }
+            return RunSummary.of(metrics.getSnapshot(), Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private static Runnable named(String name, Runnable actor) {
+        return () -> {
+            Thread.currentThread().setName(name);
+            actor.run();
+        };
+    }
+
+    /**
+     * Extracts the open-loop settings from command-line flags.
+     *
+     * @param args Command-line arguments.
+     * @return Settings if a valid {@code --rate} is present.
+     */
+    public static Optional<OpenLoopParams> parseOpenLoop(String[] args) {
+        double rate = 0;
+        String arrivals = "poisson";
+        String service = "uniform";
+        long seed = 42;
+        for (String arg : args) {
+            try {
+                if (arg.startsWith("--rate=")) {
+                    rate = Double.parseDouble(arg.substring("--rate=".length()));
+                } else if (arg.startsWith("--arrivals=")) {
+                    arrivals = arg.substring("--arrivals=".length());
+                } else if (arg.startsWith("--service=")) {
+                    service = arg.substring("--service=".length());
+                } else if (arg.startsWith("--seed=")) {
+                    seed = Long.parseLong(arg.substring("--seed=".length()));
+                }
+            } catch (NumberFormatException _) {
+                System.err.println("Invalid flag " + arg + ". Using default.");
+            }
+        }
+        return rate > 0 ? Optional.of(new OpenLoopParams(rate, arrivals, service, seed)) : Optional.empty();
+    }
+
+    /**
+     * Builds the workload for the open-loop mode. The writer share follows the reader/writer counts and
+     * service times keep the 1-3 s scale of the threaded simulation.
+     */
+    static Workload workloadOf(SimulationParams params, OpenLoopParams openLoop) throws IOException {
+        int visitors = params.numReaders() + params.numWriters();
+        double writerShare = visitors == 0 ? 0 : (double) params.numWriters() / visitors;
+        ArrivalProcess arrivals = switch (openLoop.arrivals()) {
+            case "poisson" -> ArrivalProcess.poisson(openLoop.rate());
+            case "constant" -> ArrivalProcess.constant(openLoop.rate());
+            case "bursty" -> ArrivalProcess.bursty(openLoop.rate(), openLoop.rate() * 10,
+                    Duration.ofSeconds(10), Duration.ofSeconds(1));
+            default -> throw new IllegalArgumentException("Unknown arrival process " + openLoop.arrivals());
+        };
+        ServiceTime service = switch (openLoop.service()) {
+            case "uniform" -> ServiceTime.uniform(Duration.ofSeconds(1), Duration.ofSeconds(3));
+            case "exponential" -> ServiceTime.exponential(Duration.ofSeconds(2));
+            case "lognormal" -> ServiceTime.lognormal(Duration.ofSeconds(2), 1.0);
+            default -> ServiceTime.trace(Path.of(openLoop.service()));
+        };
+        return new Workload(arrivals, writerShare, service, openLoop.seed());
+    }
+
     /**
      * Main method to start the simulation.
      * @param args Command-line arguments:
      * args[0] - Number of readers (default: 10)
      * args[1] - Number of writers (default: 3)
      * args[2] - Resting time in ms (default: 2000)
+     * --simulate [--seed=n] [--cycles=n] - Run on a virtual clock instead of real threads and print statistics
+     * --rate=n [--arrivals=..] [--service=..] [--seed=n] - Drive the library with open-loop arrivals and print
+     * throughput and latency percentiles
+     * --duration=seconds, --operations=n - Stop after the given time or number of visits and print a summary
+     * --policy=fifo|phase-fair|batch - Admission policy in every mode
      */
     public static void main(String[] args) throws Exception {
         SimulationParams params = parseArguments(args);
+        Policy policy = Policy.parse(args);
 
-        Library library = new Library();
-        List<Thread> virtualThreads = new ArrayList<>();
-
-        // Create and start virtual threads manually to keep references for joining
-        for (int i = 0; i < params.numReaders(); i++) {
-            String name = "Reader-" + (i + 1);
-            Thread t = Thread.ofVirtual().name(name).start(new Reader(library, params.restingTime()));
-            virtualThreads.add(t);
+        Optional<VirtualClockParams> virtualClock = parseVirtualClock(args);
+        if (virtualClock.isPresent()) {
+            Simulation simulation = new Simulation(
+                    Simulation.Config.of(params.numReaders(), params.numWriters(), params.restingTime(),
+                            virtualClock.get().seed()),
+                    policy.newModel(Library.DEFAULT_MAX_READERS));
+            System.out.println(simulation.run(virtualClock.get().cycles()).describe());
+            return;
         }
 
-        for (int i = 0; i < params.numWriters(); i++) {
-            String name = "Writer-" + (i + 1);
-            Thread t = Thread.ofVirtual().name(name).start(new Writer(library, params.restingTime()));
-            virtualThreads.add(t);
+        Optional<OpenLoopParams> openLoop = parseOpenLoop(args);
+        if (openLoop.isPresent()) {
+            // printing every enter/leave would dominate at high rates
+            Library library = new Library(policy.newStrategy(Library.DEFAULT_MAX_READERS), EventRecorder.DISABLED);
+            Optional<FairnessAuditor> auditor = audit(library, args);
+            OpenLoopDriver driver = new OpenLoopDriver(library, workloadOf(params, openLoop.get()));
+            RunLimits limits = parseLimits(args);
+            WorkloadResult result = limits.operations() > 0
+                    ? driver.run(limits.operations())
+                    : driver.run(limits.duration().isPositive() ? limits.duration() : OPEN_LOOP_DURATION);
+            System.out.println(result.describe());
+            auditor.ifPresent(a -> System.out.println(a.report().describe()));
+            return;
         }
 
-        // CRITICAL: Since virtual threads are daemons, we MUST join them
-        // to prevent the main thread from exiting immediately.
+        Library library = new Library(policy.newStrategy(Library.DEFAULT_MAX_READERS));
+        // visible in JConsole/VisualVM under com.dnikitin:type=Library
+        new LibraryMetrics(library).registerMBean("simulation");
+        Optional<FairnessAuditor> auditor = audit(library, args);
+
+        RunLimits limits = parseLimits(args);
         try {
-            for (Thread t : virtualThreads) {
-                t.join();
+            RunSummary summary = runActors(library, params, limits);
+            if (limits.isBounded()) {
+                System.out.println(summary.describe());
+                auditor.ifPresent(a -> System.out.println(a.report().describe()));
             }
         } catch (InterruptedException _) {
             Thread.currentThread().interrupt();
         }
     }
+
+    private static Optional<FairnessAuditor> audit(Library library, String[] args) {
+        return parseAudit(args).map(bound -> new FairnessAuditor(library, bound, FairnessAuditor.DEFAULT_CAPACITY));
+    }
 }
 
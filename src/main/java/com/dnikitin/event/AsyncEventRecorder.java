@@ -0,0 +1,262 @@
+package com.dnikitin.event;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Event recorder backed by a preallocated multi-producer ring buffer.
+ * <p>
+ * Producers claim a slot with a single CAS and copy the event into parallel arrays, so recording
+ * never allocates, never takes a lock and never performs I/O. When the buffer is full the event is
+ * dropped and counted instead of blocking the caller. A single background thread formats the events
+ * and hands the text to the sink.
+ * <p>
+ * With {@code sampleEvery > 1} only about one in {@code sampleEvery} events is recorded. A recorder created with
+ * {@code threadNames} also lists who is waiting and inside, which costs the library a snapshot per kept event;
+ * sampling decides before the snapshot is taken.
+ */
+public class AsyncEventRecorder implements EventRecorder {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final EventType[] TYPES = EventType.values();
+    private static final long MAX_IDLE_NANOS = 1_000_000L;
+    private static final int FLUSH_THRESHOLD = 8192;
+    // set in the tail by close: producers that see it drop their event, the consumer stops at the marked position
+    private static final long CLOSED = 1L << 62;
+
+    private final Consumer<String> sink;
+    private final int sampleEvery;
+    private final boolean threadNames;
+    private final int mask;
+
+    // slot i is free for position p when sequences[i] == p, and published when sequences[i] == p + 1
+    private final AtomicLongArray sequences;
+    private final byte[] types;
+    private final Thread[] threads;
+    private final int[] durations;
+    private final int[] waiting;
+    private final int[] inside;
+    // lists of threads, only filled with threadNames
+    private final Object[] waitingThreads;
+    private final Object[] insideThreads;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread consumer;
+
+    /**
+     * Creates a recorder that prints the waiting and inside counts without thread names.
+     */
+    public AsyncEventRecorder(Consumer<String> sink, int capacity, int sampleEvery) {
+        this(sink, capacity, sampleEvery, false);
+    }
+
+    /**
+     * @param sink        Receives formatted text, always called from the background thread.
+     * @param capacity    Number of preallocated slots, rounded up to a power of two.
+     * @param sampleEvery Record roughly one in this many events (1 records everything).
+     * @param threadNames Also print the names of the threads waiting and inside.
+     */
+    public AsyncEventRecorder(Consumer<String> sink, int capacity, int sampleEvery, boolean threadNames) {
+        if (capacity < 1 || sampleEvery < 1) {
+            throw new IllegalArgumentException("capacity and sampleEvery must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.sink = sink;
+        this.sampleEvery = sampleEvery;
+        this.threadNames = threadNames;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.types = new byte[size];
+        this.threads = new Thread[size];
+        this.durations = new int[size];
+        this.waiting = new int[size];
+        this.inside = new int[size];
+        this.waitingThreads = new Object[threadNames ? size : 0];
+        this.insideThreads = new Object[threadNames ? size : 0];
+
+        this.consumer = Thread.ofPlatform().daemon(true).name("library-event-log").start(this::drainLoop);
+    }
+
+    @Override
+    public void record(EventType type, Thread thread, int duration, int waitingCount, int insideCount) {
+        if (!sampledOut()) {
+            append(type, thread, duration, waitingCount, insideCount, null, null);
+        }
+    }
+
+    @Override
+    public void record(EventType type, Thread thread, int duration, Supplier<List<Thread>> waitingSnapshot,
+                       Supplier<List<Thread>> insideSnapshot) {
+        // the snapshots are the expensive part, so nothing is built for an event that will not be kept
+        if (sampledOut() || (tail.get() & CLOSED) != 0) {
+            return;
+        }
+        List<Thread> waitingList = waitingSnapshot.get();
+        List<Thread> insideList = insideSnapshot.get();
+        append(type, thread, duration, waitingList.size(), insideList.size(), waitingList, insideList);
+    }
+
+    @Override
+    public boolean recordsThreads() {
+        return threadNames;
+    }
+
+    private boolean sampledOut() {
+        return sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0;
+    }
+
+    private void append(EventType type, Thread thread, int duration, int waitingCount, int insideCount,
+                        List<Thread> waitingList, List<Thread> insideList) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            if ((position & CLOSED) != 0) {
+                return;
+            }
+            index = (int) (position & mask);
+            long diff = sequences.getAcquire(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                // the consumer has not caught up yet, drop rather than wait
+                dropped.increment();
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        types[index] = (byte) type.ordinal();
+        threads[index] = thread;
+        durations[index] = duration;
+        waiting[index] = waitingCount;
+        inside[index] = insideCount;
+        if (threadNames) {
+            waitingThreads[index] = waitingList;
+            insideThreads[index] = insideList;
+        }
+        sequences.setRelease(index, position + 1);
+    }
+
+    static EventRecorder console() {
+        return ConsoleHolder.INSTANCE;
+    }
+
+    static EventRecorder consoleWithThreadNames() {
+        return NamingConsoleHolder.INSTANCE;
+    }
+
+    /**
+     * @return Number of events lost because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting events, waits until everything already recorded has been written and stops the consumer.
+     * An event is either recorded before the close, and then written, or ignored.
+     */
+    @Override
+    public void close() {
+        // producers claim slots by advancing the tail, so marking it cuts off every later claim
+        tail.getAndUpdate(position -> position | CLOSED);
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        StringBuilder text = new StringBuilder(256);
+        long head = 0;
+        long idleNanos = 1_000L;
+
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.getAcquire(index) == head + 1) {
+                format(text, index);
+                threads[index] = null;
+                if (threadNames) {
+                    waitingThreads[index] = null;
+                    insideThreads[index] = null;
+                }
+                sequences.setRelease(index, head + mask + 1);
+                head++;
+                idleNanos = 1_000L;
+                if (text.length() >= FLUSH_THRESHOLD) {
+                    flush(text);
+                }
+                continue;
+            }
+
+            flush(text);
+            // slots claimed before the close are published right after their CAS, so wait for them too
+            if (tail.get() == (head | CLOSED)) {
+                return;
+            }
+            LockSupport.parkNanos(idleNanos);
+            idleNanos = Math.min(idleNanos * 2, MAX_IDLE_NANOS);
+        }
+    }
+
+    private void flush(StringBuilder text) {
+        if (!text.isEmpty()) {
+            sink.accept(text.toString());
+            text.setLength(0);
+        }
+    }
+
+    private void format(StringBuilder text, int index) {
+        String name = threads[index].getName();
+        text.append("Event: ").append(TYPES[types[index]].describe(name, durations[index])).append(System.lineSeparator())
+                .append("In queue (").append(waiting[index]).append(")");
+        appendNames(text, threadNames ? waitingThreads[index] : null);
+        text.append(System.lineSeparator())
+                .append("Inside (").append(inside[index]).append(")");
+        appendNames(text, threadNames ? insideThreads[index] : null);
+        text.append(System.lineSeparator())
+                .append("--------------------------------------------------").append(System.lineSeparator());
+    }
+
+    private static void appendNames(StringBuilder text, Object threads) {
+        if (threads instanceof List<?> list) {
+            text.append(" : ");
+            for (int i = 0; i < list.size(); i++) {
+                text.append(i == 0 ? "" : ", ").append(((Thread) list.get(i)).getName());
+            }
+        }
+    }
+
+    // created on first use so libraries with their own recorder never start the console thread
+    private static final class ConsoleHolder {
+        private static final EventRecorder INSTANCE = sharedConsole(false);
+    }
+
+    private static final class NamingConsoleHolder {
+        private static final EventRecorder INSTANCE = sharedConsole(true);
+    }
+
+    private static EventRecorder sharedConsole(boolean threadNames) {
+        return new AsyncEventRecorder(text -> System.out.print(text), DEFAULT_CAPACITY, 1, threadNames) {
+            @Override
+            public void close() {
+                // shared by every library, lives as long as the JVM
+            }
+        };
+    }
+}
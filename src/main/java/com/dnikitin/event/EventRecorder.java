@@ -0,0 +1,70 @@
+package com.dnikitin.event;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Sink for library events. Called on the hot path of every entry and exit,
+ * so implementations must never block the caller.
+ */
+@FunctionalInterface
+public interface EventRecorder extends AutoCloseable {
+
+    /**
+     * Recorder that drops every event.
+     */
+    EventRecorder DISABLED = (type, thread, duration, waiting, inside) -> {
+    };
+
+    /**
+     * @param type     Kind of event.
+     * @param thread   Thread the event belongs to.
+     * @param duration Simulated reading/writing time in ms (0 when not applicable).
+     * @param waiting  Number of threads waiting at the time of the event.
+     * @param inside   Number of threads inside at the time of the event.
+     */
+    void record(EventType type, Thread thread, int duration, int waiting, int inside);
+
+    /**
+     * Records an event together with the threads waiting and inside at that moment.
+     * Only called if {@link #recordsThreads()} returns true. The lists are snapshots built on the caller's thread
+     * when asked for, so a recorder should first decide whether it keeps the event at all.
+     */
+    default void record(EventType type, Thread thread, int duration, Supplier<List<Thread>> waiting,
+                        Supplier<List<Thread>> inside) {
+        List<Thread> waitingThreads = waiting.get();
+        List<Thread> insideThreads = inside.get();
+        record(type, thread, duration, waitingThreads.size(), insideThreads.size());
+    }
+
+    /**
+     * @return true if the recorder wants the waiting and inside threads of each event. Each snapshot sorts both
+     * lists on the entering or leaving thread, so only recorders meant for watching a small run should ask.
+     */
+    default boolean recordsThreads() {
+        return false;
+    }
+
+    /**
+     * Flushes pending events and releases background resources.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * @return Shared recorder printing every event with the waiting and inside counts to {@code System.out} from
+     * a single background thread. Closing it has no effect.
+     */
+    static EventRecorder console() {
+        return AsyncEventRecorder.console();
+    }
+
+    /**
+     * @return Shared console recorder that also lists the names of the threads waiting and inside, as the
+     * original demo output did. Costs a snapshot of both lists per event. Closing it has no effect.
+     */
+    static EventRecorder consoleWithThreadNames() {
+        return AsyncEventRecorder.consoleWithThreadNames();
+    }
+}
@@ -0,0 +1,29 @@
+package com.dnikitin.event;
+
+/**
+ * Kinds of library events reported by an {@link EventRecorder}.
+ */
+public enum EventType {
+    ARRIVED,
+    READING,
+    WRITING,
+    ABANDONED,
+    LEFT,
+    REVOKED;
+
+    /**
+     * @param threadName Name of the thread the event belongs to.
+     * @param duration   Simulated reading/writing time in ms, ignored for arrivals and departures.
+     * @return Human-readable description of the event.
+     */
+    public String describe(String threadName, int duration) {
+        return switch (this) {
+            case ARRIVED -> threadName + " wants to enter.";
+            case READING -> threadName + " is inside. Reading for " + duration + " ms.";
+            case WRITING -> threadName + " is inside. Writing for " + duration + " ms.";
+            case ABANDONED -> threadName + " gives up waiting.";
+            case LEFT -> threadName + " leaves.";
+            case REVOKED -> threadName + " is put out, its lease expired.";
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.dnikitin.event;
+
+/**
+ * Emits the library's Java Flight Recorder events.
+ * <p>
+ * Every method checks {@link jdk.jfr.Event#shouldCommit()} before touching any field, so while the events are
+ * disabled the call is reduced to that check and the event object is never allocated (escape analysis
+ * removes it). Enable them in a recording with {@code jfr configure} or with
+ * {@code -XX:StartFlightRecording:settings=<file>} listing {@code com.dnikitin.Library*}.
+ */
+public final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    /**
+     * @param queueLength Waiting threads, including this one.
+     */
+    public static void enqueued(Thread thread, String role, long sequence, int queueLength) {
+        LibraryEnqueueEvent event = new LibraryEnqueueEvent();
+        if (event.shouldCommit()) {
+            event.visitor = thread.getName();
+            event.role = role;
+            event.sequence = sequence;
+            event.queueLength = queueLength;
+            event.commit();
+        }
+    }
+
+    /**
+     * @param queueLength Threads still waiting at admission.
+     */
+    public static void admitted(Thread thread, String role, long sequence, long waitNanos, int queueLength) {
+        LibraryAdmitEvent event = new LibraryAdmitEvent();
+        if (event.shouldCommit()) {
+            event.visitor = thread.getName();
+            event.role = role;
+            event.sequence = sequence;
+            event.waitDuration = waitNanos;
+            event.queueLength = queueLength;
+            event.commit();
+        }
+    }
+
+    public static void left(Thread thread, String role, long sequence, long waitNanos, long holdNanos) {
+        LibraryLeaveEvent event = new LibraryLeaveEvent();
+        if (event.shouldCommit()) {
+            event.visitor = thread.getName();
+            event.role = role;
+            event.sequence = sequence;
+            event.waitDuration = waitNanos;
+            event.holdDuration = holdNanos;
+            event.commit();
+        }
+    }
+
+    public static void revoked(Thread thread, String role, long sequence, long holdNanos) {
+        LibraryRevokeEvent event = new LibraryRevokeEvent();
+        if (event.shouldCommit()) {
+            event.visitor = thread.getName();
+            event.role = role;
+            event.sequence = sequence;
+            event.holdDuration = holdNanos;
+            event.commit();
+        }
+    }
+
+    public static void abandoned(Thread thread, String role, long sequence, long waitNanos) {
+        LibraryAbandonEvent event = new LibraryAbandonEvent();
+        if (event.shouldCommit()) {
+            event.visitor = thread.getName();
+            event.role = role;
+            event.sequence = sequence;
+            event.waitDuration = waitNanos;
+            event.commit();
+        }
+    }
+}
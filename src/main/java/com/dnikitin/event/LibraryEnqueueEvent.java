@@ -0,0 +1,33 @@
+package com.dnikitin.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a reader or writer that starts waiting.
+ */
+@Name("com.dnikitin.LibraryEnqueue")
+@Label("Library Enqueue")
+@Description("A reader or writer started waiting to enter the library.")
+@Category({"Readers and Writers", "Library"})
+@StackTrace(false)
+final class LibraryEnqueueEvent extends Event {
+    @Label("Visitor")
+    @Description("Name of the reader or writer thread")
+    String visitor;
+
+    @Label("Role")
+    String role;
+
+    @Label("Sequence")
+    @Description("Arrival number of the visit, unique within one library")
+    long sequence;
+
+    @Label("Queue Length")
+    @Description("Waiting threads, including this one")
+    int queueLength;
+}
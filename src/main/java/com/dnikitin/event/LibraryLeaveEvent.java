@@ -0,0 +1,38 @@
+package com.dnikitin.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a reader or writer leaving, with the time it waited and the time it was inside.
+ */
+@Name("com.dnikitin.LibraryLeave")
+@Label("Library Leave")
+@Description("A reader or writer left the library.")
+@Category({"Readers and Writers", "Library"})
+@StackTrace(false)
+final class LibraryLeaveEvent extends Event {
+    @Label("Visitor")
+    @Description("Name of the reader or writer thread")
+    String visitor;
+
+    @Label("Role")
+    String role;
+
+    @Label("Sequence")
+    @Description("Arrival number of the visit, unique within one library")
+    long sequence;
+
+    @Label("Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long waitDuration;
+
+    @Label("Hold")
+    @Timespan(Timespan.NANOSECONDS)
+    long holdDuration;
+}
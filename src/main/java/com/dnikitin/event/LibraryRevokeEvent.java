@@ -0,0 +1,35 @@
+package com.dnikitin.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a reader or writer whose lease ran out while it was inside.
+ */
+@Name("com.dnikitin.LibraryRevoke")
+@Label("Library Revoke")
+@Description("A reader or writer was put out of the library because its lease expired.")
+@Category({"Readers and Writers", "Library"})
+@StackTrace(false)
+final class LibraryRevokeEvent extends Event {
+    @Label("Visitor")
+    @Description("Name of the reader or writer thread")
+    String visitor;
+
+    @Label("Role")
+    String role;
+
+    @Label("Sequence")
+    @Description("Arrival number of the visit, unique within one library")
+    long sequence;
+
+    @Label("Hold")
+    @Description("Time inside until the lease was revoked")
+    @Timespan(Timespan.NANOSECONDS)
+    long holdDuration;
+}
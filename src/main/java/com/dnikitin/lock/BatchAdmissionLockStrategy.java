@@ -0,0 +1,225 @@
+package com.dnikitin.lock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Strict FIFO engine, like the fair semaphore, that admits the readers queued behind a writer as one group.
+ * <p>
+ * With the fair semaphore a leaving writer wakes only the first waiting reader; that reader has to be scheduled
+ * and take its share before it wakes the next one, so the readers behind a writer trickle in one context switch
+ * apart. Here waiters sit in an explicit queue, and whoever makes room (a leaving writer or reader, a downgrading
+ * writer, a raised limit) grants the whole front run of readers that fits in a single update under a short lock.
+ * The granted threads are then unparked one after another without waiting for each other; each of them finds
+ * its grant already made and returns without touching the lock again.
+ * <p>
+ * Readers and writers are admitted in arrival order, so a waiting writer is never overtaken.
+ * A writer downgrades by becoming one of the readers and granting the readers behind it.
+ */
+public class BatchAdmissionLockStrategy implements LockStrategy {
+    private static final long READ_STAMP = 1L;
+    private static final long WRITE_STAMP = 2L;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // everything below is guarded by lock
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private int maxReaders;
+    private int readersInside;
+    private boolean writerInside;
+
+    public BatchAdmissionLockStrategy(int maxReaders) {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("maxReaders must be positive");
+        }
+        this.maxReaders = maxReaders;
+    }
+
+    @Override
+    public long acquireRead() throws InterruptedException {
+        return enter(false, false, 0L) ? READ_STAMP : 0L;
+    }
+
+    @Override
+    public long tryAcquireRead(long timeout, TimeUnit unit) throws InterruptedException {
+        return enter(false, true, Deadlines.after(timeout, unit)) ? READ_STAMP : 0L;
+    }
+
+    @Override
+    public void releaseRead(long stamp) {
+        List<Thread> granted;
+        lock.lock();
+        try {
+            readersInside--;
+            granted = grantFront();
+        } finally {
+            lock.unlock();
+        }
+        granted.forEach(LockSupport::unpark);
+    }
+
+    @Override
+    public long acquireWrite() throws InterruptedException {
+        return enter(true, false, 0L) ? WRITE_STAMP : 0L;
+    }
+
+    @Override
+    public long tryAcquireWrite(long timeout, TimeUnit unit) throws InterruptedException {
+        return enter(true, true, Deadlines.after(timeout, unit)) ? WRITE_STAMP : 0L;
+    }
+
+    @Override
+    public void releaseWrite(long stamp) {
+        List<Thread> granted;
+        lock.lock();
+        try {
+            writerInside = false;
+            granted = grantFront();
+        } finally {
+            lock.unlock();
+        }
+        granted.forEach(LockSupport::unpark);
+    }
+
+    @Override
+    public long downgradeToRead(long writeStamp) {
+        List<Thread> granted;
+        lock.lock();
+        try {
+            writerInside = false;
+            readersInside++;
+            granted = grantFront();
+        } finally {
+            lock.unlock();
+        }
+        granted.forEach(LockSupport::unpark);
+        return READ_STAMP;
+    }
+
+    @Override
+    public int getMaxReaders() {
+        lock.lock();
+        try {
+            return maxReaders;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void setMaxReaders(int maxReaders) {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("maxReaders must be positive");
+        }
+        List<Thread> granted;
+        lock.lock();
+        try {
+            this.maxReaders = maxReaders;
+            granted = grantFront();
+        } finally {
+            lock.unlock();
+        }
+        granted.forEach(LockSupport::unpark);
+    }
+
+    private boolean enter(boolean writer, boolean timed, long deadlineNanos) throws InterruptedException {
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (queue.isEmpty() && fits(writer)) {
+                admit(writer);
+                return true;
+            }
+            waiter = new Waiter(writer, Thread.currentThread());
+            queue.addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        while (!waiter.granted) {
+            if (timed) {
+                long remaining = Deadlines.remaining(deadlineNanos);
+                if (remaining == 0L) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            } else {
+                LockSupport.park(this);
+            }
+            if (Thread.interrupted()) {
+                interrupted = true;
+                break;
+            }
+        }
+        if (waiter.granted || !withdraw(waiter)) {
+            // granted meanwhile: the caller is inside and keeps its interrupt status
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+        if (interrupted) {
+            throw new InterruptedException();
+        }
+        return false;
+    }
+
+    // false if the grant arrived first
+    private boolean withdraw(Waiter waiter) {
+        List<Thread> granted;
+        lock.lock();
+        try {
+            if (waiter.granted) {
+                return false;
+            }
+            queue.remove(waiter);
+            // a writer giving up at the head may uncover readers that fit now
+            granted = grantFront();
+        } finally {
+            lock.unlock();
+        }
+        granted.forEach(LockSupport::unpark);
+        return true;
+    }
+
+    // one state transition for the whole front run; the caller unparks the returned threads after unlocking
+    private List<Thread> grantFront() {
+        List<Thread> granted = new ArrayList<>();
+        Waiter head;
+        while ((head = queue.peekFirst()) != null && fits(head.writer)) {
+            queue.pollFirst();
+            admit(head.writer);
+            head.granted = true;
+            granted.add(head.thread);
+        }
+        return granted;
+    }
+
+    private boolean fits(boolean writer) {
+        return writer ? !writerInside && readersInside == 0 : !writerInside && readersInside < maxReaders;
+    }
+
+    private void admit(boolean writer) {
+        if (writer) {
+            writerInside = true;
+        } else {
+            readersInside++;
+        }
+    }
+
+    private static final class Waiter {
+        private final boolean writer;
+        private final Thread thread;
+        // set under lock, read by the parked thread
+        private volatile boolean granted;
+
+        private Waiter(boolean writer, Thread thread) {
+            this.writer = writer;
+            this.thread = thread;
+        }
+    }
+}
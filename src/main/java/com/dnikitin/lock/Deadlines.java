@@ -0,0 +1,22 @@
+package com.dnikitin.lock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline arithmetic on {@link System#nanoTime()} that cannot overflow.
+ */
+final class Deadlines {
+    // about 73 years, far enough to mean "forever" while leaving room for nanoTime arithmetic
+    private static final long MAX_TIMEOUT_NANOS = Long.MAX_VALUE / 4;
+
+    private Deadlines() {
+    }
+
+    static long after(long timeout, TimeUnit unit) {
+        return System.nanoTime() + Math.clamp(unit.toNanos(timeout), 0L, MAX_TIMEOUT_NANOS);
+    }
+
+    static long remaining(long deadlineNanos) {
+        return Math.max(0L, deadlineNanos - System.nanoTime());
+    }
+}
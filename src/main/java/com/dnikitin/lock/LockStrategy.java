@@ -0,0 +1,140 @@
+package com.dnikitin.lock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission engine behind a {@link com.dnikitin.model.Library}.
+ * Decides when a reader or a writer may enter, while the library itself keeps the bookkeeping
+ * (waiting and running threads, event reporting).
+ * <p>
+ * Every successful acquisition returns a non-zero stamp that must be handed back to the matching release,
+ * so an engine never has to remember per-thread what a holder took.
+ * Every implementation must guarantee that a writer is inside alone and, unless documented otherwise,
+ * that at most {@link #getMaxReaders()} readers are inside at once.
+ */
+public interface LockStrategy {
+
+    /**
+     * Blocks until the caller may enter as a reader.
+     *
+     * @return Stamp to pass to {@link #releaseRead(long)}.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    long acquireRead() throws InterruptedException;
+
+    /**
+     * Waits at most the given time to enter as a reader. A zero timeout only succeeds if the reader
+     * could enter right away without overtaking waiting threads. A caller that gives up leaves no trace.
+     *
+     * @return Stamp to pass to {@link #releaseRead(long)}, or 0 if the time elapsed first.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    long tryAcquireRead(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Reader exit protocol.
+     *
+     * @param stamp Value returned by the matching read acquisition.
+     */
+    void releaseRead(long stamp);
+
+    /**
+     * Blocks until the caller may enter as the only writer.
+     *
+     * @return Stamp to pass to {@link #releaseWrite(long)}.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    long acquireWrite() throws InterruptedException;
+
+    /**
+     * Waits at most the given time to enter as the only writer, with the same rules as
+     * {@link #tryAcquireRead(long, TimeUnit)}.
+     *
+     * @return Stamp to pass to {@link #releaseWrite(long)}, or 0 if the time elapsed first.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    long tryAcquireWrite(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Writer exit protocol.
+     *
+     * @param stamp Value returned by the matching write acquisition.
+     */
+    void releaseWrite(long stamp);
+
+    /**
+     * @return Maximum number of readers admitted at the same time.
+     */
+    int getMaxReaders();
+
+    /**
+     * Changes the reader limit at runtime. Readers already inside are not evicted and keep counting against the
+     * limit they were admitted under, so the number of readers inside converges to the new limit as they leave.
+     * Writer exclusivity is not affected.
+     *
+     * @param maxReaders New limit.
+     * @throws UnsupportedOperationException if the engine has a fixed limit.
+     */
+    default void setMaxReaders(int maxReaders) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " has a fixed reader limit");
+    }
+
+    /**
+     * @return Highest limit {@link #setMaxReaders(int)} accepts.
+     */
+    default int getReaderLimitCeiling() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return true if a read or write must be released by the thread that acquired it. Such an engine cannot
+     * serve asynchronous visits, which are admitted on one thread and left on another.
+     */
+    default boolean isOwnerBound() {
+        return false;
+    }
+
+    /**
+     * Turns a read into a write without leaving: once every other reader has left, the caller is inside alone.
+     * No writer can enter in between. Only one reader may be upgrading at a time, because two upgraders would
+     * each wait for the other to leave.
+     *
+     * @param readStamp Stamp of the caller's read.
+     * @return Stamp to pass to {@link #releaseWrite(long)} or {@link #downgradeToRead(long)}, or 0 if another
+     * upgrade is in progress; the caller then still holds its read.
+     * @throws InterruptedException if interrupted while other readers are still inside; the read is kept.
+     * @throws UnsupportedOperationException if the engine cannot upgrade.
+     */
+    default long upgradeToWrite(long readStamp) throws InterruptedException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot upgrade a read");
+    }
+
+    /**
+     * Turns a write into a read and lets waiting readers in right away, without a writer slipping in between.
+     *
+     * @param writeStamp Stamp of the caller's write.
+     * @return Stamp to pass to {@link #releaseRead(long)}.
+     * @throws UnsupportedOperationException if the engine cannot downgrade.
+     */
+    default long downgradeToRead(long writeStamp) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot downgrade a write");
+    }
+
+    /**
+     * Starts an optimistic read that does not enter the library at all.
+     *
+     * @return A non-zero stamp to be checked with {@link #validate(long)}, or 0 if optimistic reads are not supported
+     * or a writer is currently inside.
+     */
+    default long tryOptimisticRead() {
+        return 0L;
+    }
+
+    /**
+     * @param stamp Value returned by {@link #tryOptimisticRead()}.
+     * @return true if no writer has entered since the stamp was issued.
+     */
+    default boolean validate(long stamp) {
+        return false;
+    }
+}
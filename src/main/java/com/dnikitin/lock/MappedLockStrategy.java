@@ -0,0 +1,323 @@
+package com.dnikitin.lock;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Engine whose whole state lives in a memory-mapped lock table, so libraries in different JVMs on one host that
+ * open the same file exclude each other like threads of one JVM do.
+ * <p>
+ * Admission is a FIFO ticket queue: every reader and writer draws a ticket and waits until the table serves it.
+ * A reader at the head takes one of the reader slots as soon as one is free and passes the turn on right away,
+ * so consecutive readers share the library; a writer at the head waits for the readers to leave and keeps the
+ * turn until it is done. All fields are updated with {@link VarHandle} atomics on the mapped segment, so no
+ * acquisition needs a system call. Waiters poll the table with a short, growing park, since a process cannot
+ * wake a thread of another one.
+ * <p>
+ * A holder that crashes must not block everyone else forever, so everything held is leased: reader slots carry
+ * an expiry, and the thread whose turn it is (a waiting head or the writer inside) keeps a head lease fresh.
+ * A daemon thread renews what this instance holds every third of the lease. The head reclaims reader slots whose
+ * lease ran out, and any waiter skips a head whose lease ran out. Waiters that time out or are interrupted mark
+ * their ticket as abandoned so that it is skipped too. The lease must therefore be much longer than any pause of
+ * a live process (GC, suspension), otherwise a live holder can lose its slot.
+ * <p>
+ * The reader limit is fixed when the table is created and shared by every process using it.
+ */
+public class MappedLockStrategy implements LockStrategy, AutoCloseable {
+    public static final Duration DEFAULT_LEASE = Duration.ofSeconds(10);
+
+    // tickets that may be abandoned at the same time; more concurrent waiters than this are not supported
+    static final int ABANDONED_RING = 1024;
+
+    private static final long MAGIC = 0x52575F4C4F434B31L;
+    private static final long MAGIC_AT = 0;
+    private static final long MAX_READERS_AT = 8;
+    private static final long NEXT_TICKET_AT = 16;
+    private static final long SERVING_AT = 24;
+    private static final long READERS_AT = 32;
+    private static final long WRITER_AT = 40;
+    private static final long HEAD_LEASE_AT = 48;
+    private static final long SLOTS_AT = 64;
+    private static final long SLOT_BYTES = 16;
+
+    private static final VarHandle LONG = ValueLayout.JAVA_LONG.varHandle();
+    private static final long MAX_POLL_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Arena arena;
+    private final MemorySegment table;
+    private final int maxReaders;
+    private final long abandonedAt;
+    private final long leaseMillis;
+    private final long ownerBits = ProcessHandle.current().pid() << 32;
+    private final AtomicLong acquisitions = new AtomicLong();
+
+    // owner tokens of the reader slots and the stamp of the writer this instance holds, renewed by the lease thread
+    private final AtomicLongArray heldSlots;
+    private volatile long heldWriter;
+
+    private final ScheduledExecutorService leaseRenewer;
+
+    /**
+     * Opens or creates a lock table with {@link #DEFAULT_LEASE}.
+     *
+     * @param file       Lock table shared by all processes.
+     * @param maxReaders Reader limit; must match the table if it already exists.
+     */
+    public MappedLockStrategy(Path file, int maxReaders) throws IOException {
+        this(file, maxReaders, DEFAULT_LEASE);
+    }
+
+    /**
+     * @param file       Lock table shared by all processes.
+     * @param maxReaders Reader limit; must match the table if it already exists.
+     * @param lease      How long a crashed holder can block the others; every process should use the same value.
+     */
+    public MappedLockStrategy(Path file, int maxReaders, Duration lease) throws IOException {
+        if (maxReaders < 1 || lease.toMillis() < 3) {
+            throw new IllegalArgumentException("maxReaders must be positive and the lease at least 3 ms");
+        }
+        this.maxReaders = maxReaders;
+        this.leaseMillis = lease.toMillis();
+        this.abandonedAt = SLOTS_AT + maxReaders * SLOT_BYTES;
+        this.heldSlots = new AtomicLongArray(maxReaders);
+        long size = abandonedAt + ABANDONED_RING * Long.BYTES;
+
+        Arena mapping = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+             // the only file lock ever taken: creating the table must not race with another process
+             FileLock _ = channel.lock()) {
+            if (channel.size() < size) {
+                channel.write(ByteBuffer.allocate(1), size - 1);
+            }
+            this.table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, mapping);
+            if ((long) LONG.getVolatile(table, MAGIC_AT) != MAGIC) {
+                LONG.setVolatile(table, MAX_READERS_AT, (long) maxReaders);
+                LONG.setVolatile(table, MAGIC_AT, MAGIC);
+            } else if ((long) LONG.getVolatile(table, MAX_READERS_AT) != maxReaders) {
+                throw new IllegalArgumentException(file + " was created for "
+                        + LONG.getVolatile(table, MAX_READERS_AT) + " readers, not " + maxReaders);
+            }
+        } catch (IOException | RuntimeException e) {
+            mapping.close();
+            throw e;
+        }
+        this.arena = mapping;
+        this.leaseRenewer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("mapped-lock-lease")
+                .daemon(true)
+                .factory());
+        long period = leaseMillis / 3;
+        leaseRenewer.scheduleAtFixedRate(this::renewLeases, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long acquireRead() throws InterruptedException {
+        return enter(true, false, 0L);
+    }
+
+    @Override
+    public long tryAcquireRead(long timeout, TimeUnit unit) throws InterruptedException {
+        return enter(true, true, Deadlines.after(timeout, unit));
+    }
+
+    @Override
+    public void releaseRead(long stamp) {
+        int slot = (int) stamp - 1;
+        long token = heldSlots.getAndSet(slot, 0L);
+        // a slot reclaimed while we looked dead has already been taken off the count
+        if (LONG.compareAndSet(table, slotOwnerAt(slot), token, 0L)) {
+            LONG.getAndAdd(table, READERS_AT, -1L);
+        }
+    }
+
+    @Override
+    public long acquireWrite() throws InterruptedException {
+        return enter(false, false, 0L);
+    }
+
+    @Override
+    public long tryAcquireWrite(long timeout, TimeUnit unit) throws InterruptedException {
+        return enter(false, true, Deadlines.after(timeout, unit));
+    }
+
+    @Override
+    public void releaseWrite(long stamp) {
+        heldWriter = 0L;
+        LONG.compareAndSet(table, WRITER_AT, stamp, 0L);
+        passTurn(stamp - 1);
+    }
+
+    @Override
+    public int getMaxReaders() {
+        return maxReaders;
+    }
+
+    /**
+     * Stops renewing leases and unmaps the table. Anything still held is released by lease expiry.
+     */
+    @Override
+    public synchronized void close() {
+        leaseRenewer.shutdownNow();
+        if (arena.scope().isAlive()) {
+            arena.close();
+        }
+    }
+
+    // returns the stamp: slot + 1 for a reader, ticket + 1 for the writer; 0 if given up
+    private long enter(boolean reader, boolean timed, long deadlineNanos) throws InterruptedException {
+        long ticket = (long) LONG.getAndAdd(table, NEXT_TICKET_AT, 1L);
+        long parkNanos = 1_000L;
+        while (true) {
+            long serving = (long) LONG.getVolatile(table, SERVING_AT);
+            if (serving == ticket) {
+                LONG.setVolatile(table, HEAD_LEASE_AT, now() + leaseMillis);
+                reclaimExpiredReaders();
+                long stamp = reader ? tryEnterAsReader(ticket) : tryEnterAsWriter(ticket);
+                if (stamp != 0L) {
+                    return stamp;
+                }
+            } else {
+                skipDeadTurn(serving);
+            }
+            if (Thread.interrupted()) {
+                abandon(ticket);
+                throw new InterruptedException();
+            }
+            long wait = parkNanos;
+            if (timed) {
+                long remaining = Deadlines.remaining(deadlineNanos);
+                if (remaining == 0L) {
+                    abandon(ticket);
+                    return 0L;
+                }
+                wait = Math.min(wait, remaining);
+            }
+            LockSupport.parkNanos(wait);
+            parkNanos = Math.min(parkNanos * 2, MAX_POLL_PARK_NANOS);
+        }
+    }
+
+    // only the head admits readers and reclaims slots, so a free slot exists whenever the count is below the limit
+    private long tryEnterAsReader(long ticket) {
+        if ((long) LONG.getVolatile(table, READERS_AT) >= maxReaders) {
+            return 0L;
+        }
+        long token = nextToken();
+        for (int slot = 0; slot < maxReaders; slot++) {
+            if ((long) LONG.getVolatile(table, slotOwnerAt(slot)) != 0L) {
+                continue;
+            }
+            // the expiry goes first: a slot must never look taken with the lease of its previous holder
+            LONG.setVolatile(table, slotExpiryAt(slot), now() + leaseMillis);
+            if (LONG.compareAndSet(table, slotOwnerAt(slot), 0L, token)) {
+                heldSlots.set(slot, token);
+                LONG.getAndAdd(table, READERS_AT, 1L);
+                passTurn(ticket);
+                return slot + 1L;
+            }
+        }
+        return 0L;
+    }
+
+    // the writer keeps the turn, and with it the head lease, until it leaves; the table stores its stamp,
+    // so clearing a dead writer can only ever hit the writer holding that turn
+    private long tryEnterAsWriter(long ticket) {
+        if ((long) LONG.getVolatile(table, READERS_AT) != 0L) {
+            return 0L;
+        }
+        heldWriter = ticket + 1L;
+        LONG.setVolatile(table, WRITER_AT, ticket + 1L);
+        return ticket + 1L;
+    }
+
+    private void passTurn(long ticket) {
+        // the next head gets a fresh lease before it is even served
+        LONG.setVolatile(table, HEAD_LEASE_AT, now() + leaseMillis);
+        LONG.compareAndSet(table, SERVING_AT, ticket, ticket + 1L);
+    }
+
+    private void abandon(long ticket) {
+        // stored as ticket + 1, an empty entry must not match ticket 0
+        LONG.setVolatile(table, abandonedAt + (ticket % ABANDONED_RING) * Long.BYTES, ticket + 1L);
+        // if the turn reached us meanwhile, nobody else would pass it on before the lease runs out
+        if ((long) LONG.getVolatile(table, SERVING_AT) == ticket) {
+            passTurn(ticket);
+        }
+    }
+
+    private void skipDeadTurn(long serving) {
+        long abandoned = (long) LONG.getVolatile(table, abandonedAt + (serving % ABANDONED_RING) * Long.BYTES);
+        if (abandoned == serving + 1L) {
+            passTurn(serving);
+        } else if (now() - (long) LONG.getVolatile(table, HEAD_LEASE_AT) > 0) {
+            expireTurn(serving);
+        }
+    }
+
+    // the head crashed, as a waiter or as the writer inside; by the time a waiter gets here the turn may have moved
+    // on to a live writer, which both compare-and-sets leave alone
+    void expireTurn(long serving) {
+        LONG.compareAndSet(table, WRITER_AT, serving + 1L, 0L);
+        passTurn(serving);
+    }
+
+    private void reclaimExpiredReaders() {
+        long now = now();
+        for (int slot = 0; slot < maxReaders; slot++) {
+            long owner = (long) LONG.getVolatile(table, slotOwnerAt(slot));
+            if (owner != 0L && now - (long) LONG.getVolatile(table, slotExpiryAt(slot)) > 0
+                    && LONG.compareAndSet(table, slotOwnerAt(slot), owner, 0L)) {
+                LONG.getAndAdd(table, READERS_AT, -1L);
+            }
+        }
+    }
+
+    private void renewLeases() {
+        long expiry = now() + leaseMillis;
+        for (int slot = 0; slot < maxReaders; slot++) {
+            long token = heldSlots.get(slot);
+            if (token != 0L && (long) LONG.getVolatile(table, slotOwnerAt(slot)) == token) {
+                LONG.setVolatile(table, slotExpiryAt(slot), expiry);
+            }
+        }
+        long writer = heldWriter;
+        if (writer != 0L && (long) LONG.getVolatile(table, WRITER_AT) == writer
+                && (long) LONG.getVolatile(table, SERVING_AT) == writer - 1L) {
+            LONG.setVolatile(table, HEAD_LEASE_AT, expiry);
+        }
+    }
+
+    // unique across processes on the host and never 0
+    private long nextToken() {
+        return ownerBits | (acquisitions.incrementAndGet() & 0xFFFF_FFFFL);
+    }
+
+    private static long now() {
+        // wall-clock time, the only clock processes share
+        return System.currentTimeMillis();
+    }
+
+    private static long slotOwnerAt(int slot) {
+        return SLOTS_AT + slot * SLOT_BYTES;
+    }
+
+    private static long slotExpiryAt(int slot) {
+        return SLOTS_AT + slot * SLOT_BYTES + Long.BYTES;
+    }
+}
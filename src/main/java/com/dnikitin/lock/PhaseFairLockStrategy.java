@@ -0,0 +1,272 @@
+package com.dnikitin.lock;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Phase-fair engine after Brandenburg &amp; Anderson, "Reader-Writer Synchronization for Shared-Memory
+ * Multiprocessor Real-Time Systems".
+ * <p>
+ * Reader and writer phases alternate. A reader that arrives while no writer is waiting or inside joins the
+ * current reader phase and enters as soon as a slot is free. A reader that arrives while a writer is present
+ * waits for that writer to leave; then every reader that queued behind it is admitted together, before the
+ * next writer. Writers enter one at a time in arrival order, each after the readers of the phase before it.
+ * <p>
+ * So a reader waits for at most one writer and a writer waits for at most one reader phase per writer ahead of
+ * it, and readers that arrive between writers run concurrently instead of one at a time as with strict FIFO.
+ * Readers of one phase enter in no particular order.
+ * <p>
+ * An upgrading reader jumps ahead of the waiting writers and enters once the readers of its phase have left;
+ * a downgrading writer starts the next reader phase and stays inside as one of its readers.
+ */
+public class PhaseFairLockStrategy implements LockStrategy {
+    private static final long READ_STAMP = 1L;
+    private static final long WRITE_STAMP = 2L;
+
+    private final ReentrantLock lock;
+    private final Condition changed;
+
+    // everything below is guarded by lock
+    private final ArrayDeque<Object> writers = new ArrayDeque<>();
+    private int maxReaders;
+    private int readersInside;
+    private boolean writerInside;
+    // readers of the current reader phase that have not entered yet, the next writer waits for them
+    private int admittedReaders;
+    // readers that arrived while a writer was present, they form the next reader phase
+    private int blockedReaders;
+    // incremented at every change from a writer to a reader phase
+    private long phase;
+    // the one reader currently upgrading, queued as the first writer
+    private Object upgrader;
+
+    public PhaseFairLockStrategy(int maxReaders) {
+        this(maxReaders, new ReentrantLock());
+    }
+
+    // lets tests hold the lock to stop waiters at a chosen point
+    PhaseFairLockStrategy(int maxReaders, ReentrantLock lock) {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("maxReaders must be positive");
+        }
+        this.maxReaders = maxReaders;
+        this.lock = lock;
+        this.changed = lock.newCondition();
+    }
+
+    @Override
+    public long acquireRead() throws InterruptedException {
+        return enterRead(false, 0L) ? READ_STAMP : 0L;
+    }
+
+    @Override
+    public long tryAcquireRead(long timeout, TimeUnit unit) throws InterruptedException {
+        return enterRead(true, Deadlines.after(timeout, unit)) ? READ_STAMP : 0L;
+    }
+
+    @Override
+    public void releaseRead(long stamp) {
+        lock.lock();
+        try {
+            readersInside--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long acquireWrite() throws InterruptedException {
+        return enterWrite(false, 0L) ? WRITE_STAMP : 0L;
+    }
+
+    @Override
+    public long tryAcquireWrite(long timeout, TimeUnit unit) throws InterruptedException {
+        return enterWrite(true, Deadlines.after(timeout, unit)) ? WRITE_STAMP : 0L;
+    }
+
+    @Override
+    public void releaseWrite(long stamp) {
+        lock.lock();
+        try {
+            writerInside = false;
+            writers.poll();
+            startReaderPhase();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long upgradeToWrite(long readStamp) throws InterruptedException {
+        lock.lock();
+        try {
+            if (upgrader != null) {
+                return 0L;
+            }
+            // goes ahead of every waiting writer; readers arriving from now on wait for the next reader phase
+            upgrader = new Object();
+            writers.addFirst(upgrader);
+            boolean entered = false;
+            try {
+                // readers of the phase still waiting for a slot are not waited for, they may need ours
+                while (readersInside > 1) {
+                    changed.await();
+                }
+                readersInside--;
+                writerInside = true;
+                entered = true;
+                return WRITE_STAMP;
+            } finally {
+                if (!entered) {
+                    writers.remove(upgrader);
+                    if (writers.isEmpty()) {
+                        startReaderPhase();
+                    } else {
+                        changed.signalAll();
+                    }
+                }
+                upgrader = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long downgradeToRead(long writeStamp) {
+        lock.lock();
+        try {
+            writerInside = false;
+            writers.poll();
+            readersInside++;
+            startReaderPhase();
+            return READ_STAMP;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getMaxReaders() {
+        lock.lock();
+        try {
+            return maxReaders;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void setMaxReaders(int maxReaders) {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("maxReaders must be positive");
+        }
+        lock.lock();
+        try {
+            this.maxReaders = maxReaders;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean enterRead(boolean timed, long deadlineNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            if (writers.isEmpty() && admittedReaders == 0 && readersInside < maxReaders) {
+                readersInside++;
+                return true;
+            }
+            long arrivalPhase = phase;
+            boolean blocked = !writers.isEmpty();
+            if (blocked) {
+                blockedReaders++;
+            } else {
+                admittedReaders++;
+            }
+            boolean entered = false;
+            try {
+                while (true) {
+                    // the writer we queued behind has left, startReaderPhase moved us to the admitted readers
+                    blocked &= phase == arrivalPhase;
+                    if (!blocked && !writerInside && readersInside < maxReaders) {
+                        admittedReaders--;
+                        readersInside++;
+                        entered = true;
+                        return true;
+                    }
+                    if (!await(timed, deadlineNanos)) {
+                        return false;
+                    }
+                }
+            } finally {
+                if (!entered) {
+                    // await may throw after a phase change already moved us to the admitted readers
+                    blocked &= phase == arrivalPhase;
+                    if (blocked) {
+                        blockedReaders--;
+                    } else {
+                        admittedReaders--;
+                    }
+                    changed.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean enterWrite(boolean timed, long deadlineNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            Object token = new Object();
+            writers.add(token);
+            boolean entered = false;
+            try {
+                while (writers.peek() != token || readersInside > 0 || admittedReaders > 0) {
+                    if (!await(timed, deadlineNanos)) {
+                        return false;
+                    }
+                }
+                writerInside = true;
+                entered = true;
+                return true;
+            } finally {
+                if (!entered) {
+                    writers.remove(token);
+                    if (writers.isEmpty()) {
+                        // nobody is left to run the write phase the blocked readers are waiting for
+                        startReaderPhase();
+                    } else {
+                        changed.signalAll();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void startReaderPhase() {
+        admittedReaders += blockedReaders;
+        blockedReaders = 0;
+        phase++;
+        changed.signalAll();
+    }
+
+    private boolean await(boolean timed, long deadlineNanos) throws InterruptedException {
+        if (!timed) {
+            changed.await();
+            return true;
+        }
+        long remaining = Deadlines.remaining(deadlineNanos);
+        if (remaining == 0L) {
+            return false;
+        }
+        changed.awaitNanos(remaining);
+        return true;
+    }
+}
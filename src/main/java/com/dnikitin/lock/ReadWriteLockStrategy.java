@@ -0,0 +1,106 @@
+package com.dnikitin.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Engine backed by a {@link ReentrantReadWriteLock}.
+ * Readers share the read lock without a permit handoff between them; a separate slot pool
+ * caps how many of them are inside at once.
+ * <p>
+ * The read and write locks are owned by the acquiring thread, so every release must happen
+ * on the thread that entered.
+ */
+public class ReadWriteLockStrategy implements LockStrategy {
+    private static final long WRITE_STAMP = 1L;
+
+    private final ReentrantReadWriteLock lock;
+
+    // caps the number of readers inside; taken before the read lock so queued readers do not hold the lock
+    private final ReaderSlots readerSlots;
+
+    /**
+     * @param maxReaders Maximum number of readers inside at once.
+     * @param fair       true for arrival-order admission, false for higher throughput with barging.
+     */
+    public ReadWriteLockStrategy(int maxReaders, boolean fair) {
+        this.readerSlots = new ReaderSlots(maxReaders, fair);
+        this.lock = new ReentrantReadWriteLock(fair);
+    }
+
+    @Override
+    public long acquireRead() throws InterruptedException {
+        long share = readerSlots.acquire();
+        try {
+            lock.readLock().lockInterruptibly();
+        } catch (InterruptedException e) {
+            readerSlots.release(share);
+            throw e;
+        }
+        return share;
+    }
+
+    @Override
+    public long tryAcquireRead(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = Deadlines.after(timeout, unit);
+        long share = readerSlots.tryAcquire(timeout, unit);
+        if (share == 0L) {
+            return 0L;
+        }
+        boolean locked = false;
+        try {
+            locked = lock.readLock().tryLock(Deadlines.remaining(deadline), TimeUnit.NANOSECONDS);
+        } finally {
+            if (!locked) {
+                readerSlots.release(share);
+            }
+        }
+        return locked ? share : 0L;
+    }
+
+    @Override
+    public void releaseRead(long stamp) {
+        lock.readLock().unlock();
+        readerSlots.release(stamp);
+    }
+
+    @Override
+    public long acquireWrite() throws InterruptedException {
+        lock.writeLock().lockInterruptibly();
+        return WRITE_STAMP;
+    }
+
+    @Override
+    public long tryAcquireWrite(long timeout, TimeUnit unit) throws InterruptedException {
+        return lock.writeLock().tryLock(timeout, unit) ? WRITE_STAMP : 0L;
+    }
+
+    @Override
+    public void releaseWrite(long stamp) {
+        lock.writeLock().unlock();
+    }
+
+    @Override
+    public int getMaxReaders() {
+        return readerSlots.getLimit();
+    }
+
+    @Override
+    public void setMaxReaders(int maxReaders) {
+        readerSlots.setLimit(maxReaders);
+    }
+
+    @Override
+    public int getReaderLimitCeiling() {
+        return ReaderSlots.MAX_LIMIT;
+    }
+
+    @Override
+    public boolean isOwnerBound() {
+        return true;
+    }
+
+    public boolean isFair() {
+        return lock.isFair();
+    }
+}
@@ -0,0 +1,225 @@
+package com.dnikitin.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reader-biased wrapper around another strategy, following the BRAVO design
+ * (Dice &amp; Kogan, "BRAVO: Biased Locking for Reader-Writer Locks").
+ * <p>
+ * While the lock is reader-biased, a reader announces itself by publishing its thread in one slot of a
+ * table indexed by thread id, so concurrent readers write to different cache lines instead of
+ * CASing one shared counter. Slots are {@link #SLOT_STRIDE} references apart, a full cache line even with
+ * compressed references, and the first one is a stride away from the array header.
+ * Readers whose slot is taken, and all readers while the bias is revoked, take the slow path through the
+ * underlying strategy.
+ * <p>
+ * A writer first enters the underlying strategy, then revokes the bias and waits until every slot is empty.
+ * Revocation is expensive, so the bias stays off for {@link #INHIBIT_MULTIPLIER} times as long as the
+ * revocation took; the next slow-path reader after that turns it back on.
+ * <p>
+ * Fast-path readers are not counted against the reader limit of the underlying strategy, so this mode
+ * trades the limit for read scalability. A fast-path read is identified by a negative stamp encoding its slot,
+ * so the strategy keeps no per-thread state; slow-path and write stamps are the underlying strategy's
+ * (always positive) stamps.
+ */
+public class ReaderBiasedLockStrategy implements LockStrategy {
+    static final int INHIBIT_MULTIPLIER = 9;
+    // 16 compressed references fill a 64-byte line
+    static final int SLOT_STRIDE = 16;
+    static final int MAX_SLOTS = 1 << 20;
+    private static final long MAX_DRAIN_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LockStrategy underlying;
+    // slot i is at index (i + 1) * SLOT_STRIDE, the other elements stay empty
+    private final AtomicReferenceArray<Thread> visibleReaders;
+    private final int slots;
+    private final int mask;
+
+    private volatile boolean readBias = true;
+    private volatile long inhibitUntilNanos;
+
+    /**
+     * @param underlying Strategy used by writers and by readers that miss the fast path.
+     */
+    public ReaderBiasedLockStrategy(LockStrategy underlying) {
+        this(underlying, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * @param underlying Strategy used by writers and by readers that miss the fast path.
+     * @param slots      Size of the reader table, rounded up to a power of two, at most {@link #MAX_SLOTS}.
+     */
+    public ReaderBiasedLockStrategy(LockStrategy underlying, int slots) {
+        if (underlying == null || slots < 1 || slots > MAX_SLOTS) {
+            throw new IllegalArgumentException("underlying must not be null and slots must be between 1 and "
+                    + MAX_SLOTS);
+        }
+        int size = Integer.highestOneBit(Math.max(2, slots) * 2 - 1);
+        this.underlying = underlying;
+        this.visibleReaders = new AtomicReferenceArray<>((size + 1) * SLOT_STRIDE);
+        this.slots = size;
+        this.mask = size - 1;
+    }
+
+    @Override
+    public long acquireRead() throws InterruptedException {
+        long stamp = tryFastRead();
+        if (stamp != 0L) {
+            return stamp;
+        }
+        return enteredSlowRead(underlying.acquireRead());
+    }
+
+    @Override
+    public long tryAcquireRead(long timeout, TimeUnit unit) throws InterruptedException {
+        long stamp = tryFastRead();
+        if (stamp != 0L) {
+            return stamp;
+        }
+        return enteredSlowRead(underlying.tryAcquireRead(timeout, unit));
+    }
+
+    @Override
+    public void releaseRead(long stamp) {
+        if (stamp < 0) {
+            visibleReaders.set(indexOf(slotOf(stamp)), null);
+        } else {
+            underlying.releaseRead(stamp);
+        }
+    }
+
+    @Override
+    public long acquireWrite() throws InterruptedException {
+        long stamp = underlying.acquireWrite();
+        enteredWrite(stamp, false, 0L);
+        return stamp;
+    }
+
+    @Override
+    public long tryAcquireWrite(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = Deadlines.after(timeout, unit);
+        long stamp = underlying.tryAcquireWrite(timeout, unit);
+        if (stamp == 0L) {
+            return 0L;
+        }
+        return enteredWrite(stamp, true, deadline) ? stamp : 0L;
+    }
+
+    @Override
+    public void releaseWrite(long stamp) {
+        underlying.releaseWrite(stamp);
+    }
+
+    /**
+     * @return Reader limit of the underlying strategy; fast-path readers are not counted against it.
+     */
+    @Override
+    public int getMaxReaders() {
+        return underlying.getMaxReaders();
+    }
+
+    @Override
+    public void setMaxReaders(int maxReaders) {
+        underlying.setMaxReaders(maxReaders);
+    }
+
+    @Override
+    public int getReaderLimitCeiling() {
+        return underlying.getReaderLimitCeiling();
+    }
+
+    @Override
+    public boolean isOwnerBound() {
+        return underlying.isOwnerBound();
+    }
+
+    /**
+     * @return true while readers may take the fast path.
+     */
+    public boolean isReadBiased() {
+        return readBias;
+    }
+
+    // returns the fast-path stamp, or 0 if the reader has to take the slow path
+    private long tryFastRead() {
+        if (!readBias) {
+            return 0L;
+        }
+        Thread thread = Thread.currentThread();
+        int slot = slotFor(thread);
+        if (visibleReaders.compareAndSet(indexOf(slot), null, thread)) {
+            // re-check after publishing: a writer clears the bias before scanning the table
+            if (readBias) {
+                return -(slot + 1L);
+            }
+            visibleReaders.set(indexOf(slot), null);
+        }
+        return 0L;
+    }
+
+    private long enteredSlowRead(long stamp) {
+        // no writer can be revoking while we hold the underlying read side
+        if (stamp != 0L && !readBias && System.nanoTime() - inhibitUntilNanos >= 0) {
+            readBias = true;
+        }
+        return stamp;
+    }
+
+    // called while holding the underlying write side; gives it back if the readers do not drain in time
+    private boolean enteredWrite(long stamp, boolean timed, long deadlineNanos) throws InterruptedException {
+        if (!readBias) {
+            return true;
+        }
+        boolean drained = false;
+        try {
+            drained = revokeBias(timed, deadlineNanos);
+        } finally {
+            if (!drained) {
+                underlying.releaseWrite(stamp);
+            }
+        }
+        return drained;
+    }
+
+    private boolean revokeBias(boolean timed, long deadlineNanos) throws InterruptedException {
+        readBias = false;
+        long start = System.nanoTime();
+        for (int i = 0; i < slots; i++) {
+            long parkNanos = 1_000L;
+            while (visibleReaders.get(indexOf(i)) != null) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                long wait = parkNanos;
+                if (timed) {
+                    long remaining = Deadlines.remaining(deadlineNanos);
+                    if (remaining == 0L) {
+                        return false;
+                    }
+                    wait = Math.min(wait, remaining);
+                }
+                LockSupport.parkNanos(wait);
+                parkNanos = Math.min(parkNanos * 2, MAX_DRAIN_PARK_NANOS);
+            }
+        }
+        long now = System.nanoTime();
+        inhibitUntilNanos = now + (now - start) * INHIBIT_MULTIPLIER;
+        return true;
+    }
+
+    private int slotFor(Thread thread) {
+        // spread thread ids (mostly sequential) over the table
+        long h = thread.threadId() * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    private static int indexOf(int slot) {
+        return (slot + 1) * SLOT_STRIDE;
+    }
+
+    private static int slotOf(long fastPathStamp) {
+        return (int) (-fastPathStamp - 1);
+    }
+}
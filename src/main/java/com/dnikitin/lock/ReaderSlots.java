@@ -0,0 +1,116 @@
+package com.dnikitin.lock;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fair permit pool shared by readers, with a reader limit that can change at any time.
+ * <p>
+ * The pool always holds {@link #TOTAL_PERMITS}; a reader takes an equal share of
+ * {@code TOTAL_PERMITS / limit} and returns exactly what it took, so changing the limit never has to touch
+ * permits that are already handed out. Readers admitted under the old limit simply keep their larger or smaller
+ * share until they leave, and the number of readers inside converges to the new limit.
+ * Taking the whole pool gives exclusive access regardless of the current limit.
+ */
+final class ReaderSlots {
+    static final int TOTAL_PERMITS = Integer.MAX_VALUE;
+
+    // TOTAL_PERMITS / (TOTAL_PERMITS / limit) == limit holds as long as limit^2 < TOTAL_PERMITS
+    static final int MAX_LIMIT = 1 << 15;
+
+    private static final long MAX_DRAIN_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Semaphore pool;
+    private volatile int limit;
+
+    ReaderSlots(int limit, boolean fair) {
+        this.pool = new Semaphore(TOTAL_PERMITS, fair);
+        setLimit(limit);
+    }
+
+    /**
+     * @return Share taken, to be passed back to {@link #release(long)}.
+     */
+    long acquire() throws InterruptedException {
+        int share = share();
+        pool.acquire(share);
+        return share;
+    }
+
+    /**
+     * @return Share taken, or 0 if the time elapsed first.
+     */
+    long tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        int share = share();
+        // the timed variant honours the fair ordering even with a zero timeout
+        return pool.tryAcquire(share, timeout, unit) ? share : 0L;
+    }
+
+    void release(long share) {
+        pool.release((int) share);
+    }
+
+    void acquireAll() throws InterruptedException {
+        pool.acquire(TOTAL_PERMITS);
+    }
+
+    boolean tryAcquireAll(long timeout, TimeUnit unit) throws InterruptedException {
+        // all-or-nothing: a caller that gives up holds no permits
+        return pool.tryAcquire(TOTAL_PERMITS, timeout, unit);
+    }
+
+    void releaseAll() {
+        pool.release(TOTAL_PERMITS);
+    }
+
+    /**
+     * Takes the rest of the pool while already holding a share. Permits are grabbed as soon as they are released,
+     * barging past the fair queue, so neither new readers nor a queued writer can get in before the caller
+     * holds the whole pool. The caller must make sure it is the only one doing this.
+     *
+     * @throws InterruptedException if interrupted first; the caller then holds just its share again.
+     */
+    void acquireRemaining(long share) throws InterruptedException {
+        long held = share;
+        long parkNanos = 1_000L;
+        try {
+            while ((held += pool.drainPermits()) < TOTAL_PERMITS) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                LockSupport.parkNanos(parkNanos);
+                parkNanos = Math.min(parkNanos * 2, MAX_DRAIN_PARK_NANOS);
+            }
+        } catch (InterruptedException e) {
+            pool.release((int) (held - share));
+            throw e;
+        }
+    }
+
+    /**
+     * Gives back the whole pool except one share, which the caller keeps.
+     *
+     * @return The share kept, to be passed back to {@link #release(long)}.
+     */
+    long releaseAllButShare() {
+        int share = share();
+        pool.release(TOTAL_PERMITS - share);
+        return share;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    void setLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("maxReaders must be between 1 and " + MAX_LIMIT + ": " + limit);
+        }
+        this.limit = limit;
+    }
+
+    private int share() {
+        return TOTAL_PERMITS / limit;
+    }
+}
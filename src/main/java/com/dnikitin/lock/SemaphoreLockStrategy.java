@@ -0,0 +1,91 @@
+package com.dnikitin.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The original engine: a single fair semaphore.
+ * Readers take an equal share of the permits, writers take all of them. The fair policy grants permits in
+ * arrival order, so a waiting writer at the head of the queue cannot be overtaken by later readers.
+ * <p>
+ * A reader upgrades by collecting the rest of the permits as the other readers return them; a writer downgrades
+ * by returning all permits but one reader share.
+ */
+public class SemaphoreLockStrategy implements LockStrategy {
+
+    // manages access to the library (max maxReaders for readers, all for writer) and FIFO order
+    private final ReaderSlots resourceSemaphore;
+
+    // set while a reader drains the others to upgrade, a second upgrader would wait for the first forever
+    private final AtomicBoolean upgrading = new AtomicBoolean();
+
+    public SemaphoreLockStrategy(int maxReaders) {
+        this.resourceSemaphore = new ReaderSlots(maxReaders, true);
+    }
+
+    @Override
+    public long acquireRead() throws InterruptedException {
+        return resourceSemaphore.acquire();
+    }
+
+    @Override
+    public long tryAcquireRead(long timeout, TimeUnit unit) throws InterruptedException {
+        return resourceSemaphore.tryAcquire(timeout, unit);
+    }
+
+    @Override
+    public void releaseRead(long stamp) {
+        resourceSemaphore.release(stamp);
+    }
+
+    @Override
+    public long acquireWrite() throws InterruptedException {
+        // Once at the front of the queue, wait for all permits to ensure exclusivity
+        resourceSemaphore.acquireAll();
+        return ReaderSlots.TOTAL_PERMITS;
+    }
+
+    @Override
+    public long tryAcquireWrite(long timeout, TimeUnit unit) throws InterruptedException {
+        return resourceSemaphore.tryAcquireAll(timeout, unit) ? ReaderSlots.TOTAL_PERMITS : 0L;
+    }
+
+    @Override
+    public void releaseWrite(long stamp) {
+        resourceSemaphore.releaseAll();
+    }
+
+    @Override
+    public long upgradeToWrite(long readStamp) throws InterruptedException {
+        if (!upgrading.compareAndSet(false, true)) {
+            return 0L;
+        }
+        try {
+            resourceSemaphore.acquireRemaining(readStamp);
+            return ReaderSlots.TOTAL_PERMITS;
+        } finally {
+            upgrading.set(false);
+        }
+    }
+
+    @Override
+    public long downgradeToRead(long writeStamp) {
+        // the released permits go straight to the waiting readers at the head of the queue
+        return resourceSemaphore.releaseAllButShare();
+    }
+
+    @Override
+    public int getMaxReaders() {
+        return resourceSemaphore.getLimit();
+    }
+
+    @Override
+    public void setMaxReaders(int maxReaders) {
+        resourceSemaphore.setLimit(maxReaders);
+    }
+
+    @Override
+    public int getReaderLimitCeiling() {
+        return ReaderSlots.MAX_LIMIT;
+    }
+}
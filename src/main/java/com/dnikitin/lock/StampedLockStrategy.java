@@ -0,0 +1,96 @@
+package com.dnikitin.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Engine backed by a {@link StampedLock}.
+ * Besides regular (pessimistic) reads it supports optimistic reads, which never enter the library
+ * and only have to be validated afterwards. Pessimistic readers are capped by a fair slot pool;
+ * the stamped lock itself is not fair.
+ */
+public class StampedLockStrategy implements LockStrategy {
+    private final StampedLock lock = new StampedLock();
+    private final ReaderSlots readerSlots;
+
+    public StampedLockStrategy(int maxReaders) {
+        this.readerSlots = new ReaderSlots(maxReaders, true);
+    }
+
+    // the read side goes through the stamp-less view, the returned stamp is the slot share
+    @Override
+    public long acquireRead() throws InterruptedException {
+        long share = readerSlots.acquire();
+        try {
+            lock.asReadLock().lockInterruptibly();
+        } catch (InterruptedException e) {
+            readerSlots.release(share);
+            throw e;
+        }
+        return share;
+    }
+
+    @Override
+    public long tryAcquireRead(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = Deadlines.after(timeout, unit);
+        long share = readerSlots.tryAcquire(timeout, unit);
+        if (share == 0L) {
+            return 0L;
+        }
+        boolean locked = false;
+        try {
+            locked = lock.asReadLock().tryLock(Deadlines.remaining(deadline), TimeUnit.NANOSECONDS);
+        } finally {
+            if (!locked) {
+                readerSlots.release(share);
+            }
+        }
+        return locked ? share : 0L;
+    }
+
+    @Override
+    public void releaseRead(long stamp) {
+        lock.asReadLock().unlock();
+        readerSlots.release(stamp);
+    }
+
+    @Override
+    public long acquireWrite() throws InterruptedException {
+        return lock.writeLockInterruptibly();
+    }
+
+    @Override
+    public long tryAcquireWrite(long timeout, TimeUnit unit) throws InterruptedException {
+        return lock.tryWriteLock(timeout, unit);
+    }
+
+    @Override
+    public void releaseWrite(long stamp) {
+        lock.unlockWrite(stamp);
+    }
+
+    @Override
+    public int getMaxReaders() {
+        return readerSlots.getLimit();
+    }
+
+    @Override
+    public void setMaxReaders(int maxReaders) {
+        readerSlots.setLimit(maxReaders);
+    }
+
+    @Override
+    public int getReaderLimitCeiling() {
+        return ReaderSlots.MAX_LIMIT;
+    }
+
+    @Override
+    public long tryOptimisticRead() {
+        return lock.tryOptimisticRead();
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+        return stamp != 0L && lock.validate(stamp);
+    }
+}
@@ -0,0 +1,260 @@
+package com.dnikitin.metrics;
+
+import com.dnikitin.model.AccessObserver;
+import com.dnikitin.model.Library;
+import com.dnikitin.model.Role;
+import com.dnikitin.model.Visit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Checks in production what the admission policy promises: that threads enter in arrival order and that nobody
+ * waits unboundedly.
+ * <p>
+ * Attaches itself as an {@link AccessObserver}. Every admitted visit, which carries its arrival number and its
+ * arrival and admission times, is appended to a small buffer owned by the admitting thread, so recording takes
+ * no lock and touches no shared cache line apart from a few counters. Full buffers are kept, oldest dropped
+ * first, up to a fixed number of visits. {@link #report()} merges the buffers and counts FIFO overtakes: a writer
+ * is overtaken by every later arrival that entered before it, a reader by every later writer that did. Readers
+ * passing readers are not counted, they would have shared the library anyway.
+ * <p>
+ * A visit arrives when the library registers it, a moment before it queues in the strategy, so two threads
+ * arriving together may queue in the other order and look like an overtake even under a strictly FIFO engine.
+ * Only a visit that arrived more than the arrival slack after another is therefore counted as later. Admission
+ * times need no such allowance: every pair that is compared includes a writer, so the later one is only granted
+ * after the earlier one, which took its admission time while still inside, has left.
+ * <p>
+ * Waits over the bound and the longest wait are counted for every visit, not only for those still buffered.
+ */
+public final class FairnessAuditor implements AccessObserver, AutoCloseable {
+    public static final Duration DEFAULT_WAIT_BOUND = Duration.ofSeconds(1);
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    // a few scheduler time slices, what a thread preempted between registering and queuing may lose
+    public static final Duration DEFAULT_ARRIVAL_SLACK = Duration.ofMillis(5);
+
+    static final int CHUNK_SIZE = 64;
+    private static final int WORST_OFFENDERS = 5;
+
+    private final Library library;
+    private final long waitBoundNanos;
+    private final int maxChunks;
+    private final long arrivalSlackNanos;
+
+    // chunks of every thread, oldest first; each chunk is only appended to by the thread that created it
+    private final ConcurrentLinkedDeque<Chunk> chunks = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger chunkCount = new AtomicInteger();
+    private final ThreadLocal<Chunk> current = new ThreadLocal<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder waitsOverBound = new LongAdder();
+    private final LongAccumulator maxWait = new LongAccumulator(Math::max, 0L);
+
+    // a thread whose chunk is from an older generation starts a new one after reset
+    private volatile long generation;
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * Starts auditing with {@link #DEFAULT_WAIT_BOUND} and {@link #DEFAULT_CAPACITY}.
+     */
+    public FairnessAuditor(Library library) {
+        this(library, DEFAULT_WAIT_BOUND, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Starts auditing with {@link #DEFAULT_ARRIVAL_SLACK}.
+     */
+    public FairnessAuditor(Library library, Duration waitBound, int capacity) {
+        this(library, waitBound, capacity, DEFAULT_ARRIVAL_SLACK);
+    }
+
+    /**
+     * @param library      Library to audit.
+     * @param waitBound    Wait above which a visit counts as starved.
+     * @param capacity     Admissions kept for the overtake analysis, rounded up to whole buffers.
+     * @param arrivalSlack Arrivals closer together than this are not ordered against each other.
+     */
+    public FairnessAuditor(Library library, Duration waitBound, int capacity, Duration arrivalSlack) {
+        if (library == null || waitBound == null || waitBound.isNegative() || capacity < 1
+                || arrivalSlack == null || arrivalSlack.isNegative()) {
+            throw new IllegalArgumentException(
+                    "library, a non-negative waitBound and arrivalSlack are required, capacity must be positive");
+        }
+        this.library = library;
+        this.waitBoundNanos = waitBound.toNanos();
+        this.maxChunks = Math.ceilDiv(capacity, CHUNK_SIZE);
+        this.arrivalSlackNanos = arrivalSlack.toNanos();
+        library.addObserver(this);
+    }
+
+    @Override
+    public void onAdmitted(Visit visit, int queueLength) {
+        long waited = visit.getAdmittedNanos() - visit.getArrivedNanos();
+        admitted.increment();
+        maxWait.accumulate(waited);
+        if (waited > waitBoundNanos) {
+            waitsOverBound.increment();
+        }
+        chunk().append(visit);
+    }
+
+    @Override
+    public void onAbandoned(Visit visit) {
+        abandoned.increment();
+        if (System.nanoTime() - visit.getArrivedNanos() > waitBoundNanos) {
+            waitsOverBound.increment();
+        }
+    }
+
+    /**
+     * Analyzes the buffered admissions; the library keeps running meanwhile.
+     */
+    public FairnessReport report() {
+        List<Visit> trace = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            int size = chunk.size;
+            trace.addAll(Arrays.asList(chunk.visits).subList(0, size));
+        }
+        trace.sort(Comparator.comparingLong(Visit::getArrivedNanos).thenComparingLong(Visit::getSequence));
+        long[] overtakenBy = overtakenBy(trace, arrivalSlackNanos);
+
+        long overtakenVisits = Arrays.stream(overtakenBy).filter(count -> count > 0).count();
+        List<FairnessReport.Offender> worst = IntStream.range(0, trace.size()).boxed()
+                .sorted(Comparator.comparingLong((Integer i) -> waited(trace.get(i))).reversed())
+                .limit(WORST_OFFENDERS)
+                .map(i -> new FairnessReport.Offender(trace.get(i).getSequence(), trace.get(i).getRole(),
+                        trace.get(i).getThread().getName(), Duration.ofNanos(waited(trace.get(i))), overtakenBy[i]))
+                .toList();
+        return new FairnessReport(library.getStrategyName(), Duration.ofNanos(System.nanoTime() - startNanos),
+                admitted.sum(), abandoned.sum(), trace.size(), overtakenVisits, Arrays.stream(overtakenBy).sum(),
+                Duration.ofNanos(waitBoundNanos), waitsOverBound.sum(), Duration.ofNanos(maxWait.get()), worst);
+    }
+
+    /**
+     * Forgets everything recorded so far and starts a new audit period.
+     */
+    public synchronized void reset() {
+        generation++;
+        chunks.clear();
+        chunkCount.set(0);
+        admitted.reset();
+        abandoned.reset();
+        waitsOverBound.reset();
+        maxWait.reset();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops auditing.
+     */
+    @Override
+    public void close() {
+        library.removeObserver(this);
+    }
+
+    private Chunk chunk() {
+        Chunk chunk = current.get();
+        long currentGeneration = generation;
+        if (chunk == null || chunk.size == CHUNK_SIZE || chunk.generation != currentGeneration) {
+            chunk = new Chunk(currentGeneration);
+            current.set(chunk);
+            chunks.addLast(chunk);
+            if (chunkCount.incrementAndGet() > maxChunks && chunks.pollFirst() != null) {
+                chunkCount.decrementAndGet();
+            }
+        }
+        return chunk;
+    }
+
+    // for each visit in arrival order, the clearly later arrivals that entered strictly before it and it has to
+    // count; a Fenwick tree over admission order makes this O(n log n)
+    private static long[] overtakenBy(List<Visit> trace, long arrivalSlackNanos) {
+        int n = trace.size();
+        Integer[] byAdmission = IntStream.range(0, n).boxed().toArray(Integer[]::new);
+        Arrays.sort(byAdmission, Comparator.comparingLong(i -> trace.get(i).getAdmittedNanos()));
+        long[] admissionTimes = new long[n];
+        int[] position = new int[n];
+        for (int rank = 0; rank < n; rank++) {
+            admissionTimes[rank] = trace.get(byAdmission[rank]).getAdmittedNanos();
+            position[byAdmission[rank]] = rank;
+        }
+        int[] laterVisits = new int[n + 1];
+        int[] laterWriters = new int[n + 1];
+        long[] result = new long[n];
+        // the visits at index later and above arrived more than the slack after the current one and are in the trees
+        int later = n;
+        for (int i = n - 1; i >= 0; i--) {
+            Visit visit = trace.get(i);
+            while (later > 0 && trace.get(later - 1).getArrivedNanos() - visit.getArrivedNanos() > arrivalSlackNanos) {
+                later--;
+                add(laterVisits, position[later]);
+                if (trace.get(later).getRole() == Role.WRITER) {
+                    add(laterWriters, position[later]);
+                }
+            }
+            int enteredBefore = firstAtOrAfter(admissionTimes, visit.getAdmittedNanos());
+            result[i] = visit.getRole() == Role.WRITER
+                    ? sum(laterVisits, enteredBefore)
+                    : sum(laterWriters, enteredBefore);
+        }
+        return result;
+    }
+
+    private static int firstAtOrAfter(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static void add(int[] tree, int position) {
+        for (int i = position + 1; i < tree.length; i += i & -i) {
+            tree[i]++;
+        }
+    }
+
+    // number of entries at positions below the bound
+    private static long sum(int[] tree, int bound) {
+        long sum = 0;
+        for (int i = bound; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private static long waited(Visit visit) {
+        return visit.getAdmittedNanos() - visit.getArrivedNanos();
+    }
+
+    private static final class Chunk {
+        private final long generation;
+        private final Visit[] visits = new Visit[CHUNK_SIZE];
+        // written by the owning thread after the slot, so a reader sees only complete entries
+        private volatile int size;
+
+        private Chunk(long generation) {
+            this.generation = generation;
+        }
+
+        private void append(Visit visit) {
+            visits[size] = visit;
+            size = size + 1;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.dnikitin.metrics;
+
+import com.dnikitin.model.Role;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * What a {@link FairnessAuditor} found: how often FIFO order was broken and how long the longest waits were,
+ * next to the throughput the policy reached meanwhile.
+ *
+ * @param policy          Admission engine of the audited library.
+ * @param elapsed         Audited period.
+ * @param admitted        Visits admitted in the period.
+ * @param abandoned       Visits that gave up waiting in the period.
+ * @param audited         Admissions still in the trace buffers, the base of the overtake numbers.
+ * @param overtakenVisits Audited visits that a later arrival entered before.
+ * @param overtakes       Pairs of an audited visit and a later arrival that entered before it.
+ * @param waitBound       Wait above which a visit counts as starved.
+ * @param waitsOverBound  Visits in the period that waited longer than the bound, whether admitted or abandoned.
+ * @param maxWait         Longest wait of an admitted visit in the period.
+ * @param worstOffenders  Audited visits that waited longest, longest first.
+ */
+public record FairnessReport(String policy, Duration elapsed, long admitted, long abandoned, long audited,
+                             long overtakenVisits, long overtakes, Duration waitBound, long waitsOverBound,
+                             Duration maxWait, List<Offender> worstOffenders) {
+
+    /**
+     * One visit that waited long.
+     *
+     * @param sequence    Arrival number.
+     * @param overtakenBy Later arrivals that entered before it.
+     */
+    public record Offender(long sequence, Role role, String thread, Duration waited, long overtakenBy) {
+    }
+
+    public double admissionsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : admitted * 1e9 / nanos;
+    }
+
+    /**
+     * @return Share of the audited visits that were overtaken, between 0 and 1; 0 for strict FIFO.
+     */
+    public double overtakenShare() {
+        return audited == 0 ? 0 : (double) overtakenVisits / audited;
+    }
+
+    /**
+     * @return True if FIFO order was kept and nobody waited longer than the bound.
+     */
+    public boolean isFair() {
+        return overtakes == 0 && waitsOverBound == 0;
+    }
+
+    /**
+     * @return Multi-line human-readable report.
+     */
+    public String describe() {
+        StringBuilder report = new StringBuilder(String.format("""
+                        Fairness of %s over %,d ms
+                        Throughput: %,d admitted (%.2f/s), %,d abandoned
+                        FIFO: %,d of %,d audited visits overtaken (%.2f%%), %,d overtakes
+                        Starvation: %,d waits over %,d ms, longest %,d ms""",
+                policy, elapsed.toMillis(),
+                admitted, admissionsPerSecond(), abandoned,
+                overtakenVisits, audited, overtakenShare() * 100, overtakes,
+                waitsOverBound, waitBound.toMillis(), maxWait.toMillis()));
+        for (Offender offender : worstOffenders) {
+            report.append(String.format("%n  #%d %s %s waited %,d ms, overtaken by %d",
+                    offender.sequence(), offender.role(), offender.thread(), offender.waited().toMillis(),
+                    offender.overtakenBy()));
+        }
+        return report.toString();
+    }
+}
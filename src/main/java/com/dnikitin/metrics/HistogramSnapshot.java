@@ -0,0 +1,16 @@
+package com.dnikitin.metrics;
+
+/**
+ * Summary of a {@link LogLinearHistogram} at one point in time.
+ *
+ * @param count Number of recorded values.
+ * @param mean  Arithmetic mean.
+ * @param max   Largest recorded value.
+ * @param p50   Median.
+ * @param p90   90th percentile.
+ * @param p99   99th percentile.
+ * @param p999  99.9th percentile.
+ */
+public record HistogramSnapshot(long count, long mean, long max, long p50, long p90, long p99, long p999) {
+    public static final HistogramSnapshot EMPTY = new HistogramSnapshot(0, 0, 0, 0, 0, 0, 0);
+}
@@ -0,0 +1,159 @@
+package com.dnikitin.metrics;
+
+import com.dnikitin.model.AccessObserver;
+import com.dnikitin.model.Library;
+import com.dnikitin.model.Role;
+import com.dnikitin.model.Visit;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wait-time, hold-time, queue-depth and occupancy histograms for a {@link Library}.
+ * <p>
+ * Attaches itself as an {@link AccessObserver}; each visit costs a handful of histogram increments,
+ * cheap enough to leave on during load tests. Read the numbers with {@link #getSnapshot()} or over JMX
+ * after {@link #registerMBean(String)}.
+ */
+public final class LibraryMetrics implements AccessObserver, LibraryMetricsMXBean, AutoCloseable {
+    private final Library library;
+
+    private final LogLinearHistogram readerWait = new LogLinearHistogram();
+    private final LogLinearHistogram writerWait = new LogLinearHistogram();
+    private final LogLinearHistogram readerHold = new LogLinearHistogram();
+    private final LogLinearHistogram writerHold = new LogLinearHistogram();
+    private final LogLinearHistogram queueDepth = new LogLinearHistogram();
+    private final LogLinearHistogram occupancy = new LogLinearHistogram();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder revoked = new LongAdder();
+
+    private ObjectName objectName;
+
+    /**
+     * Starts collecting metrics for the library.
+     */
+    public LibraryMetrics(Library library) {
+        if (library == null) {
+            throw new IllegalArgumentException("library must not be null");
+        }
+        this.library = library;
+        library.addObserver(this);
+    }
+
+    /**
+     * Publishes the metrics on the platform MBean server.
+     *
+     * @param name Distinguishes libraries in the same JVM.
+     * @throws IllegalStateException if the name is invalid or already taken.
+     */
+    public synchronized void registerMBean(String name) {
+        if (objectName != null) {
+            throw new IllegalStateException("already registered as " + objectName);
+        }
+        try {
+            ObjectName candidate = new ObjectName("com.dnikitin:type=Library,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidate);
+            objectName = candidate;
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException
+                 | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new IllegalStateException("cannot register metrics as " + name, e);
+        }
+    }
+
+    @Override
+    public void onArrived(Visit visit, int queueLength) {
+        queueDepth.record(queueLength);
+    }
+
+    @Override
+    public void onAdmitted(Visit visit, int queueLength) {
+        long waited = visit.getAdmittedNanos() - visit.getArrivedNanos();
+        (visit.getRole() == Role.READER ? readerWait : writerWait).record(waited);
+        occupancy.record(library.getRunningCount());
+    }
+
+    @Override
+    public void onAbandoned(Visit visit) {
+        abandoned.increment();
+    }
+
+    @Override
+    public void onLeft(Visit visit, long holdNanos) {
+        (visit.getRole() == Role.READER ? readerHold : writerHold).record(holdNanos);
+    }
+
+    @Override
+    public void onRevoked(Visit visit, long holdNanos) {
+        revoked.increment();
+        (visit.getRole() == Role.READER ? readerHold : writerHold).record(holdNanos);
+    }
+
+    @Override
+    public MetricsSnapshot getSnapshot() {
+        return new MetricsSnapshot(readerWait.snapshot(), writerWait.snapshot(),
+                readerHold.snapshot(), writerHold.snapshot(),
+                queueDepth.snapshot(), occupancy.snapshot(),
+                abandoned.sum(), revoked.sum(), getWaiting(), getInside(), getMaxReaders());
+    }
+
+    @Override
+    public int getWaiting() {
+        return library.getWaitingCount();
+    }
+
+    @Override
+    public int getInside() {
+        return library.getRunningCount();
+    }
+
+    @Override
+    public int getMaxReaders() {
+        return library.getMaxReaders();
+    }
+
+    @Override
+    public long getAbandoned() {
+        return abandoned.sum();
+    }
+
+    @Override
+    public long getRevoked() {
+        return revoked.sum();
+    }
+
+    @Override
+    public void reset() {
+        readerWait.reset();
+        writerWait.reset();
+        readerHold.reset();
+        writerHold.reset();
+        queueDepth.reset();
+        occupancy.reset();
+        abandoned.reset();
+        revoked.reset();
+    }
+
+    /**
+     * Stops collecting and removes the MBean, if registered.
+     */
+    @Override
+    public synchronized void close() {
+        library.removeObserver(this);
+        if (objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.unregisterMBean(objectName);
+            } catch (InstanceNotFoundException | MBeanRegistrationException _) {
+                // already gone, nothing left to clean up
+            }
+            objectName = null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.dnikitin.metrics;
+
+/**
+ * JMX view of {@link LibraryMetrics}, registered as {@code com.dnikitin:type=Library,name=<name>}.
+ */
+public interface LibraryMetricsMXBean {
+
+    /**
+     * @return Histograms and gauges, see {@link MetricsSnapshot}.
+     */
+    MetricsSnapshot getSnapshot();
+
+    int getWaiting();
+
+    int getInside();
+
+    int getMaxReaders();
+
+    long getAbandoned();
+
+    long getRevoked();
+
+    /**
+     * Clears the histograms and counters, e.g. between two load-test phases.
+     */
+    void reset();
+}
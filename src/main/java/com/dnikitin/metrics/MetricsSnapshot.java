@@ -0,0 +1,22 @@
+package com.dnikitin.metrics;
+
+/**
+ * Everything {@link LibraryMetrics} knows about a library at one point in time. Times are in nanoseconds.
+ *
+ * @param readerWait Time readers spent between arrival and admission.
+ * @param writerWait Time writers spent between arrival and admission.
+ * @param readerHold Time readers spent inside.
+ * @param writerHold Time writers spent inside.
+ * @param queueDepth Number of waiting threads seen by each arriving thread, itself included.
+ * @param occupancy  Number of threads inside seen by each admitted thread, itself included.
+ * @param abandoned  Number of threads that gave up waiting.
+ * @param revoked    Number of threads put out because their lease expired.
+ * @param waiting    Threads waiting right now.
+ * @param inside     Threads inside right now.
+ * @param maxReaders Reader limit in force.
+ */
+public record MetricsSnapshot(HistogramSnapshot readerWait, HistogramSnapshot writerWait,
+                              HistogramSnapshot readerHold, HistogramSnapshot writerHold,
+                              HistogramSnapshot queueDepth, HistogramSnapshot occupancy,
+                              long abandoned, long revoked, int waiting, int inside, int maxReaders) {
+}
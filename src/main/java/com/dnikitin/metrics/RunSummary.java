@@ -0,0 +1,65 @@
+package com.dnikitin.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-of-run performance report derived from a {@link MetricsSnapshot}.
+ *
+ * @param elapsed               Length of the run.
+ * @param readerOps             Completed reader visits.
+ * @param writerOps             Completed writer visits.
+ * @param readerWait            Time readers waited for admission, in nanoseconds.
+ * @param writerWait            Time writers waited for admission, in nanoseconds.
+ * @param maxQueueLength        Longest queue an arriving thread saw, itself included.
+ * @param readerSlotUtilization Average share of the reader slots in use, between 0 and 1.
+ */
+public record RunSummary(Duration elapsed, long readerOps, long writerOps,
+                         HistogramSnapshot readerWait, HistogramSnapshot writerWait,
+                         long maxQueueLength, double readerSlotUtilization) {
+
+    /**
+     * @param snapshot Metrics collected during the run.
+     * @param elapsed  Length of the run.
+     */
+    public static RunSummary of(MetricsSnapshot snapshot, Duration elapsed) {
+        HistogramSnapshot readerHold = snapshot.readerHold();
+        // total reader time inside over the slot time available; the mean is exact enough for a report
+        double slotNanos = (double) Math.max(1L, elapsed.toNanos()) * snapshot.maxReaders();
+        double utilization = Math.min(1.0, (double) readerHold.mean() * readerHold.count() / slotNanos);
+        return new RunSummary(elapsed, readerHold.count(), snapshot.writerHold().count(),
+                snapshot.readerWait(), snapshot.writerWait(), snapshot.queueDepth().max(), utilization);
+    }
+
+    public double readerOpsPerSecond() {
+        return perSecond(readerOps);
+    }
+
+    public double writerOpsPerSecond() {
+        return perSecond(writerOps);
+    }
+
+    /**
+     * @return Multi-line human-readable report.
+     */
+    public String describe() {
+        return String.format("""
+                        Run of %,d ms
+                        Readers: %,d ops (%.2f/s), wait ms mean %d, p99 %d
+                        Writers: %,d ops (%.2f/s), wait ms mean %d, p99 %d
+                        Longest queue: %d, reader slot utilization: %.1f%%""",
+                elapsed.toMillis(),
+                readerOps, readerOpsPerSecond(), millis(readerWait.mean()), millis(readerWait.p99()),
+                writerOps, writerOpsPerSecond(), millis(writerWait.mean()), millis(writerWait.p99()),
+                maxQueueLength, readerSlotUtilization * 100);
+    }
+
+    private double perSecond(long ops) {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : ops * 1e9 / nanos;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,43 @@
+package com.dnikitin.model;
+
+/**
+ * Listener for the lifecycle of visits to a {@link Library}.
+ * Called synchronously on the visiting thread, so implementations must be cheap and must not block.
+ */
+public interface AccessObserver {
+
+    /**
+     * A thread started waiting.
+     *
+     * @param queueLength Number of waiting threads, including this one.
+     */
+    default void onArrived(Visit visit, int queueLength) {
+    }
+
+    /**
+     * A thread entered; its wait is {@code visit.getAdmittedNanos() - visit.getArrivedNanos()}.
+     *
+     * @param queueLength Number of threads still waiting.
+     */
+    default void onAdmitted(Visit visit, int queueLength) {
+    }
+
+    /**
+     * A thread gave up waiting (timeout or interrupt).
+     */
+    default void onAbandoned(Visit visit) {
+    }
+
+    /**
+     * A thread left after being inside for {@code holdNanos}.
+     */
+    default void onLeft(Visit visit, long holdNanos) {
+    }
+
+    /**
+     * A thread was put out after being inside for {@code holdNanos} because its lease expired.
+     * Called on the lease timer thread, not on the visiting thread.
+     */
+    default void onRevoked(Visit visit, long holdNanos) {
+    }
+}
@@ -0,0 +1,173 @@
+package com.dnikitin.model;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resizes the reader limit of a {@link Library} from what readers actually experience,
+ * using a gradient limiter in the spirit of Little's law.
+ * <p>
+ * Every window it compares the average reader hold time with the lowest hold time seen so far (the no-load
+ * baseline). If readers hold much longer than the baseline, admitting them is no longer free and the
+ * limit is scaled down by that ratio (at most halved per window). If readers spent a noticeable share of their
+ * hold time queueing while holds stayed close to the baseline, there is room for more and the limit grows by
+ * its square root.
+ * An idle window keeps the limit unchanged.
+ * <p>
+ * Only the reader limit moves; writers still take the whole library, so exclusivity is unaffected.
+ */
+public final class AdaptiveReaderLimit implements AccessObserver, AutoCloseable {
+    static final double MIN_GRADIENT = 0.5;
+
+    // average reader wait, relative to the hold time, below which queueing is not worth a larger limit
+    static final double QUEUE_TOLERANCE = 0.1;
+
+    // fraction of the distance to the new target covered per window
+    static final double SMOOTHING = 0.5;
+
+    // how fast the baseline drifts up towards the recent hold time, so a stale minimum is forgotten
+    static final int BASELINE_DECAY = 16;
+
+    private final Library library;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final LongAdder readersLeft = new LongAdder();
+    private final LongAdder readerHoldNanos = new LongAdder();
+    private final LongAdder readersAdmitted = new LongAdder();
+    private final LongAdder readerWaitNanos = new LongAdder();
+    private final LongAdder readersQueued = new LongAdder();
+
+    // only touched by adjust(), which runs on a single thread
+    private double limit;
+    private double baselineHoldNanos = Double.NaN;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Registers itself as an observer; call {@link #start(Duration)} to adjust periodically.
+     *
+     * @param library  Library whose reader limit is managed; its strategy must support resizing.
+     * @param minLimit Lowest reader limit.
+     * @param maxLimit Highest reader limit; at most what the strategy accepts.
+     */
+    public AdaptiveReaderLimit(Library library, int minLimit, int maxLimit) {
+        if (library == null || minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("library must not be null and 1 <= minLimit <= maxLimit");
+        }
+        if (maxLimit > library.getReaderLimitCeiling()) {
+            throw new IllegalArgumentException(library.getStrategyName() + " accepts at most "
+                    + library.getReaderLimitCeiling() + " readers: " + maxLimit);
+        }
+        this.library = library;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.clamp(library.getMaxReaders(), minLimit, maxLimit);
+        library.setMaxReaders((int) limit);
+        library.addObserver(this);
+    }
+
+    /**
+     * Starts adjusting the limit once per interval on a daemon thread.
+     *
+     * @param interval Length of one measurement window.
+     */
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            throw new IllegalStateException("already started");
+        }
+        long nanos = interval.toNanos();
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("adaptive-reader-limit")
+                .daemon(true)
+                .factory());
+        scheduler.scheduleAtFixedRate(this::adjustWindow, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return Reader limit currently in force.
+     */
+    public int getLimit() {
+        return library.getMaxReaders();
+    }
+
+    @Override
+    public void onAdmitted(Visit visit, int queueLength) {
+        if (visit.getRole() != Role.READER) {
+            return;
+        }
+        long waited = visit.getAdmittedNanos() - visit.getArrivedNanos();
+        readersAdmitted.increment();
+        readerWaitNanos.add(waited);
+        if (waited > 0 && queueLength > 0) {
+            readersQueued.increment();
+        }
+    }
+
+    @Override
+    public void onLeft(Visit visit, long holdNanos) {
+        if (visit.getRole() == Role.READER) {
+            readersLeft.increment();
+            readerHoldNanos.add(holdNanos);
+        }
+    }
+
+    private void adjustWindow() {
+        try {
+            adjust();
+        } catch (RuntimeException e) {
+            // an exception would silently cancel the schedule; report it and try again next window
+            Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+        }
+    }
+
+    /**
+     * Closes the current window and applies the new limit. Not thread-safe, runs on the scheduler.
+     *
+     * @return Reader limit after the adjustment.
+     */
+    int adjust() {
+        long left = readersLeft.sumThenReset();
+        long hold = readerHoldNanos.sumThenReset();
+        long admitted = readersAdmitted.sumThenReset();
+        long wait = readerWaitNanos.sumThenReset();
+        long queued = readersQueued.sumThenReset();
+        if (left == 0) {
+            return getLimit();
+        }
+
+        double avgHold = Math.max(1.0, (double) hold / left);
+        if (Double.isNaN(baselineHoldNanos) || avgHold < baselineHoldNanos) {
+            baselineHoldNanos = avgHold;
+        } else {
+            baselineHoldNanos += (avgHold - baselineHoldNanos) / BASELINE_DECAY;
+        }
+
+        double gradient = Math.clamp(baselineHoldNanos / avgHold, MIN_GRADIENT, 1.0);
+        // readers spent noticeable time in the queue, so a larger limit would have admitted them sooner
+        boolean pressure = queued > 0 && (double) wait / admitted >= avgHold * QUEUE_TOLERANCE;
+        double target = limit * gradient + (pressure ? Math.sqrt(limit) : 0.0);
+
+        limit = Math.clamp(limit + (target - limit) * SMOOTHING, minLimit, maxLimit);
+        int applied = (int) Math.round(limit);
+        if (applied != library.getMaxReaders()) {
+            library.setMaxReaders(applied);
+        }
+        return applied;
+    }
+
+    /**
+     * Stops adjusting and unregisters from the library; the last limit stays in force.
+     */
+    @Override
+    public synchronized void close() {
+        library.removeObserver(this);
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
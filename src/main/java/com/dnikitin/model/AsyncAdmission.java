@@ -0,0 +1,186 @@
+package com.dnikitin.model;
+
+import com.dnikitin.event.EventType;
+import com.dnikitin.lock.LockStrategy;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admission of asynchronous readers and writers of a {@link Library} without parking a thread per waiter.
+ * <p>
+ * A request waits as an entry in an explicit FIFO queue. One thread, started while the queue is not empty,
+ * makes a blocking acquisition for the request at the head, so that request waits in the strategy's own queue
+ * alongside the blocking waiters and is admitted in their order; a writer at the head holds back the readers
+ * behind it just like a blocking writer would, and no stream of blocking readers can starve it. A request that
+ * arrives while the queue is empty first tries to enter right away. Admitted operations run on their executor
+ * and leave the library before their future completes.
+ */
+final class AsyncAdmission {
+    private final Library library;
+    private final LockStrategy strategy;
+
+    // guarded by this
+    private final ArrayDeque<Request<?>> queue = new ArrayDeque<>();
+    // queues in the strategy for the head request, null while the queue is empty
+    private Thread waiter;
+    // the request the waiter is acquiring for, interrupted out of the strategy when it is withdrawn
+    private Request<?> acquiring;
+
+    AsyncAdmission(Library library, LockStrategy strategy) {
+        this.library = library;
+        this.strategy = strategy;
+    }
+
+    <T> CompletableFuture<T> submit(Role role, Supplier<T> operation, Executor executor) {
+        if (operation == null || executor == null) {
+            throw new IllegalArgumentException("operation and executor must not be null");
+        }
+        if (strategy.isOwnerBound()) {
+            throw new UnsupportedOperationException(strategy.getClass().getSimpleName()
+                    + " must be released by the thread that entered, which an asynchronous visit cannot do");
+        }
+        Request<T> request = new Request<>(library.arrive(role), operation, executor, new CompletableFuture<>());
+        boolean admitted;
+        synchronized (this) {
+            long stamp = queue.isEmpty() ? tryAcquire(role) : 0L;
+            admitted = stamp != 0L;
+            if (admitted) {
+                library.enter(request.visit, stamp, role == Role.READER ? EventType.READING : EventType.WRITING, 0);
+            } else {
+                queue.addLast(request);
+                if (waiter == null) {
+                    waiter = Thread.ofVirtual().name("library-async").start(this::admitInOrder);
+                }
+            }
+        }
+        if (admitted) {
+            dispatch(request);
+            return request.result;
+        }
+        request.result.whenComplete((_, _) -> {
+            if (request.result.isCancelled()) {
+                withdraw(request);
+            }
+        });
+        return request.result;
+    }
+
+    // a request cancelled while still queued leaves the queue; once admitted, its operation runs regardless
+    private void withdraw(Request<?> request) {
+        boolean removed;
+        synchronized (this) {
+            removed = queue.remove(request);
+            if (removed && acquiring == request) {
+                waiter.interrupt();
+            }
+        }
+        if (removed) {
+            library.abandon(request.visit);
+        }
+    }
+
+    // body of the waiter thread
+    private void admitInOrder() {
+        while (true) {
+            Request<?> head;
+            synchronized (this) {
+                // an interrupt meant for a head that was withdrawn after it had been granted
+                Thread.interrupted();
+                head = queue.peekFirst();
+                if (head == null) {
+                    waiter = null;
+                    return;
+                }
+                acquiring = head;
+            }
+            Role role = head.visit.getRole();
+            long stamp;
+            try {
+                stamp = role == Role.READER ? strategy.acquireRead() : strategy.acquireWrite();
+            } catch (InterruptedException _) {
+                // the head was withdrawn and left the queue
+                continue;
+            }
+            boolean admitted;
+            synchronized (this) {
+                acquiring = null;
+                admitted = queue.peekFirst() == head;
+                if (admitted) {
+                    queue.pollFirst();
+                    library.enter(head.visit, stamp, role == Role.READER ? EventType.READING : EventType.WRITING, 0);
+                }
+            }
+            if (admitted) {
+                dispatch(head);
+            } else {
+                release(role, stamp);
+            }
+        }
+    }
+
+    private long tryAcquire(Role role) {
+        // the submitting thread only lends its time here; its interrupt belongs to its own work and must not
+        // make the acquisition fail, so it is set aside and restored afterwards
+        boolean interrupted = Thread.interrupted();
+        try {
+            return role == Role.READER
+                    ? strategy.tryAcquireRead(0L, TimeUnit.NANOSECONDS)
+                    : strategy.tryAcquireWrite(0L, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException _) {
+            interrupted = true;
+            return 0L;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void dispatch(Request<?> request) {
+        try {
+            request.executor.execute(() -> run(request));
+        } catch (RejectedExecutionException e) {
+            exit(request.visit);
+            request.result.completeExceptionally(e);
+        }
+    }
+
+    private <T> void run(Request<T> request) {
+        T value = null;
+        Throwable failure = null;
+        try {
+            value = request.operation.get();
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            exit(request.visit);
+        }
+        // dependent stages run outside the library
+        if (failure == null) {
+            request.result.complete(value);
+        } else {
+            request.result.completeExceptionally(failure);
+        }
+    }
+
+    private void exit(Visit visit) {
+        library.depart(visit);
+        release(visit.getRole(), visit.getStamp());
+    }
+
+    private void release(Role role, long stamp) {
+        if (role == Role.READER) {
+            strategy.releaseRead(stamp);
+        } else {
+            strategy.releaseWrite(stamp);
+        }
+    }
+
+    private record Request<T>(Visit visit, Supplier<T> operation, Executor executor, CompletableFuture<T> result) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.dnikitin.model;
+
+import com.dnikitin.lock.LockStrategy;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Library guarding many independent resources, one reader-writer lock per key.
+ * A writer on one key never blocks readers or writers of another key.
+ * <p>
+ * Per-key locks are created lazily on first use and evicted as soon as no thread is waiting for
+ * or holding them, so the table stays bounded by the number of keys currently in use.
+ * Each key gets its own {@link LockStrategy}, so fairness and writer-starvation guarantees hold per key
+ * exactly as for a single {@link Library}.
+ *
+ * @param <K> Resource key, must have consistent {@code equals}/{@code hashCode}.
+ */
+public class KeyedLibrary<K> {
+    private final ConcurrentHashMap<K, Entry> locks = new ConcurrentHashMap<>();
+    private final Supplier<LockStrategy> strategyFactory;
+
+    // keys the current thread is inside for, most recent last
+    private final ThreadLocal<ArrayDeque<Hold>> holds = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Creates a keyed library with a fair semaphore and {@link Library#DEFAULT_MAX_READERS} reader slots per key.
+     */
+    public KeyedLibrary() {
+        this(() -> new SemaphoreLockStrategy(Library.DEFAULT_MAX_READERS));
+    }
+
+    /**
+     * @param strategyFactory Creates the admission engine for a newly used key.
+     */
+    public KeyedLibrary(Supplier<LockStrategy> strategyFactory) {
+        if (strategyFactory == null) {
+            throw new IllegalArgumentException("strategyFactory must not be null");
+        }
+        this.strategyFactory = strategyFactory;
+    }
+
+    /**
+     * Requests read access to a single resource.
+     *
+     * @param key Resource to read.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void startReading(K key) throws InterruptedException {
+        Entry entry = retain(key);
+        try {
+            holds.get().addLast(new Hold(key, Role.READER, entry.strategy.acquireRead()));
+        } catch (InterruptedException e) {
+            release(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Reader exit protocol for a single resource.
+     */
+    public void stopReading(K key) {
+        long stamp = takeHold(key, Role.READER);
+        locks.get(key).strategy.releaseRead(stamp);
+        release(key);
+    }
+
+    /**
+     * Requests exclusive access to a single resource.
+     *
+     * @param key Resource to write.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void startWriting(K key) throws InterruptedException {
+        Entry entry = retain(key);
+        try {
+            holds.get().addLast(new Hold(key, Role.WRITER, entry.strategy.acquireWrite()));
+        } catch (InterruptedException e) {
+            release(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Writer exit protocol for a single resource.
+     */
+    public void stopWriting(K key) {
+        long stamp = takeHold(key, Role.WRITER);
+        locks.get(key).strategy.releaseWrite(stamp);
+        release(key);
+    }
+
+    /**
+     * @return Number of keys that currently have a lock, i.e. keys some thread waits for or holds.
+     */
+    public int activeKeys() {
+        return locks.size();
+    }
+
+    // users is only touched inside compute, which runs atomically per key
+    private Entry retain(K key) {
+        return locks.compute(key, (_, entry) -> {
+            Entry result = entry == null ? new Entry(strategyFactory.get()) : entry;
+            result.users++;
+            return result;
+        });
+    }
+
+    private void release(K key) {
+        locks.computeIfPresent(key, (_, entry) -> --entry.users == 0 ? null : entry);
+    }
+
+    // the entry cannot be evicted while this thread holds it
+    private long takeHold(K key, Role role) {
+        Iterator<Hold> iterator = holds.get().descendingIterator();
+        while (iterator.hasNext()) {
+            Hold hold = iterator.next();
+            if (hold.role == role && Objects.equals(hold.key, key)) {
+                iterator.remove();
+                return hold.stamp;
+            }
+        }
+        throw new IllegalStateException(Thread.currentThread().getName() + " is not inside for key " + key + " as " + role);
+    }
+
+    private record Hold(Object key, Role role, long stamp) {
+    }
+
+    private static final class Entry {
+        private final LockStrategy strategy;
+        private int users;
+
+        private Entry(LockStrategy strategy) {
+            this.strategy = strategy;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.dnikitin.model;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time limit on one visit to a {@link Library}. A holder that does not leave or {@link #renew()} before the lease
+ * runs out is put out of the library, so a stalled or dead thread cannot keep its permits forever.
+ */
+public final class Lease {
+    private static final int HELD = 0;
+    private static final int RELEASED = 1;
+    private static final int REVOKED = 2;
+
+    private final Visit visit;
+    private final long durationNanos;
+    private volatile long expiresAtNanos;
+    // leaving and revoking race for the permits, whoever moves the state away from HELD releases them
+    private final AtomicInteger state = new AtomicInteger(HELD);
+
+    // owned by the lease timer thread
+    int remainingRounds;
+
+    Lease(Visit visit, Duration duration) {
+        this.visit = visit;
+        this.durationNanos = duration.toNanos();
+        this.expiresAtNanos = System.nanoTime() + durationNanos;
+    }
+
+    /**
+     * Extends the lease by its full duration from now. A single volatile write: the timer only looks at the new
+     * expiry when the old one comes up.
+     *
+     * @return false if the lease was already revoked or the visit has ended.
+     */
+    public boolean renew() {
+        expiresAtNanos = System.nanoTime() + durationNanos;
+        return state.get() == HELD;
+    }
+
+    /**
+     * @return true if the holder was put out because the lease expired.
+     */
+    public boolean isRevoked() {
+        return state.get() == REVOKED;
+    }
+
+    public Duration getDuration() {
+        return Duration.ofNanos(durationNanos);
+    }
+
+    Visit getVisit() {
+        return visit;
+    }
+
+    long getExpiresAtNanos() {
+        return expiresAtNanos;
+    }
+
+    boolean isDone() {
+        return state.get() != HELD;
+    }
+
+    boolean release() {
+        return state.compareAndSet(HELD, RELEASED);
+    }
+
+    boolean revoke() {
+        return state.compareAndSet(HELD, REVOKED);
+    }
+}
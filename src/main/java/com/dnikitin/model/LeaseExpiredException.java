@@ -0,0 +1,13 @@
+package com.dnikitin.model;
+
+/**
+ * Thrown when a thread leaves the library after its lease was revoked. Its permits were already handed on, so
+ * whatever it did after the expiry was not protected by the library.
+ */
+public class LeaseExpiredException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public LeaseExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,119 @@
+package com.dnikitin.model;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel watching the leases of one library.
+ * <p>
+ * One daemon thread advances the wheel a slot per tick and looks at the leases in that slot. Leases longer than
+ * a turn of the wheel wait there for the remaining rounds. Scheduling appends to a lock-free inbox that the timer
+ * thread empties into the wheel, and renewing does not touch the wheel at all: when a lease comes up and its
+ * expiry has moved, it is simply put back into the slot of the new expiry. Leases that ended are dropped when
+ * they come up. So scheduling, renewing and ending a lease are each constant-time, and expiries are detected
+ * within one tick.
+ * <p>
+ * The thread is started on the first lease and exits once no lease is left, so an idle wheel holds no thread
+ * and nothing keeps its library reachable; the next lease starts a new one.
+ */
+final class LeaseWheel {
+    static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int SLOTS = 256;
+
+    private final Consumer<Lease> onExpired;
+    private final ConcurrentLinkedQueue<Lease> inbox = new ConcurrentLinkedQueue<>();
+    // leases in the inbox or the wheel
+    private final AtomicInteger scheduled = new AtomicInteger();
+    // set while a timer thread owns the wheel; handing it over publishes the wheel to the next thread
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // owned by the timer thread
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Lease>[] wheel = (ArrayDeque<Lease>[]) new ArrayDeque<?>[SLOTS];
+    private long tick;
+    private long tickNanos;
+
+    LeaseWheel(Consumer<Lease> onExpired) {
+        this.onExpired = onExpired;
+        for (int i = 0; i < SLOTS; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+    }
+
+    void schedule(Lease lease) {
+        inbox.add(lease);
+        if (scheduled.getAndIncrement() == 0 && running.compareAndSet(false, true)) {
+            Thread.ofPlatform().name("library-leases").daemon(true).start(this::run);
+        }
+    }
+
+    /**
+     * @return true while a timer thread is alive.
+     */
+    boolean isRunning() {
+        return running.get();
+    }
+
+    private void run() {
+        // idle time does not count, the wheel starts over from now
+        tickNanos = System.nanoTime();
+        while (true) {
+            if (scheduled.get() == 0) {
+                running.set(false);
+                // a lease scheduled before we let go found us still running, so this thread has to serve it
+                if (scheduled.get() == 0 || !running.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            long sleep = tickNanos + TICK_NANOS - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            tickNanos += TICK_NANOS;
+            tick++;
+            Lease lease;
+            while ((lease = inbox.poll()) != null) {
+                place(lease);
+            }
+            expire(wheel[(int) (tick % SLOTS)]);
+        }
+    }
+
+    private void expire(ArrayDeque<Lease> slot) {
+        long now = System.nanoTime();
+        for (int i = slot.size(); i > 0; i--) {
+            Lease lease = slot.poll();
+            if (lease.isDone()) {
+                scheduled.decrementAndGet();
+            } else if (lease.remainingRounds > 0) {
+                lease.remainingRounds--;
+                slot.add(lease);
+            } else if (lease.getExpiresAtNanos() - now > 0) {
+                // renewed meanwhile
+                place(lease);
+            } else {
+                scheduled.decrementAndGet();
+                try {
+                    onExpired.accept(lease);
+                } catch (RuntimeException e) {
+                    // a failing observer must not stop the timer for the other leases
+                    Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+                }
+            }
+        }
+    }
+
+    private void place(Lease lease) {
+        long remaining = lease.getExpiresAtNanos() - System.nanoTime();
+        long ticks = Math.max(1L, Math.ceilDiv(remaining, TICK_NANOS));
+        lease.remainingRounds = (int) Math.min(Integer.MAX_VALUE, (ticks - 1) / SLOTS);
+        wheel[(int) ((tick + ticks) % SLOTS)].add(lease);
+    }
+}
@@ -1,125 +1,658 @@
 package com.dnikitin.model;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.event.EventType;
+import com.dnikitin.event.FlightEvents;
+import com.dnikitin.lock.LockStrategy;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.Semaphore;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Monitors access to the library resource.
- * Implements the Turnstile pattern to ensure fair FIFO access
- * and prevents writer starvation.
+ * Admission itself is delegated to a {@link LockStrategy}; by default a single fair semaphore
+ * ensures FIFO access and prevents writer starvation.
  */
 public class Library {
-    private final int MAX_READERS = 5;
-    private final LinkedList<Thread> waitingList = new LinkedList<>();
-    private final LinkedList<Thread> runningList = new LinkedList<>();
+    public static final int DEFAULT_MAX_READERS = 5;
+
+    // constant-time bookkeeping of waiting and running visits, no global lock
+    private final VisitRegistry registry = new VisitRegistry();
+    // handed to recorders that list thread names, which build the snapshots only for events they keep
+    private final Supplier<List<Thread>> waitingSnapshot = registry::waitingThreads;
+    private final Supplier<List<Thread>> runningSnapshot = registry::runningThreads;
+
+    // visits the current thread is inside with, most recent last
+    private final ThreadLocal<ArrayDeque<Visit>> heldVisits = ThreadLocal.withInitial(ArrayDeque::new);
+
+    // copy-on-write, so the hot path iterates a plain array
+    private volatile AccessObserver[] observers = new AccessObserver[0];
+
+    // decides when readers and writers may enter
+    private final LockStrategy strategy;
+
+    // reports enter/leave events without blocking; formatting and I/O happen elsewhere
+    private final EventRecorder events;
+
+    // merges writes submitted as operations into shared exclusive sections; like the asynchronous admission it
+    // is created on first use, so the constructor never hands out a library that is still being built
+    private volatile WriteCombiner writeCombiner;
 
-    // manages access to the library (max maxReaders for readers, all for writer) and FIFO order
-    private final Semaphore resourceSemaphore = new Semaphore(MAX_READERS, true);
+    // queues asynchronous visits instead of parking a thread for each
+    private volatile AsyncAdmission asyncAdmission;
+
+    // puts out holders whose lease ran out; created with the first leased visit, its thread runs only while
+    // leases are out
+    private volatile LeaseWheel leaseWheel;
+
+    /**
+     * Creates a library guarded by the fair semaphore engine with {@link #DEFAULT_MAX_READERS} reader slots,
+     * printing its events to the console.
+     */
+    public Library() {
+        this(new SemaphoreLockStrategy(DEFAULT_MAX_READERS));
+    }
+
+    /**
+     * @param strategy Admission engine deciding when readers and writers may enter.
+     */
+    public Library(LockStrategy strategy) {
+        this(strategy, EventRecorder.console());
+    }
+
+    /**
+     * @param strategy Admission engine deciding when readers and writers may enter.
+     * @param events   Receives enter/leave events, use {@link EventRecorder#DISABLED} to turn reporting off.
+     */
+    public Library(LockStrategy strategy, EventRecorder events) {
+        if (strategy == null || events == null) {
+            throw new IllegalArgumentException("strategy and events must not be null");
+        }
+        this.strategy = strategy;
+        this.events = events;
+    }
 
 
     /**
      * Requests entry for a reader.
-     * Uses a turnstile to maintain arrival order and then acquires a single resource permit.
+     * Registers the thread as waiting and then acquires a single reader slot.
      *
      * @param readingTime Duration in ms for the simulated reading task.
      * @throws InterruptedException if the thread is interrupted while waiting.
      */
     public void startReading(int readingTime) throws InterruptedException {
-        Thread thread = Thread.currentThread();
-
-        synchronized (this) {
-            waitingList.add(thread);
-            printState(thread.getName() + " wants to enter.");
-        }
+        Visit visit = arrive(Role.READER);
 
         // Once at the front of the queue, wait for resource availability
-        resourceSemaphore.acquire(1);
-        synchronized (this) {
-            waitingList.remove(thread);
-            runningList.add(thread);
-            printState(thread.getName() + " is inside. Reading for " + readingTime + " ms.");
+        long stamp;
+        try {
+            stamp = strategy.acquireRead();
+        } catch (InterruptedException e) {
+            abandon(visit);
+            throw e;
         }
+        admit(visit, stamp, EventType.READING, readingTime);
+    }
 
+    /**
+     * Enters as a reader only if that is possible right away without overtaking waiting threads.
+     * If the thread is interrupted it gives up and keeps its interrupt status.
+     *
+     * @return true if the reader entered and must call {@link #stopReading()}.
+     */
+    public boolean tryStartReading() {
+        return tryEnterNow(Role.READER);
+    }
 
+    /**
+     * Requests entry for a reader, giving up after the timeout.
+     * A reader that gives up is removed from the waiting list and holds nothing.
+     *
+     * @param timeout Maximum time to wait.
+     * @return true if the reader entered and must call {@link #stopReading()}.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean tryStartReading(Duration timeout) throws InterruptedException {
+        return tryEnter(Role.READER, TimeUnit.NANOSECONDS.convert(timeout));
     }
 
     /**
-     * Reader exit protocol. Releases one resource permit.
+     * Requests entry for a reader, giving up once the deadline has passed.
+     *
+     * @param deadline Latest moment to enter.
+     * @return true if the reader entered and must call {@link #stopReading()}.
+     * @throws InterruptedException if the thread is interrupted while waiting.
      */
-    public void stopReading() {
-        Thread thread = Thread.currentThread();
+    public boolean tryStartReading(Instant deadline) throws InterruptedException {
+        return tryStartReading(untilDeadline(deadline));
+    }
 
-        synchronized (this) {
-            runningList.remove(thread);
-            printState(thread.getName() + " leaves.");
-        }
-        resourceSemaphore.release(1);
+    /**
+     * Requests entry for a reader that must leave or renew its lease in time. If the lease runs out first, the
+     * reader is put out: its slot goes to the next waiter and its {@link #stopReading()} throws
+     * {@link LeaseExpiredException}.
+     *
+     * @param lease How long the reader may stay inside without renewing.
+     * @return The lease, to renew during long reads.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     * @throws UnsupportedOperationException if the strategy is owner-bound, see {@link LockStrategy#isOwnerBound()}.
+     */
+    public Lease startReading(Duration lease) throws InterruptedException {
+        return startLeased(Role.READER, lease);
+    }
+
+    /**
+     * Reader exit protocol. Gives the reader slot back to the strategy.
+     *
+     * @throws LeaseExpiredException if the reader's lease was revoked; it is outside either way.
+     */
+    public void stopReading() {
+        Visit visit = leave(Role.READER);
+        strategy.releaseRead(visit.getStamp());
     }
 
     /**
      * Requests entry for a writer.
-     * Acquires the turnstile and all resource permits to ensure exclusive access.
+     * Waits until the strategy grants exclusive access.
      *
      * @param writingTime Duration in ms for the simulated writing task.
      * @throws InterruptedException if the thread is interrupted while waiting.
      */
     public void startWriting(int writingTime) throws InterruptedException {
-        Thread thread = Thread.currentThread();
+        Visit visit = arrive(Role.WRITER);
 
-        synchronized (this) {
-            waitingList.add(thread);
-            printState(thread.getName() + " wants to enter.");
+        // Once at the front of the queue, wait for exclusive access
+        long stamp;
+        try {
+            stamp = strategy.acquireWrite();
+        } catch (InterruptedException e) {
+            abandon(visit);
+            throw e;
         }
+        admit(visit, stamp, EventType.WRITING, writingTime);
+    }
 
-        // Once at the front of the queue, wait for all permits to ensure exclusivity
-        resourceSemaphore.acquire(MAX_READERS);
-        synchronized (this) {
-            waitingList.remove(thread);
-            runningList.add(thread);
-            printState(thread.getName() + " is inside. Writing for " + writingTime + " ms.");
-        }
+    /**
+     * Requests exclusive access that must be given back or renewed in time, with the same rules as
+     * {@link #startReading(Duration)}.
+     *
+     * @param lease How long the writer may stay inside without renewing.
+     * @return The lease, to renew during long writes.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     * @throws UnsupportedOperationException if the strategy is owner-bound.
+     */
+    public Lease startWriting(Duration lease) throws InterruptedException {
+        return startLeased(Role.WRITER, lease);
+    }
 
+    /**
+     * Enters as the writer only if that is possible right away without overtaking waiting threads.
+     * If the thread is interrupted it gives up and keeps its interrupt status.
+     *
+     * @return true if the writer entered and must call {@link #stopWriting()}.
+     */
+    public boolean tryStartWriting() {
+        return tryEnterNow(Role.WRITER);
     }
 
     /**
-     * Writer exit protocol. Releases all resource permits back to the library.
+     * Requests exclusive access, giving up after the timeout.
+     * A writer that gives up is removed from the waiting list and holds nothing.
+     *
+     * @param timeout Maximum time to wait.
+     * @return true if the writer entered and must call {@link #stopWriting()}.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean tryStartWriting(Duration timeout) throws InterruptedException {
+        return tryEnter(Role.WRITER, TimeUnit.NANOSECONDS.convert(timeout));
+    }
+
+    /**
+     * Requests exclusive access, giving up once the deadline has passed.
+     *
+     * @param deadline Latest moment to enter.
+     * @return true if the writer entered and must call {@link #stopWriting()}.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean tryStartWriting(Instant deadline) throws InterruptedException {
+        return tryStartWriting(untilDeadline(deadline));
+    }
+
+    /**
+     * Writer exit protocol. Releases exclusive access back to the library.
+     *
+     * @throws LeaseExpiredException if the writer's lease was revoked; it is outside either way.
      */
     public void stopWriting() {
-        Thread thread = Thread.currentThread();
+        Visit visit = leave(Role.WRITER);
+        strategy.releaseWrite(visit.getStamp());
+    }
+
+    /**
+     * Turns the caller's read into a write without leaving the library, so no other writer can get in between
+     * a check made while reading and the write that depends on it. Waits until the other readers have left.
+     * Only one reader can upgrade at a time: while another upgrade is in progress this returns false right away
+     * and the caller is still reading; it can then stop reading and start writing instead.
+     *
+     * @return true if the caller is now the writer and must call {@link #stopWriting()}.
+     * @throws InterruptedException if interrupted while other readers are inside; the caller is still reading.
+     * @throws IllegalStateException if the caller is not reading or reads under a lease.
+     * @throws UnsupportedOperationException if the strategy cannot upgrade.
+     */
+    public boolean upgradeToWriting() throws InterruptedException {
+        Visit reading = unleased(heldVisit(Role.READER));
+        Visit writing = arrive(Role.WRITER);
+        long stamp = 0L;
+        try {
+            stamp = strategy.upgradeToWrite(reading.getStamp());
+        } finally {
+            if (stamp == 0L) {
+                abandon(writing);
+            }
+        }
+        if (stamp == 0L) {
+            return false;
+        }
+        leave(Role.READER);
+        admit(writing, stamp, EventType.WRITING, 0);
+        return true;
+    }
+
+    /**
+     * Turns the caller's write into a read. Waiting readers are let in at once, and no other writer can get in
+     * before the caller has read what it just wrote.
+     *
+     * @throws IllegalStateException if the caller is not writing or writes under a lease.
+     * @throws UnsupportedOperationException if the strategy cannot downgrade.
+     */
+    public void downgradeToReading() {
+        Visit writing = unleased(heldVisit(Role.WRITER));
+        long stamp = strategy.downgradeToRead(writing.getStamp());
+        leave(Role.WRITER);
+        admit(arrive(Role.READER), stamp, EventType.READING, 0);
+    }
+
+    /**
+     * Runs a read-only operation as a reader without blocking the caller, completing on the common pool.
+     * See {@link #readAsync(Supplier, Executor)}.
+     */
+    public <T> CompletableFuture<T> readAsync(Supplier<T> operation) {
+        return readAsync(operation, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs a read-only operation as a reader without blocking the caller.
+     * Until it is admitted the request waits in a queue rather than in a parked thread, in arrival order with the
+     * other asynchronous requests. A single thread queues in the strategy for the request at the head, so
+     * asynchronous and blocking callers take turns in the strategy's order. Once admitted, the operation
+     * runs on the executor and leaves the library before the future completes. Cancelling the future before
+     * admission withdraws the request.
+     * <p>
+     * The visit is reported under the thread that submitted it.
+     *
+     * @param operation Read to run inside the library.
+     * @param executor  Runs the operation and thereby the completion of the future.
+     * @return Completed with the operation's result, or exceptionally with what it threw.
+     * @throws UnsupportedOperationException if the strategy is owner-bound, see {@link LockStrategy#isOwnerBound()}.
+     */
+    public <T> CompletableFuture<T> readAsync(Supplier<T> operation, Executor executor) {
+        return asyncAdmission().submit(Role.READER, operation, executor);
+    }
+
+    /**
+     * Runs an operation with exclusive access without blocking the caller, completing on the common pool.
+     * See {@link #writeAsync(Supplier, Executor)}.
+     */
+    public <T> CompletableFuture<T> writeAsync(Supplier<T> operation) {
+        return writeAsync(operation, ForkJoinPool.commonPool());
+    }
 
-        synchronized (this) {
-            runningList.remove(thread);
-            printState(thread.getName() + " leaves.");
+    /**
+     * Runs an operation with exclusive access without blocking the caller, with the same rules as
+     * {@link #readAsync(Supplier, Executor)}.
+     *
+     * @param operation Write to run inside the library.
+     * @param executor  Runs the operation and thereby the completion of the future.
+     * @return Completed with the operation's result, or exceptionally with what it threw.
+     * @throws UnsupportedOperationException if the strategy is owner-bound.
+     */
+    public <T> CompletableFuture<T> writeAsync(Supplier<T> operation, Executor executor) {
+        return asyncAdmission().submit(Role.WRITER, operation, executor);
+    }
+
+    /**
+     * Submits a write operation to run with exclusive access.
+     * Operations submitted concurrently are combined: one thread enters as the writer and runs a whole batch
+     * in submission order, so a burst of writes drains the readers once per batch instead of once per write.
+     * <p>
+     * The calling thread may itself end up running the batch, including other threads' operations, before this
+     * returns. An operation must therefore be short and must not wait for another submitted write.
+     *
+     * @param operation Write to run inside the library.
+     * @return Completed with the operation's result, or exceptionally with what it threw.
+     */
+    public <T> CompletableFuture<T> submitWrite(Supplier<T> operation) {
+        return writeCombiner().submit(operation);
+    }
+
+    /**
+     * Runs a read-only action, first optimistically without entering the library when the strategy supports it.
+     * If a writer entered while the action was running, it is repeated as a regular reader.
+     * The action must tolerate seeing inconsistent state on the optimistic attempt and must not have side effects.
+     *
+     * @param action Read-only action.
+     * @return Result of the validated attempt.
+     * @throws InterruptedException if the thread is interrupted while waiting for regular entry.
+     */
+    public <T> T readOptimistically(Supplier<T> action) throws InterruptedException {
+        long stamp = strategy.tryOptimisticRead();
+        if (stamp != 0L) {
+            T result = action.get();
+            if (strategy.validate(stamp)) {
+                return result;
+            }
+        }
+
+        startReading(0);
+        try {
+            return action.get();
+        } finally {
+            stopReading();
         }
-        resourceSemaphore.release(MAX_READERS);
+    }
+
+    /**
+     * @return Current reader limit.
+     */
+    public int getMaxReaders() {
+        return strategy.getMaxReaders();
+    }
+
+    /**
+     * @return Name of the admission engine, for reports.
+     */
+    public String getStrategyName() {
+        return strategy.getClass().getSimpleName();
+    }
+
+    /**
+     * Changes the reader limit at runtime, see {@link LockStrategy#setMaxReaders(int)}.
+     *
+     * @param maxReaders New limit.
+     * @throws UnsupportedOperationException if the strategy has a fixed limit.
+     */
+    public void setMaxReaders(int maxReaders) {
+        strategy.setMaxReaders(maxReaders);
+    }
+
+    /**
+     * @return Highest reader limit the strategy accepts.
+     */
+    public int getReaderLimitCeiling() {
+        return strategy.getReaderLimitCeiling();
+    }
+
+    /**
+     * Registers a listener for arrivals, admissions and departures.
+     */
+    public synchronized void addObserver(AccessObserver observer) {
+        AccessObserver[] current = observers;
+        AccessObserver[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = observer;
+        observers = updated;
+    }
+
+    public synchronized void removeObserver(AccessObserver observer) {
+        observers = Arrays.stream(observers)
+                .filter(o -> o != observer)
+                .toArray(AccessObserver[]::new);
+    }
+
+    /**
+     * @return Number of threads waiting to enter, without building a snapshot.
+     */
+    public int getWaitingCount() {
+        return registry.waitingCount();
+    }
+
+    /**
+     * @return Number of threads inside, without building a snapshot.
+     */
+    public int getRunningCount() {
+        return registry.runningCount();
     }
 
     //for test purpose
     public List<Thread> getRunningList() {
-        return new LinkedList<>(runningList);
+        return registry.runningThreads();
     }
 
     //for test purpose
     public List<Thread> getWaitingList() {
-        return new ArrayList<>(waitingList);
+        return registry.waitingThreads();
     }
 
-    private synchronized void printState(String message) {
-        System.out.println("Event: " + message);
+    private WriteCombiner writeCombiner() {
+        WriteCombiner combiner = writeCombiner;
+        if (combiner == null) {
+            synchronized (this) {
+                combiner = writeCombiner;
+                if (combiner == null) {
+                    combiner = new WriteCombiner(this, WriteCombiner.DEFAULT_MAX_BATCH);
+                    writeCombiner = combiner;
+                }
+            }
+        }
+        return combiner;
+    }
 
-        String outside = waitingList.stream()
-                .map(Thread::getName)
-                .collect(Collectors.joining(", "));
+    private AsyncAdmission asyncAdmission() {
+        AsyncAdmission admission = asyncAdmission;
+        if (admission == null) {
+            synchronized (this) {
+                admission = asyncAdmission;
+                if (admission == null) {
+                    admission = new AsyncAdmission(this, strategy);
+                    asyncAdmission = admission;
+                }
+            }
+        }
+        return admission;
+    }
+
+    private LeaseWheel leaseWheel() {
+        LeaseWheel wheel = leaseWheel;
+        if (wheel == null) {
+            synchronized (this) {
+                wheel = leaseWheel;
+                if (wheel == null) {
+                    wheel = new LeaseWheel(this::revoke);
+                    leaseWheel = wheel;
+                }
+            }
+        }
+        return wheel;
+    }
 
-        String inside = runningList.stream()
-                .map(Thread::getName)
-                .collect(Collectors.joining(", "));
+    Visit arrive(Role role) {
+        Thread thread = Thread.currentThread();
+        Visit visit = registry.arrive(thread, role);
+        record(EventType.ARRIVED, thread, 0);
+        int queueLength = registry.waitingCount();
+        FlightEvents.enqueued(thread, role.name(), visit.getSequence(), queueLength);
+        for (AccessObserver observer : observers) {
+            observer.onArrived(visit, queueLength);
+        }
+        return visit;
+    }
 
-        System.out.println("In queue (" + waitingList.size() + ") : " + outside);
-        System.out.println("Inside (" + runningList.size() + ") : " + inside);
-        System.out.println("--------------------------------------------------");
+    private boolean tryEnterNow(Role role) {
+        try {
+            return tryEnter(role, 0L);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean tryEnter(Role role, long timeoutNanos) throws InterruptedException {
+        Visit visit = arrive(role);
+        long stamp = 0L;
+        try {
+            stamp = role == Role.READER
+                    ? strategy.tryAcquireRead(timeoutNanos, TimeUnit.NANOSECONDS)
+                    : strategy.tryAcquireWrite(timeoutNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            if (stamp == 0L) {
+                abandon(visit);
+            }
+        }
+        if (stamp == 0L) {
+            return false;
+        }
+        admit(visit, stamp, role == Role.READER ? EventType.READING : EventType.WRITING, 0);
+        return true;
+    }
+
+    private Lease startLeased(Role role, Duration duration) throws InterruptedException {
+        if (duration == null || !duration.isPositive()) {
+            throw new IllegalArgumentException("lease must be positive");
+        }
+        if (strategy.isOwnerBound()) {
+            throw new UnsupportedOperationException(strategy.getClass().getSimpleName()
+                    + " must be released by the thread that entered, which revoking a lease cannot do");
+        }
+        Visit visit = arrive(role);
+        long stamp;
+        try {
+            stamp = role == Role.READER ? strategy.acquireRead() : strategy.acquireWrite();
+        } catch (InterruptedException e) {
+            abandon(visit);
+            throw e;
+        }
+        // the lease runs from admission, waiting does not use it up
+        Lease lease = new Lease(visit, duration);
+        visit.setLease(lease);
+        admit(visit, stamp, role == Role.READER ? EventType.READING : EventType.WRITING, 0);
+        leaseWheel().schedule(lease);
+        return lease;
+    }
+
+    // runs on the lease timer thread and races with the holder leaving; the lease state picks the winner
+    private void revoke(Lease lease) {
+        if (!lease.revoke()) {
+            return;
+        }
+        Visit visit = lease.getVisit();
+        registry.leave(visit);
+        record(EventType.REVOKED, visit.getThread(), 0);
+        long holdNanos = System.nanoTime() - visit.getAdmittedNanos();
+        FlightEvents.revoked(visit.getThread(), visit.getRole().name(), visit.getSequence(), holdNanos);
+        for (AccessObserver observer : observers) {
+            observer.onRevoked(visit, holdNanos);
+        }
+        if (visit.getRole() == Role.READER) {
+            strategy.releaseRead(visit.getStamp());
+        } else {
+            strategy.releaseWrite(visit.getStamp());
+        }
+    }
+
+    private static Duration untilDeadline(Instant deadline) {
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    void abandon(Visit visit) {
+        registry.abandon(visit);
+        record(EventType.ABANDONED, visit.getThread(), 0);
+        FlightEvents.abandoned(visit.getThread(), visit.getRole().name(), visit.getSequence(),
+                System.nanoTime() - visit.getArrivedNanos());
+        for (AccessObserver observer : observers) {
+            observer.onAbandoned(visit);
+        }
+    }
+
+    private void admit(Visit visit, long stamp, EventType type, int duration) {
+        enter(visit, stamp, type, duration);
+        heldVisits.get().addLast(visit);
+    }
+
+    // bookkeeping of an admission, without tying the visit to the current thread
+    void enter(Visit visit, long stamp, EventType type, int duration) {
+        visit.setStamp(stamp);
+        registry.admit(visit);
+        record(type, visit.getThread(), duration);
+        int queueLength = registry.waitingCount();
+        FlightEvents.admitted(visit.getThread(), visit.getRole().name(), visit.getSequence(),
+                visit.getAdmittedNanos() - visit.getArrivedNanos(), queueLength);
+        for (AccessObserver observer : observers) {
+            observer.onAdmitted(visit, queueLength);
+        }
+    }
+
+    private Visit leave(Role role) {
+        Visit visit = takeHeldVisit(role);
+        Lease lease = visit.getLease();
+        if (lease != null && !lease.release()) {
+            throw new LeaseExpiredException(visit + " was put out when its lease of "
+                    + lease.getDuration().toMillis() + " ms expired");
+        }
+        depart(visit);
+        return visit;
+    }
+
+    // bookkeeping of a departure, the strategy is released by the caller
+    void depart(Visit visit) {
+        registry.leave(visit);
+        record(EventType.LEFT, visit.getThread(), 0);
+        long holdNanos = System.nanoTime() - visit.getAdmittedNanos();
+        FlightEvents.left(visit.getThread(), visit.getRole().name(), visit.getSequence(),
+                visit.getAdmittedNanos() - visit.getArrivedNanos(), holdNanos);
+        for (AccessObserver observer : observers) {
+            observer.onLeft(visit, holdNanos);
+        }
+    }
+
+    private Visit heldVisit(Role role) {
+        Iterator<Visit> visits = heldVisits.get().descendingIterator();
+        while (visits.hasNext()) {
+            Visit visit = visits.next();
+            if (visit.getRole() == role) {
+                return visit;
+            }
+        }
+        throw new IllegalStateException(Thread.currentThread().getName() + " is not inside as " + role);
+    }
+
+    private static Visit unleased(Visit visit) {
+        if (visit.getLease() != null) {
+            throw new IllegalStateException(visit + " holds a lease and cannot change its role");
+        }
+        return visit;
+    }
+
+    private Visit takeHeldVisit(Role role) {
+        Visit visit = heldVisit(role);
+        heldVisits.get().removeLastOccurrence(visit);
+        return visit;
+    }
+
+    private void record(EventType type, Thread thread, int duration) {
+        if (events.recordsThreads()) {
+            events.record(type, thread, duration, waitingSnapshot, runningSnapshot);
+        } else {
+            events.record(type, thread, duration, registry.waitingCount(), registry.runningCount());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,221 @@
+package com.dnikitin.model;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Data guarded by a {@link Library} that keeps a bounded chain of committed versions, so a long-running reader
+ * can keep reading one consistent version while writers commit newer ones.
+ * <p>
+ * Every commit starts a new epoch, numbered like the version it publishes. A reader opening a {@link Snapshot}
+ * pins the current epoch with one CAS on that version's reader count and never enters the library.
+ * Writers are serialized by the library's write path; after publishing, a writer reclaims every older version
+ * whose epoch has no pinned readers left. If pinned versions still exceed {@code maxVersions}, the oldest ones
+ * are reclaimed anyway: their readers get a {@link StaleSnapshotException} and must open a fresh snapshot,
+ * which keeps memory bounded no matter how slow a reader is.
+ * <p>
+ * Values must not be modified after being published.
+ *
+ * @param <T> Type of the stored value.
+ */
+public class MultiVersionResource<T> {
+    // pin count of a version that was reclaimed and can no longer be pinned
+    private static final int RECLAIMED = -1;
+
+    private static final class Node<T> {
+        private final long number;
+        private volatile T value;
+        private final AtomicInteger pins = new AtomicInteger();
+
+        private Node(long number, T value) {
+            this.number = number;
+            this.value = value;
+        }
+    }
+
+    private final Library library;
+    private final int maxVersions;
+    private volatile Node<T> head;
+
+    // versions not reclaimed yet, oldest first; only touched by the writer inside the library
+    private final ArrayDeque<Node<T>> retained = new ArrayDeque<>();
+    private volatile int retainedCount;
+    private final LongAdder forcedReclaims = new LongAdder();
+
+    /**
+     * @param library     Library serializing the writers.
+     * @param initial     Value of version 0.
+     * @param maxVersions Most versions kept alive at once, the latest included.
+     */
+    public MultiVersionResource(Library library, T initial, int maxVersions) {
+        if (library == null || maxVersions < 1) {
+            throw new IllegalArgumentException("library must not be null and maxVersions must be positive");
+        }
+        this.library = library;
+        this.maxVersions = maxVersions;
+        this.head = new Node<>(0L, initial);
+        retained.add(head);
+        retainedCount = 1;
+    }
+
+    /**
+     * @return Value of the latest version; a single volatile read that pins nothing.
+     */
+    public T get() {
+        return head.value;
+    }
+
+    /**
+     * @return Number of the latest version.
+     */
+    public long getVersion() {
+        return head.number;
+    }
+
+    /**
+     * Pins the latest version until the snapshot is closed. Never blocks.
+     */
+    public Snapshot openSnapshot() {
+        while (true) {
+            Node<T> node = head;
+            int pins = node.pins.get();
+            // a reclaimed node is no longer the head, so the next attempt sees the newer one
+            if (pins != RECLAIMED && node.pins.compareAndSet(pins, pins + 1)) {
+                return new Snapshot(node);
+            }
+        }
+    }
+
+    /**
+     * Commits a new version derived from the latest one, entering the library as a writer.
+     * If the change throws, nothing is committed.
+     *
+     * @param change Computes the new value from the latest one without modifying it.
+     * @return The committed version.
+     * @throws InterruptedException if the thread is interrupted while waiting for exclusive access.
+     */
+    public VersionedResource.Version<T> update(UnaryOperator<T> change) throws InterruptedException {
+        library.startWriting(0);
+        try {
+            return commit(change);
+        } finally {
+            library.stopWriting();
+        }
+    }
+
+    /**
+     * Like {@link #update(UnaryOperator)}, but combined with other submitted writes, see {@link Library#submitWrite}.
+     */
+    public CompletableFuture<VersionedResource.Version<T>> submitUpdate(UnaryOperator<T> change) {
+        return library.submitWrite(() -> commit(change));
+    }
+
+    /**
+     * @return Number of versions currently kept alive, the latest included.
+     */
+    public int getRetainedVersions() {
+        return retainedCount;
+    }
+
+    /**
+     * @return How many pinned versions were reclaimed to respect the cap.
+     */
+    public long getForcedReclaims() {
+        return forcedReclaims.sum();
+    }
+
+    // only called inside the library as the writer
+    private VersionedResource.Version<T> commit(UnaryOperator<T> change) {
+        Node<T> previous = head;
+        Node<T> next = new Node<>(previous.number + 1, change.apply(previous.value));
+        retained.addLast(next);
+        head = next;
+        reclaim();
+        return new VersionedResource.Version<>(next.number, next.value);
+    }
+
+    private void reclaim() {
+        Iterator<Node<T>> versions = retained.iterator();
+        while (versions.hasNext()) {
+            Node<T> node = versions.next();
+            if (node == head) {
+                break;
+            }
+            // no reader can pin it any more once the count is swapped out
+            if (node.pins.compareAndSet(0, RECLAIMED)) {
+                node.value = null;
+                versions.remove();
+            }
+        }
+        while (retained.size() > maxVersions) {
+            Node<T> laggard = retained.removeFirst();
+            laggard.pins.set(RECLAIMED);
+            laggard.value = null;
+            forcedReclaims.increment();
+        }
+        retainedCount = retained.size();
+    }
+
+    /**
+     * A pinned version. Meant to be used by one thread, in a try-with-resources block.
+     */
+    public final class Snapshot implements AutoCloseable {
+        private final Node<T> node;
+        private boolean closed;
+
+        private Snapshot(Node<T> node) {
+            this.node = node;
+        }
+
+        /**
+         * @return Number of the pinned version.
+         */
+        public long version() {
+            return node.number;
+        }
+
+        /**
+         * @return Value of the pinned version, the same on every call.
+         * @throws StaleSnapshotException if the version was reclaimed to respect the retention cap.
+         */
+        public T get() {
+            if (closed) {
+                throw new IllegalStateException("snapshot of version " + node.number + " is closed");
+            }
+            T value = node.value;
+            // the writer marks the node before clearing the value, so a value read before the mark is intact
+            if (isStale()) {
+                throw new StaleSnapshotException("version " + node.number + " was reclaimed, open a new snapshot");
+            }
+            return value;
+        }
+
+        /**
+         * @return true if the version was reclaimed and {@link #get()} would throw.
+         */
+        public boolean isStale() {
+            return node.pins.get() == RECLAIMED;
+        }
+
+        /**
+         * Unpins the version so the next commit may reclaim it.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (true) {
+                int pins = node.pins.get();
+                if (pins == RECLAIMED || node.pins.compareAndSet(pins, pins - 1)) {
+                    return;
+                }
+            }
+        }
+    }
+}
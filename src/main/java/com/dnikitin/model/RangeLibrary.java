@@ -0,0 +1,296 @@
+package com.dnikitin.model;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Library over a large resource whose readers and writers each lock a range {@code [start, end)} of it.
+ * Visits whose ranges do not overlap never wait for each other, so writers of disjoint regions run in parallel.
+ * <p>
+ * Overlapping visits are admitted in arrival order: a visit enters once every earlier visit overlapping its range
+ * is compatible with it. For a writer that means no earlier overlapping visit at all; for a reader it means no
+ * earlier overlapping writer and fewer than {@code maxReaders} earlier overlapping readers. Earlier visits count
+ * whether they are inside or still waiting, so a writer is never overtaken by readers that arrived after it and
+ * the earliest visit can always enter.
+ * <p>
+ * Visits live in an interval index ordered by start, so finding the visits that overlap a range only looks at
+ * those starting less than the longest locked length before it. Admission decisions are made under one short
+ * lock; visits that are let in by someone leaving are handed their grant directly and only the waiters that
+ * overlap the range that was freed are woken.
+ */
+public class RangeLibrary {
+    private static final Comparator<Request> BY_START = Comparator.comparingLong((Request r) -> r.start)
+            .thenComparingLong(r -> r.sequence);
+
+    // leaves room for nanoTime arithmetic
+    private static final long MAX_TIMEOUT_NANOS = Long.MAX_VALUE / 4;
+
+    private final int maxReaders;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // everything below is guarded by lock
+    private final TreeSet<Request> requests = new TreeSet<>(BY_START);
+    // multiset of the lengths in requests, its last key bounds how far back an overlapping visit can start
+    private final TreeMap<Long, Integer> lengths = new TreeMap<>();
+    private long nextSequence;
+
+    // ranges the current thread is inside for, most recent last
+    private final ThreadLocal<ArrayDeque<Request>> holds = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Creates a range library with {@link Library#DEFAULT_MAX_READERS} readers per overlapping range.
+     */
+    public RangeLibrary() {
+        this(Library.DEFAULT_MAX_READERS);
+    }
+
+    /**
+     * @param maxReaders Maximum number of readers inside a range that overlaps all of them.
+     */
+    public RangeLibrary(int maxReaders) {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("maxReaders must be positive");
+        }
+        this.maxReaders = maxReaders;
+    }
+
+    /**
+     * Requests read access to {@code [start, end)}.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void startReading(long start, long end) throws InterruptedException {
+        enter(start, end, Role.READER, false, 0L);
+    }
+
+    /**
+     * Requests read access to {@code [start, end)}, giving up after the timeout.
+     *
+     * @return true if the thread is now reading the range.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean tryStartReading(long start, long end, Duration timeout) throws InterruptedException {
+        return enter(start, end, Role.READER, true, TimeUnit.NANOSECONDS.convert(timeout));
+    }
+
+    /**
+     * Reader exit protocol for {@code [start, end)}.
+     */
+    public void stopReading(long start, long end) {
+        leave(takeHold(start, end, Role.READER));
+    }
+
+    /**
+     * Requests exclusive access to {@code [start, end)}.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void startWriting(long start, long end) throws InterruptedException {
+        enter(start, end, Role.WRITER, false, 0L);
+    }
+
+    /**
+     * Requests exclusive access to {@code [start, end)}, giving up after the timeout.
+     *
+     * @return true if the thread is now writing the range.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean tryStartWriting(long start, long end, Duration timeout) throws InterruptedException {
+        return enter(start, end, Role.WRITER, true, TimeUnit.NANOSECONDS.convert(timeout));
+    }
+
+    /**
+     * Writer exit protocol for {@code [start, end)}.
+     */
+    public void stopWriting(long start, long end) {
+        leave(takeHold(start, end, Role.WRITER));
+    }
+
+    /**
+     * @return Number of visits inside or waiting.
+     */
+    public int pendingVisits() {
+        lock.lock();
+        try {
+            return requests.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxReaders() {
+        return maxReaders;
+    }
+
+    private boolean enter(long start, long end, Role role, boolean timed, long timeoutNanos)
+            throws InterruptedException {
+        if (start >= end) {
+            throw new IllegalArgumentException("empty range [" + start + ", " + end + ")");
+        }
+        Request request = new Request(start, end, role, Thread.currentThread());
+        lock.lock();
+        try {
+            request.sequence = nextSequence++;
+            add(request);
+            request.granted = admissible(request);
+        } finally {
+            lock.unlock();
+        }
+        long deadline = System.nanoTime() + Math.clamp(timeoutNanos, 0L, MAX_TIMEOUT_NANOS);
+        boolean interrupted = false;
+        while (!request.granted) {
+            if (timed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            } else {
+                LockSupport.park(this);
+            }
+            if (Thread.interrupted()) {
+                interrupted = true;
+                break;
+            }
+        }
+        if (!request.granted && withdraw(request)) {
+            if (interrupted) {
+                throw new InterruptedException();
+            }
+            return false;
+        }
+        // granted meanwhile: the visit counts, the interrupt stays pending for the caller
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        holds.get().addLast(request);
+        return true;
+    }
+
+    // false if the grant arrived first
+    private boolean withdraw(Request request) {
+        lock.lock();
+        try {
+            if (request.granted) {
+                return false;
+            }
+            remove(request);
+            admitOverlapping(request);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void leave(Request request) {
+        lock.lock();
+        try {
+            remove(request);
+            admitOverlapping(request);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // only visits overlapping a removed one can have become admissible
+    private void admitOverlapping(Request removed) {
+        for (Request waiter : overlapping(removed)) {
+            if (!waiter.granted && admissible(waiter)) {
+                waiter.granted = true;
+                LockSupport.unpark(waiter.thread);
+            }
+        }
+    }
+
+    private boolean admissible(Request request) {
+        int earlierReaders = 0;
+        for (Request other : overlapping(request)) {
+            if (other.sequence >= request.sequence) {
+                continue;
+            }
+            if (request.role == Role.WRITER || other.role == Role.WRITER) {
+                return false;
+            }
+            if (++earlierReaders >= maxReaders) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Request> overlapping(Request range) {
+        List<Request> result = new ArrayList<>();
+        if (lengths.isEmpty()) {
+            return result;
+        }
+        long longest = lengths.lastKey();
+        long from = range.start < Long.MIN_VALUE + longest ? Long.MIN_VALUE : range.start - longest;
+        Request lowest = new Request(from, from, null, null);
+        lowest.sequence = Long.MIN_VALUE;
+        for (Request other : requests.tailSet(lowest)) {
+            if (other.start >= range.end) {
+                break;
+            }
+            if (other != range && other.end > range.start) {
+                result.add(other);
+            }
+        }
+        return result;
+    }
+
+    private void add(Request request) {
+        requests.add(request);
+        lengths.merge(request.length(), 1, Integer::sum);
+    }
+
+    private void remove(Request request) {
+        requests.remove(request);
+        lengths.computeIfPresent(request.length(), (_, count) -> count == 1 ? null : count - 1);
+    }
+
+    private Request takeHold(long start, long end, Role role) {
+        Iterator<Request> iterator = holds.get().descendingIterator();
+        while (iterator.hasNext()) {
+            Request hold = iterator.next();
+            if (hold.role == role && hold.start == start && hold.end == end) {
+                iterator.remove();
+                return hold;
+            }
+        }
+        throw new IllegalStateException(Thread.currentThread().getName() + " is not inside ["
+                + start + ", " + end + ") as " + role);
+    }
+
+    private static final class Request {
+        private final long start;
+        private final long end;
+        private final Role role;
+        private final Thread thread;
+        // set under lock before the request is visible
+        private long sequence;
+        // set under lock, read by the waiting thread
+        private volatile boolean granted;
+
+        private Request(long start, long end, Role role, Thread thread) {
+            this.start = start;
+            this.end = end;
+            this.role = role;
+            this.thread = thread;
+        }
+
+        private long length() {
+            long length = end - start;
+            // ranges wider than Long.MAX_VALUE overflow
+            return length < 0 ? Long.MAX_VALUE : length;
+        }
+    }
+}
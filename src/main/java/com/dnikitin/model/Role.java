@@ -0,0 +1,9 @@
+package com.dnikitin.model;
+
+/**
+ * Role in which a thread visits the library.
+ */
+public enum Role {
+    READER,
+    WRITER
+}
@@ -0,0 +1,13 @@
+package com.dnikitin.model;
+
+/**
+ * Thrown when a snapshot is read after its version was reclaimed to respect the retention cap.
+ * The reader should close it and open a fresh one.
+ */
+public class StaleSnapshotException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public StaleSnapshotException(String message) {
+        super(message);
+    }
+}
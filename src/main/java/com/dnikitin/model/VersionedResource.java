@@ -0,0 +1,93 @@
+package com.dnikitin.model;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+
+/**
+ * Data guarded by a {@link Library}, published copy-on-write.
+ * <p>
+ * Readers never enter the library: {@link #read()} is a single volatile read of the current version, so it is
+ * wait-free and unaffected by writers, however long they stay inside. Writers enter the library as writers,
+ * derive the next value from the current one and publish it with one volatile write, so updates are serialized
+ * and every reader sees either the old or the new version, never a mix.
+ * <p>
+ * Values must be immutable (or at least never modified after being published); an update returns a new value
+ * instead of changing the old one.
+ *
+ * @param <T> Type of the stored value.
+ */
+public class VersionedResource<T> {
+
+    /**
+     * One published state of the resource.
+     *
+     * @param number Version number, starting at 0 and increasing by one per update.
+     * @param value  Value of this version.
+     */
+    public record Version<T>(long number, T value) {
+    }
+
+    private final Library library;
+    private volatile Version<T> current;
+
+    /**
+     * @param library Library serializing the writers.
+     * @param initial Value of version 0.
+     */
+    public VersionedResource(Library library, T initial) {
+        if (library == null) {
+            throw new IllegalArgumentException("library must not be null");
+        }
+        this.library = library;
+        this.current = new Version<>(0L, initial);
+    }
+
+    /**
+     * @return Latest published version; never blocks.
+     */
+    public Version<T> read() {
+        return current;
+    }
+
+    /**
+     * @return Value of the latest published version; never blocks.
+     */
+    public T get() {
+        return current.value();
+    }
+
+    /**
+     * Publishes a new version derived from the current one, entering the library as a writer.
+     * If the change throws, nothing is published.
+     *
+     * @param change Computes the new value from the current one without modifying it.
+     * @return The published version.
+     * @throws InterruptedException if the thread is interrupted while waiting for exclusive access.
+     */
+    public Version<T> update(UnaryOperator<T> change) throws InterruptedException {
+        library.startWriting(0);
+        try {
+            return publish(change);
+        } finally {
+            library.stopWriting();
+        }
+    }
+
+    /**
+     * Like {@link #update(UnaryOperator)}, but combined with other submitted writes into a shared exclusive
+     * section, see {@link Library#submitWrite}.
+     *
+     * @return Completed with the published version, or exceptionally with what the change threw.
+     */
+    public CompletableFuture<Version<T>> submitUpdate(UnaryOperator<T> change) {
+        return library.submitWrite(() -> publish(change));
+    }
+
+    // only called inside the library as the writer
+    private Version<T> publish(UnaryOperator<T> change) {
+        Version<T> previous = current;
+        Version<T> next = new Version<>(previous.number() + 1, change.apply(previous.value()));
+        current = next;
+        return next;
+    }
+}
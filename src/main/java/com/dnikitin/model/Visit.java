@@ -0,0 +1,80 @@
+package com.dnikitin.model;
+
+/**
+ * One stay of a thread in the library, from arrival until it leaves.
+ * Visits are numbered in arrival order.
+ */
+public final class Visit {
+    private final Thread thread;
+    private final Role role;
+    private final long sequence;
+    private final long arrivedNanos;
+    private volatile long admittedNanos;
+
+    // what the lock strategy handed out on admission, needed to release
+    private long stamp;
+
+    // set before admission for a leased visit, null otherwise
+    private Lease lease;
+
+    Visit(Thread thread, Role role, long sequence, long arrivedNanos) {
+        this.thread = thread;
+        this.role = role;
+        this.sequence = sequence;
+        this.arrivedNanos = arrivedNanos;
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * @return Arrival number, unique within one library.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} at arrival.
+     */
+    public long getArrivedNanos() {
+        return arrivedNanos;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} at admission, or 0 while still waiting.
+     */
+    public long getAdmittedNanos() {
+        return admittedNanos;
+    }
+
+    void markAdmitted(long nanos) {
+        this.admittedNanos = nanos;
+    }
+
+    long getStamp() {
+        return stamp;
+    }
+
+    void setStamp(long stamp) {
+        this.stamp = stamp;
+    }
+
+    Lease getLease() {
+        return lease;
+    }
+
+    void setLease(Lease lease) {
+        this.lease = lease;
+    }
+
+    @Override
+    public String toString() {
+        return role + " " + thread.getName() + " #" + sequence;
+    }
+}
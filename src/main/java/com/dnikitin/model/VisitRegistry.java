@@ -0,0 +1,89 @@
+package com.dnikitin.model;
+
+import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of who is waiting for and who is inside the library.
+ * <p>
+ * Visits live in two concurrent hash sets keyed by identity, so arriving, being admitted and leaving
+ * are constant-time and need no global lock, however long the queue is. Ordering by arrival is only
+ * reconstructed when a snapshot is requested.
+ */
+public class VisitRegistry {
+    private static final Comparator<Visit> ARRIVAL_ORDER = Comparator.comparingLong(Visit::getSequence);
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<Visit> waiting = ConcurrentHashMap.newKeySet();
+    private final Set<Visit> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Registers a new waiting visit.
+     *
+     * @param thread Visiting thread.
+     * @param role   Role it wants to enter in.
+     * @return The new visit, numbered in arrival order.
+     */
+    public Visit arrive(Thread thread, Role role) {
+        Visit visit = new Visit(thread, role, sequence.incrementAndGet(), System.nanoTime());
+        waiting.add(visit);
+        return visit;
+    }
+
+    /**
+     * Moves a waiting visit inside.
+     */
+    public void admit(Visit visit) {
+        visit.markAdmitted(System.nanoTime());
+        running.add(visit);
+        waiting.remove(visit);
+    }
+
+    /**
+     * Removes a visit that gave up waiting.
+     */
+    public void abandon(Visit visit) {
+        waiting.remove(visit);
+    }
+
+    /**
+     * Removes a visit that was inside.
+     */
+    public void leave(Visit visit) {
+        running.remove(visit);
+    }
+
+    public int waitingCount() {
+        return waiting.size();
+    }
+
+    public int runningCount() {
+        return running.size();
+    }
+
+    /**
+     * @return Waiting threads in arrival order.
+     */
+    public List<Thread> waitingThreads() {
+        return snapshot(waiting);
+    }
+
+    /**
+     * @return Threads inside in arrival order.
+     */
+    public List<Thread> runningThreads() {
+        return snapshot(running);
+    }
+
+    private static List<Thread> snapshot(Set<Visit> visits) {
+        return visits.stream()
+                .sorted(ARRIVAL_ORDER)
+                .map(Visit::getThread)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+}
@@ -0,0 +1,91 @@
+package com.dnikitin.model;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Flat combining of write operations submitted to a {@link Library}.
+ * <p>
+ * Submitters only enqueue their operation. Whichever submitter wins the combiner flag enters the library as a
+ * single writer, runs up to {@code maxBatch} pending operations in submission order inside that one exclusive
+ * section and completes their futures. A burst of N writes therefore costs roughly N / maxBatch reader drains
+ * instead of N. The batch size is capped so that readers are let in between batches.
+ */
+final class WriteCombiner {
+    static final int DEFAULT_MAX_BATCH = 64;
+
+    private final Library library;
+    private final int maxBatch;
+    private final ConcurrentLinkedQueue<PendingWrite<?>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean combining = new AtomicBoolean();
+
+    WriteCombiner(Library library, int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be positive: " + maxBatch);
+        }
+        this.library = library;
+        this.maxBatch = maxBatch;
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("operation must not be null");
+        }
+        PendingWrite<T> write = new PendingWrite<>(operation, new CompletableFuture<>());
+        pending.add(write);
+        combine();
+        return write.result();
+    }
+
+    private void combine() {
+        // the combiner re-checks the queue after dropping the flag, so a write enqueued by a submitter
+        // that lost the race is never stranded
+        while (!pending.isEmpty() && combining.compareAndSet(false, true)) {
+            try {
+                runBatch();
+            } finally {
+                combining.set(false);
+            }
+        }
+    }
+
+    private void runBatch() {
+        // the queued operations belong to other threads too, so an interrupt must not abort the batch
+        boolean interrupted = false;
+        while (true) {
+            try {
+                library.startWriting(0);
+                break;
+            } catch (InterruptedException _) {
+                interrupted = true;
+            }
+        }
+        try {
+            for (int i = 0; i < maxBatch; i++) {
+                PendingWrite<?> write = pending.poll();
+                if (write == null) {
+                    break;
+                }
+                write.run();
+            }
+        } finally {
+            library.stopWriting();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private record PendingWrite<T>(Supplier<T> operation, CompletableFuture<T> result) {
+        void run() {
+            try {
+                result.complete(operation.get());
+            } catch (Throwable t) {
+                // one failing operation must not take the rest of the batch down
+                result.completeExceptionally(t);
+            }
+        }
+    }
+}
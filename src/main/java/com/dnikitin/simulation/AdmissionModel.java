@@ -0,0 +1,35 @@
+package com.dnikitin.simulation;
+
+/**
+ * Admission policy of a lock strategy, replayed without threads on the simulation's virtual clock.
+ * The simulation calls it from a single thread.
+ */
+public interface AdmissionModel {
+
+    /**
+     * A visitor starts waiting.
+     */
+    void arrive(Visitor visitor);
+
+    /**
+     * A visitor that was admitted leaves.
+     */
+    void leave(Visitor visitor);
+
+    /**
+     * Admits the next waiting visitor if the policy lets one in right now.
+     *
+     * @return The admitted visitor, or null if nobody may enter.
+     */
+    Visitor admitNext();
+
+    /**
+     * @return Readers currently inside.
+     */
+    int readersInside();
+
+    /**
+     * @return true while a writer is inside.
+     */
+    boolean writerInside();
+}
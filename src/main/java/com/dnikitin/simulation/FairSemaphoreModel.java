@@ -0,0 +1,74 @@
+package com.dnikitin.simulation;
+
+import com.dnikitin.model.Role;
+
+import java.util.ArrayDeque;
+
+/**
+ * Model of {@link com.dnikitin.lock.SemaphoreLockStrategy}: one fair semaphore where a reader takes one slot and a
+ * writer takes all of them. Waiters are admitted strictly in arrival order; a writer at the head of the queue
+ * blocks the readers behind it even while slots are free.
+ */
+public class FairSemaphoreModel implements AdmissionModel {
+    private final int maxReaders;
+    private final ArrayDeque<Visitor> waiting = new ArrayDeque<>();
+    private int freeSlots;
+    private int readersInside;
+    private boolean writerInside;
+
+    public FairSemaphoreModel(int maxReaders) {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("maxReaders must be positive: " + maxReaders);
+        }
+        this.maxReaders = maxReaders;
+        this.freeSlots = maxReaders;
+    }
+
+    @Override
+    public void arrive(Visitor visitor) {
+        waiting.addLast(visitor);
+    }
+
+    @Override
+    public void leave(Visitor visitor) {
+        if (visitor.getRole() == Role.READER) {
+            readersInside--;
+            freeSlots++;
+        } else {
+            writerInside = false;
+            freeSlots = maxReaders;
+        }
+    }
+
+    @Override
+    public Visitor admitNext() {
+        Visitor head = waiting.peekFirst();
+        if (head == null) {
+            return null;
+        }
+        if (head.getRole() == Role.READER) {
+            if (freeSlots == 0) {
+                return null;
+            }
+            freeSlots--;
+            readersInside++;
+        } else {
+            if (freeSlots < maxReaders) {
+                return null;
+            }
+            freeSlots = 0;
+            writerInside = true;
+        }
+        return waiting.pollFirst();
+    }
+
+    @Override
+    public int readersInside() {
+        return readersInside;
+    }
+
+    @Override
+    public boolean writerInside() {
+        return writerInside;
+    }
+}
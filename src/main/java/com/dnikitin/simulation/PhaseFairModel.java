@@ -0,0 +1,79 @@
+package com.dnikitin.simulation;
+
+import com.dnikitin.model.Role;
+
+import java.util.ArrayDeque;
+
+/**
+ * Model of {@link com.dnikitin.lock.PhaseFairLockStrategy}: readers that arrive while no writer is present join
+ * the current reader phase, readers that arrive behind a writer are admitted together when it leaves, and writers
+ * enter one at a time in arrival order after the readers of the phase before them.
+ */
+public class PhaseFairModel implements AdmissionModel {
+    private final int maxReaders;
+    // the head is inside while writerInside is set
+    private final ArrayDeque<Visitor> writers = new ArrayDeque<>();
+    private final ArrayDeque<Visitor> phaseReaders = new ArrayDeque<>();
+    private final ArrayDeque<Visitor> blockedReaders = new ArrayDeque<>();
+    private int readersInside;
+    private boolean writerInside;
+
+    public PhaseFairModel(int maxReaders) {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("maxReaders must be positive: " + maxReaders);
+        }
+        this.maxReaders = maxReaders;
+    }
+
+    @Override
+    public void arrive(Visitor visitor) {
+        if (visitor.getRole() == Role.WRITER) {
+            writers.addLast(visitor);
+        } else if (writers.isEmpty()) {
+            phaseReaders.addLast(visitor);
+        } else {
+            blockedReaders.addLast(visitor);
+        }
+    }
+
+    @Override
+    public void leave(Visitor visitor) {
+        if (visitor.getRole() == Role.READER) {
+            readersInside--;
+        } else {
+            writerInside = false;
+            writers.pollFirst();
+            phaseReaders.addAll(blockedReaders);
+            blockedReaders.clear();
+        }
+    }
+
+    @Override
+    public Visitor admitNext() {
+        if (writerInside) {
+            return null;
+        }
+        if (!phaseReaders.isEmpty()) {
+            if (readersInside == maxReaders) {
+                return null;
+            }
+            readersInside++;
+            return phaseReaders.pollFirst();
+        }
+        if (!writers.isEmpty() && readersInside == 0) {
+            writerInside = true;
+            return writers.peekFirst();
+        }
+        return null;
+    }
+
+    @Override
+    public int readersInside() {
+        return readersInside;
+    }
+
+    @Override
+    public boolean writerInside() {
+        return writerInside;
+    }
+}
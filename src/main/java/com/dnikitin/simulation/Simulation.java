@@ -0,0 +1,140 @@
+package com.dnikitin.simulation;
+
+import com.dnikitin.metrics.LogLinearHistogram;
+import com.dnikitin.model.Role;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Discrete-event simulation of readers and writers cycling through the library on a virtual clock.
+ * <p>
+ * Visitors behave like {@link com.dnikitin.threads.Reader} and {@link com.dnikitin.threads.Writer}: they arrive,
+ * wait for admission by the {@link AdmissionModel}, stay inside for a random work time and rest before arriving
+ * again. Instead of sleeping, each step is an event on a priority queue ordered by virtual time, so simulated
+ * hours pass in milliseconds. All randomness comes from one seeded generator and simultaneous events are
+ * processed in scheduling order, so a seed always replays the same run.
+ */
+public class Simulation {
+
+    /**
+     * @param numReaders  Number of reader visitors.
+     * @param numWriters  Number of writer visitors.
+     * @param restingTime Time between leaving and arriving again, in ms.
+     * @param minWorkTime Shortest stay inside, in ms.
+     * @param maxWorkTime Longest stay inside, in ms.
+     * @param seed        Seed of the random generator.
+     */
+    public record Config(int numReaders, int numWriters, int restingTime, int minWorkTime, int maxWorkTime,
+                         long seed) {
+        public Config {
+            if (numReaders < 0 || numWriters < 0 || numReaders + numWriters == 0 || restingTime < 0
+                    || minWorkTime < 0 || maxWorkTime < minWorkTime) {
+                throw new IllegalArgumentException("invalid simulation config: " + this);
+            }
+        }
+
+        /**
+         * Same timing as the threaded simulation: 1000-3000 ms inside.
+         */
+        public static Config of(int numReaders, int numWriters, int restingTime, long seed) {
+            return new Config(numReaders, numWriters, restingTime, 1000, 3000, seed);
+        }
+    }
+
+    private record Event(long time, long sequence, Visitor visitor, boolean leaving) {
+        static final Comparator<Event> ORDER = Comparator.comparingLong(Event::time).thenComparingLong(Event::sequence);
+    }
+
+    private final Config config;
+    private final AdmissionModel model;
+    private final SplittableRandom random;
+    private final PriorityQueue<Event> events = new PriorityQueue<>(Event.ORDER);
+    private long sequence;
+
+    private long now;
+    private long readerCycles;
+    private long writerCycles;
+    private long readerInsideMillis;
+    private long writerInsideMillis;
+    private final LogLinearHistogram readerWait = new LogLinearHistogram();
+    private final LogLinearHistogram writerWait = new LogLinearHistogram();
+
+    /**
+     * @param config Visitors and timing.
+     * @param model  Admission policy to simulate; must be fresh, it is used by this run only.
+     */
+    public Simulation(Config config, AdmissionModel model) {
+        if (config == null || model == null) {
+            throw new IllegalArgumentException("config and model must not be null");
+        }
+        this.config = config;
+        this.model = model;
+        this.random = new SplittableRandom(config.seed());
+        int id = 0;
+        for (int i = 0; i < config.numReaders(); i++) {
+            schedule(0L, new Visitor(++id, Role.READER), false);
+        }
+        for (int i = 0; i < config.numWriters(); i++) {
+            schedule(0L, new Visitor(++id, Role.WRITER), false);
+        }
+    }
+
+    /**
+     * Runs until the given number of visits has been completed.
+     *
+     * @param cycles Completed reader and writer visits to simulate.
+     * @return Statistics of the run.
+     */
+    public SimulationResult run(long cycles) {
+        while (readerCycles + writerCycles < cycles) {
+            Event event = events.poll();
+            advanceTo(event.time());
+            Visitor visitor = event.visitor();
+            if (event.leaving()) {
+                model.leave(visitor);
+                if (visitor.getRole() == Role.READER) {
+                    readerCycles++;
+                } else {
+                    writerCycles++;
+                }
+                schedule(now + config.restingTime(), visitor, false);
+            } else {
+                visitor.setArrivedAt(now);
+                model.arrive(visitor);
+            }
+            admitWaiting();
+        }
+        return new SimulationResult(readerCycles, writerCycles, now,
+                readerWait.snapshot(), writerWait.snapshot(),
+                now == 0 ? 0.0 : (double) readerInsideMillis / now,
+                now == 0 ? 0.0 : (double) writerInsideMillis / now);
+    }
+
+    private void admitWaiting() {
+        Visitor admitted;
+        while ((admitted = model.admitNext()) != null) {
+            if (model.writerInside() && model.readersInside() > 0) {
+                throw new IllegalStateException("writer inside together with readers at " + now + " ms");
+            }
+            long waited = now - admitted.getArrivedAt();
+            (admitted.getRole() == Role.READER ? readerWait : writerWait).record(waited);
+            int workTime = random.nextInt(config.minWorkTime(), config.maxWorkTime() + 1);
+            schedule(now + workTime, admitted, true);
+        }
+    }
+
+    private void advanceTo(long time) {
+        long elapsed = time - now;
+        readerInsideMillis += elapsed * model.readersInside();
+        if (model.writerInside()) {
+            writerInsideMillis += elapsed;
+        }
+        now = time;
+    }
+
+    private void schedule(long time, Visitor visitor, boolean leaving) {
+        events.add(new Event(time, sequence++, visitor, leaving));
+    }
+}
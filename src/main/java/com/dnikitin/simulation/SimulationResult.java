@@ -0,0 +1,34 @@
+package com.dnikitin.simulation;
+
+import com.dnikitin.metrics.HistogramSnapshot;
+
+/**
+ * Outcome of a {@link Simulation} run. Times are virtual milliseconds.
+ *
+ * @param readerCycles      Completed reader visits.
+ * @param writerCycles      Completed writer visits.
+ * @param simulatedMillis   Virtual time covered by the run.
+ * @param readerWait        Time readers waited for admission.
+ * @param writerWait        Time writers waited for admission.
+ * @param meanReadersInside Time-weighted average number of readers inside.
+ * @param writerBusyShare   Share of the time a writer was inside, between 0 and 1.
+ */
+public record SimulationResult(long readerCycles, long writerCycles, long simulatedMillis,
+                               HistogramSnapshot readerWait, HistogramSnapshot writerWait,
+                               double meanReadersInside, double writerBusyShare) {
+
+    /**
+     * @return Multi-line human-readable report.
+     */
+    public String describe() {
+        return String.format("""
+                        Simulated %,d ms: %,d reader and %,d writer visits
+                        Reader wait ms: mean %d, p50 %d, p99 %d, max %d
+                        Writer wait ms: mean %d, p50 %d, p99 %d, max %d
+                        Readers inside on average: %.2f, writer inside %.1f%% of the time""",
+                simulatedMillis, readerCycles, writerCycles,
+                readerWait.mean(), readerWait.p50(), readerWait.p99(), readerWait.max(),
+                writerWait.mean(), writerWait.p50(), writerWait.p99(), writerWait.max(),
+                meanReadersInside, writerBusyShare * 100);
+    }
+}
@@ -0,0 +1,41 @@
+package com.dnikitin.simulation;
+
+import com.dnikitin.model.Role;
+
+/**
+ * A simulated reader or writer. Mutable, owned by the {@link Simulation} that created it.
+ */
+public final class Visitor {
+    private final int id;
+    private final Role role;
+    private long arrivedAt;
+
+    Visitor(int id, Role role) {
+        this.id = id;
+        this.role = role;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * @return Virtual time of the latest arrival in ms.
+     */
+    public long getArrivedAt() {
+        return arrivedAt;
+    }
+
+    void setArrivedAt(long arrivedAt) {
+        this.arrivedAt = arrivedAt;
+    }
+
+    @Override
+    public String toString() {
+        return (role == Role.READER ? "Reader-" : "Writer-") + id;
+    }
+}
@@ -3,6 +3,7 @@ package com.dnikitin.threads;
 import com.dnikitin.model.Library;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a Reader thread that repeatedly attempts to read from the library.
@@ -10,25 +11,37 @@ import java.util.concurrent.ThreadLocalRandom;
 public class Reader implements Runnable {
     private final int restingTime;
     private final Library library;
+    private final AtomicLong remainingVisits;
 
     public Reader(Library library, int restingTime) {
+        this(library, restingTime, new AtomicLong(Long.MAX_VALUE));
+    }
+
+    /**
+     * @param remainingVisits Visits left for the whole run, shared by all actors; the reader stops when none are
+     *                        left.
+     */
+    public Reader(Library library, int restingTime, AtomicLong remainingVisits) {
         this.restingTime = restingTime;
         this.library = library;
+        this.remainingVisits = remainingVisits;
     }
 
     /**
-     * Core execution loop. Cycles between reading and resting.
+     * Core execution loop. Cycles between reading and resting until interrupted or out of visits.
      */
     @Override
     public void run() {
-        while (!Thread.currentThread().isInterrupted()) {
+        while (!Thread.currentThread().isInterrupted() && remainingVisits.getAndDecrement() > 0) {
             try {
                 int readingTime = ThreadLocalRandom.current().nextInt(1000, 3001);
                 library.startReading(readingTime);
-
-                Thread.sleep(readingTime);
-
-                library.stopReading();
+                try {
+                    Thread.sleep(readingTime);
+                } finally {
+                    // an interrupt while reading must not keep the slot taken
+                    library.stopReading();
+                }
                 Thread.sleep(restingTime);
 
             } catch (InterruptedException _) {
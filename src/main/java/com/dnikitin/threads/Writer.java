@@ -3,6 +3,7 @@ package com.dnikitin.threads;
 import com.dnikitin.model.Library;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a Writer thread that repeatedly attempts to write to the library.
@@ -10,25 +11,37 @@ import java.util.concurrent.ThreadLocalRandom;
 public class Writer implements Runnable {
     private final int restingTime;
     private final Library library;
+    private final AtomicLong remainingVisits;
+
     public Writer(Library library, int restingTime) {
+        this(library, restingTime, new AtomicLong(Long.MAX_VALUE));
+    }
+
+    /**
+     * @param remainingVisits Visits left for the whole run, shared by all actors; the writer stops when none are
+     *                        left.
+     */
+    public Writer(Library library, int restingTime, AtomicLong remainingVisits) {
         this.restingTime = restingTime;
         this.library = library;
+        this.remainingVisits = remainingVisits;
     }
 
     /**
-     * Core execution loop. Cycles between writing and resting.
+     * Core execution loop. Cycles between writing and resting until interrupted or out of visits.
      */
     @Override
     public void run() {
-        while (!Thread.currentThread().isInterrupted()) {
+        while (!Thread.currentThread().isInterrupted() && remainingVisits.getAndDecrement() > 0) {
             try {
                 int writingTime = ThreadLocalRandom.current().nextInt(1000, 3001);
                 library.startWriting(writingTime);
-
-
-                Thread.sleep(writingTime);
-
-                library.stopWriting();
+                try {
+                    Thread.sleep(writingTime);
+                } finally {
+                    // an interrupt while writing must not keep the library locked
+                    library.stopWriting();
+                }
                 Thread.sleep(restingTime);
 
             } catch (InterruptedException _) {
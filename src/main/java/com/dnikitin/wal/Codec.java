@@ -0,0 +1,30 @@
+package com.dnikitin.wal;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns values into bytes for the log and snapshots, and back.
+ *
+ * @param <T> Encoded type.
+ */
+public interface Codec<T> {
+
+    /**
+     * UTF-8 strings.
+     */
+    Codec<String> UTF8 = new Codec<>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    byte[] encode(T value);
+
+    T decode(byte[] bytes);
+}
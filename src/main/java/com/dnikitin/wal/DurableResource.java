@@ -0,0 +1,209 @@
+package com.dnikitin.wal;
+
+import com.dnikitin.model.Library;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.zip.CRC32C;
+
+/**
+ * State guarded by a {@link Library} whose writes survive a restart.
+ * <p>
+ * Writers describe a change as an operation value. Inside the library's write section the operation is applied
+ * to the current state and appended to a {@link WriteAheadLog}; the writer then leaves the library and only
+ * afterwards waits for the log to reach the disk, so writers that finish around the same time share one force
+ * and the exclusive section never includes an fsync. Readers read the current state without entering the
+ * library and may see a write shortly before it is durable.
+ * <p>
+ * Every {@code checkpointEvery} operations the state is written to a snapshot file and the log segments it
+ * covers are deleted. On startup the snapshot is loaded and the rest of the log is replayed on top of it.
+ *
+ * @param <S> State, must be immutable.
+ * @param <O> Operation.
+ */
+public class DurableResource<S, O> implements AutoCloseable {
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String LOG_DIRECTORY = "log";
+
+    private record Committed<S>(S state, long lsn) {
+    }
+
+    private final Library library;
+    private final Path directory;
+    private final WriteAheadLog log;
+    private final BiFunction<S, O, S> apply;
+    private final Codec<S> stateCodec;
+    private final Codec<O> operationCodec;
+    private final long checkpointEvery;
+
+    private volatile Committed<S> current;
+    private volatile long checkpointLsn;
+
+    /**
+     * Recovers the state from the directory, or starts from {@code initial} if it holds nothing yet.
+     *
+     * @param library         Library serializing the writers.
+     * @param directory       Holds the snapshot and the log.
+     * @param initial         State before the first operation.
+     * @param apply           Computes the next state from the current one and an operation, without side effects.
+     * @param stateCodec      Encodes snapshots.
+     * @param operationCodec  Encodes log records.
+     * @param checkpointEvery Number of operations between two snapshots.
+     * @throws IOException if the snapshot or the log cannot be read.
+     */
+    public DurableResource(Library library, Path directory, S initial, BiFunction<S, O, S> apply,
+                           Codec<S> stateCodec, Codec<O> operationCodec, long checkpointEvery) throws IOException {
+        if (library == null || apply == null || stateCodec == null || operationCodec == null || checkpointEvery < 1) {
+            throw new IllegalArgumentException("arguments must not be null and checkpointEvery must be positive");
+        }
+        this.library = library;
+        this.directory = directory;
+        this.apply = apply;
+        this.stateCodec = stateCodec;
+        this.operationCodec = operationCodec;
+        this.checkpointEvery = checkpointEvery;
+
+        Files.createDirectories(directory);
+        Committed<S> recovered = readSnapshot().orElse(new Committed<>(initial, 0L));
+        checkpointLsn = recovered.lsn();
+        this.log = new WriteAheadLog(directory.resolve(LOG_DIRECTORY));
+        // the tail after the last snapshot is at most about checkpointEvery records
+        List<WriteAheadLog.LogRecord> tail = new ArrayList<>();
+        log.replay(recovered.lsn(), tail::add);
+        S state = recovered.state();
+        long lsn = recovered.lsn();
+        for (WriteAheadLog.LogRecord record : tail) {
+            state = apply.apply(state, operationCodec.decode(record.payload()));
+            lsn = record.lsn();
+        }
+        current = new Committed<>(state, lsn);
+    }
+
+    /**
+     * @return Current state; may include a write that is not durable yet.
+     */
+    public S get() {
+        return current.state();
+    }
+
+    /**
+     * Applies an operation and returns once it is durable.
+     * If applying it throws, nothing is logged or changed.
+     *
+     * @return State after the operation.
+     * @throws InterruptedException if the thread is interrupted while waiting for the library or the disk.
+     * @throws UncheckedIOException if the log or a checkpoint cannot be written.
+     */
+    public S update(O operation) throws InterruptedException {
+        Committed<S> next;
+        library.startWriting(0);
+        try {
+            S state = apply.apply(current.state(), operation);
+            next = new Committed<>(state, log.append(operationCodec.encode(operation)));
+            current = next;
+        } finally {
+            library.stopWriting();
+        }
+        // outside the exclusive section, so writers finishing together share one force
+        log.sync(next.lsn());
+        if (next.lsn() - checkpointLsn >= checkpointEvery) {
+            checkpoint();
+        }
+        return next.state();
+    }
+
+    /**
+     * Writes the current state to the snapshot file and deletes the log segments it covers.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting for the disk.
+     * @throws UncheckedIOException if the snapshot cannot be written.
+     */
+    public void checkpoint() throws InterruptedException {
+        Committed<S> snapshot = current;
+        if (snapshot.lsn() <= checkpointLsn) {
+            return;
+        }
+        // the state may include writes whose writers have not synced yet; a snapshot ahead of the durable log
+        // would make a restarted log hand out its LSNs again, and replay would skip those records. Waited for
+        // outside the monitor, so no thread parks while holding it
+        log.sync(snapshot.lsn());
+        synchronized (this) {
+            if (snapshot.lsn() <= checkpointLsn) {
+                return;
+            }
+            try {
+                writeSnapshot(snapshot);
+                checkpointLsn = snapshot.lsn();
+                log.compact(snapshot.lsn());
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot write snapshot", e);
+            }
+        }
+    }
+
+    /**
+     * @return The log, e.g. to look at its force count.
+     */
+    public WriteAheadLog getLog() {
+        return log;
+    }
+
+    @Override
+    public void close() {
+        log.close();
+    }
+
+    // [long lsn][int crc32c of the state][state]
+    private void writeSnapshot(Committed<S> snapshot) throws IOException {
+        byte[] state = stateCodec.encode(snapshot.state());
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + state.length);
+        buffer.putLong(snapshot.lsn()).putInt(crc(state)).put(state).flip();
+
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        // readers of the directory see either the old or the new snapshot, never half of one
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Optional<Committed<S>> readSnapshot() throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < Long.BYTES + Integer.BYTES) {
+            throw new IOException("truncated snapshot " + file);
+        }
+        long lsn = buffer.getLong();
+        int crc = buffer.getInt();
+        byte[] state = new byte[buffer.remaining()];
+        buffer.get(state);
+        if (crc(state) != crc) {
+            throw new IOException("corrupt snapshot " + file);
+        }
+        return Optional.of(new Committed<>(stateCodec.decode(state), lsn));
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
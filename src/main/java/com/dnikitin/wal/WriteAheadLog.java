@@ -0,0 +1,407 @@
+package com.dnikitin.wal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of records in memory-mapped segment files, with group commit.
+ * <p>
+ * Records are numbered by a log sequence number (LSN) starting at 1 and stored as
+ * {@code [int length][int crc32c][long lsn][payload]}; the CRC covers the LSN and the payload, so a record torn by
+ * a crash is detected and cut off at the next start. A segment is named after the first LSN it holds and is
+ * forced to disk as a whole when the log rolls over to the next one.
+ * <p>
+ * {@link #append(byte[])} only copies into the mapping. {@link #sync(long)} makes a record durable: the first
+ * caller that finds the log not yet durable becomes the leader and forces everything appended so far, while
+ * callers arriving meanwhile wait and are covered by the next force. Concurrent writers therefore share one
+ * force instead of paying one each.
+ */
+public class WriteAheadLog implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_BYTES = 16 << 20;
+    static final int HEADER_BYTES = 16;
+    static final String SUFFIX = ".wal";
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    /**
+     * One record read back from the log.
+     */
+    public record LogRecord(long lsn, byte[] payload) {
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final long baseLsn;
+        private final Arena arena;
+        private final MemorySegment memory;
+        private int position;
+        private long lastLsn;
+
+        private Segment(Path path, long baseLsn, Arena arena, MemorySegment memory) {
+            this.path = path;
+            this.baseLsn = baseLsn;
+            this.arena = arena;
+            this.memory = memory;
+            this.lastLsn = baseLsn - 1;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    // oldest first, the last one is appended to; guarded by this
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long lastLsn;
+    private boolean closed;
+
+    // group commit: at most one leader forces at a time, the others wait for it
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition forced = syncLock.newCondition();
+    private boolean forcing;
+    private Segment forcedSegment;
+    private int forcedPosition;
+    private volatile long durableLsn;
+    private final LongAdder forceCount = new LongAdder();
+
+    /**
+     * Opens the log in the directory with {@link #DEFAULT_SEGMENT_BYTES} per segment.
+     */
+    public WriteAheadLog(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens the log in the directory, creating it if needed, and cuts off a torn tail or leftovers of a crash.
+     *
+     * @param directory    Holds the segment files.
+     * @param segmentBytes Size of a new segment file, which bounds the size of one record.
+     * @throws IOException if a segment cannot be mapped or a segment other than the last one is corrupt.
+     */
+    public WriteAheadLog(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < 2 * HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentBytes too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        try {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Segment segment = map(file, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())),
+                        Math.toIntExact(Files.size(file)));
+                segments.addLast(segment);
+                boolean intact = scan(segment, Long.MAX_VALUE, null);
+                if (!file.equals(files.getLast())) {
+                    if (!intact) {
+                        throw new IOException("corrupt log segment " + file);
+                    }
+                } else {
+                    // clear everything after the tail, torn or not: records written out of order before a crash
+                    // can leave bytes behind an end marker, and new records must never run into such leftovers
+                    segment.memory.asSlice(segment.position).fill((byte) 0);
+                    segment.memory.force();
+                }
+            }
+            if (segments.isEmpty()) {
+                segments.addLast(create(1L));
+            }
+        } catch (IOException | RuntimeException e) {
+            // nobody gets a log to close, so the segments mapped so far are unmapped here
+            segments.forEach(segment -> segment.arena.close());
+            throw e;
+        }
+        lastLsn = segments.getLast().lastLsn;
+        durableLsn = lastLsn;
+    }
+
+    /**
+     * Appends a record without waiting for it to reach the disk.
+     *
+     * @param payload Record content.
+     * @return LSN of the record, to be passed to {@link #sync(long)}.
+     * @throws IllegalArgumentException if the record does not fit in a segment.
+     * @throws UncheckedIOException     if a new segment cannot be created.
+     */
+    public synchronized long append(byte[] payload) {
+        ensureOpen();
+        int length = HEADER_BYTES + payload.length;
+        if (length > segmentBytes) {
+            throw new IllegalArgumentException("record of " + payload.length + " bytes does not fit in a segment");
+        }
+        Segment segment = segments.getLast();
+        if (segment.position + length > segment.memory.byteSize()) {
+            segment = roll();
+        }
+        long lsn = lastLsn + 1;
+        MemorySegment record = segment.memory.asSlice(segment.position, length);
+        record.set(LONG, 8, lsn);
+        MemorySegment.copy(payload, 0, record, ValueLayout.JAVA_BYTE, HEADER_BYTES, payload.length);
+        record.set(INT, 4, crc(lsn, payload));
+        // the length goes last: a record without it reads as the end of the log
+        record.set(INT, 0, length);
+
+        segment.position += length;
+        segment.lastLsn = lsn;
+        lastLsn = lsn;
+        return lsn;
+    }
+
+    /**
+     * Waits until the record with the given LSN, and every one before it, is on disk.
+     *
+     * @param lsn Value returned by {@link #append(byte[])}.
+     * @throws InterruptedException if the thread is interrupted while another caller is forcing.
+     * @throws UncheckedIOException if forcing fails.
+     */
+    public void sync(long lsn) throws InterruptedException {
+        if (durableLsn >= lsn) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            while (durableLsn < lsn) {
+                if (forcing) {
+                    forced.await();
+                } else {
+                    forceAsLeader();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Reads back every record with an LSN above the given one, in order.
+     */
+    public synchronized void replay(long afterLsn, Consumer<LogRecord> consumer) {
+        ensureOpen();
+        for (Segment segment : segments) {
+            if (segment.lastLsn > afterLsn) {
+                scan(segment, afterLsn, consumer);
+            }
+        }
+    }
+
+    /**
+     * Deletes the segments that only hold records up to the given LSN, typically after a snapshot covering them.
+     * The segment being appended to is always kept.
+     *
+     * @throws IOException if a segment file cannot be deleted.
+     */
+    public void compact(long upToLsn) throws IOException {
+        List<Segment> obsolete = new ArrayList<>();
+        synchronized (this) {
+            ensureOpen();
+            while (segments.size() > 1 && segments.getFirst().lastLsn <= upToLsn) {
+                obsolete.add(segments.removeFirst());
+            }
+        }
+        if (obsolete.isEmpty()) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            // a leader may still be forcing one of them
+            while (forcing) {
+                forced.awaitUninterruptibly();
+            }
+            for (Segment segment : obsolete) {
+                segment.arena.close();
+                Files.deleteIfExists(segment.path);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * @return LSN of the last appended record, 0 if the log has never been written.
+     */
+    public synchronized long getLastLsn() {
+        return lastLsn;
+    }
+
+    /**
+     * @return LSN up to which records are known to be on disk.
+     */
+    public long getDurableLsn() {
+        return durableLsn;
+    }
+
+    /**
+     * @return Number of forces issued by {@link #sync(long)}; with group commit usually far below the number of syncs.
+     */
+    public long getForceCount() {
+        return forceCount.sum();
+    }
+
+    /**
+     * @return Number of segment files currently in use.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Forces pending records and unmaps every segment.
+     */
+    @Override
+    public void close() {
+        syncLock.lock();
+        try {
+            while (forcing) {
+                forced.awaitUninterruptibly();
+            }
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                segments.getLast().memory.force();
+                durableLsn = lastLsn;
+                for (Segment segment : segments) {
+                    segment.arena.close();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // called with syncLock held; releases it while forcing so followers can queue up
+    private void forceAsLeader() {
+        long target;
+        Segment segment;
+        int from;
+        int to;
+        synchronized (this) {
+            ensureOpen();
+            target = lastLsn;
+            segment = segments.getLast();
+            // earlier segments were forced when the log rolled over
+            from = segment == forcedSegment ? forcedPosition : 0;
+            to = segment.position;
+        }
+        forcing = true;
+        syncLock.unlock();
+        boolean done = false;
+        try {
+            if (to > from) {
+                segment.memory.asSlice(from, to - from).force();
+                forceCount.increment();
+            }
+            done = true;
+        } finally {
+            syncLock.lock();
+            forcing = false;
+            if (done) {
+                forcedSegment = segment;
+                forcedPosition = to;
+                durableLsn = Math.max(durableLsn, target);
+            }
+            forced.signalAll();
+        }
+    }
+
+    // called with the monitor held
+    private Segment roll() {
+        Segment full = segments.getLast();
+        full.memory.force();
+        try {
+            Segment next = create(lastLsn + 1);
+            segments.addLast(next);
+            return next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot create log segment", e);
+        }
+    }
+
+    private Segment create(long baseLsn) throws IOException {
+        return map(directory.resolve(String.format("%019d%s", baseLsn, SUFFIX)), baseLsn, segmentBytes);
+    }
+
+    private static Segment map(Path path, long baseLsn, int size) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // mapping past the end grows the file to the full segment size
+            MemorySegment memory = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+            return new Segment(path, baseLsn, arena, memory);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    // walks the records of a segment, moving its position to the end; returns false at a torn record
+    private static boolean scan(Segment segment, long afterLsn, Consumer<LogRecord> consumer) {
+        MemorySegment memory = segment.memory;
+        long expectedLsn = segment.baseLsn;
+        int position = 0;
+        boolean intact = true;
+        while (position + HEADER_BYTES <= memory.byteSize()) {
+            int length = memory.get(INT, position);
+            if (length == 0) {
+                break;
+            }
+            if (length < HEADER_BYTES || position + (long) length > memory.byteSize()) {
+                intact = false;
+                break;
+            }
+            MemorySegment record = memory.asSlice(position, length);
+            long lsn = record.get(LONG, 8);
+            byte[] payload = record.asSlice(HEADER_BYTES).toArray(ValueLayout.JAVA_BYTE);
+            if (lsn != expectedLsn || record.get(INT, 4) != crc(lsn, payload)) {
+                intact = false;
+                break;
+            }
+            if (consumer != null && lsn > afterLsn) {
+                consumer.accept(new LogRecord(lsn, payload));
+            }
+            expectedLsn++;
+            position += length;
+        }
+        segment.position = position;
+        segment.lastLsn = expectedLsn - 1;
+        return intact;
+    }
+
+    // computed on the heap: checksums cannot read buffers of a shared arena directly
+    private static int crc(long lsn, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(lsn).flip());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("log is closed");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.dnikitin.workload;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/**
+ * Gaps between consecutive arrivals of an open-loop workload.
+ * <p>
+ * Implementations may keep state between calls (e.g. the current phase of a bursty process), so one instance
+ * belongs to one generator thread.
+ */
+@FunctionalInterface
+public interface ArrivalProcess {
+
+    /**
+     * @param random Source of randomness of the run.
+     * @return Nanoseconds from the previous arrival to the next one.
+     */
+    long nextGapNanos(RandomGenerator random);
+
+    /**
+     * Evenly spaced arrivals.
+     *
+     * @param perSecond Arrival rate.
+     */
+    static ArrivalProcess constant(double perSecond) {
+        long gap = meanGapNanos(perSecond);
+        return _ -> gap;
+    }
+
+    /**
+     * Poisson process: independent, exponentially distributed gaps.
+     *
+     * @param perSecond Mean arrival rate.
+     */
+    static ArrivalProcess poisson(double perSecond) {
+        long mean = meanGapNanos(perSecond);
+        return random -> Distributions.exponential(random, mean);
+    }
+
+    /**
+     * Two-state Markov-modulated Poisson process: the rate switches between a base and a burst rate,
+     * staying in each state for an exponentially distributed time.
+     *
+     * @param baseRate      Arrival rate per second outside bursts.
+     * @param burstRate     Arrival rate per second during bursts.
+     * @param meanBase      Mean time between bursts.
+     * @param meanBurst     Mean length of a burst.
+     */
+    static ArrivalProcess bursty(double baseRate, double burstRate, Duration meanBase, Duration meanBurst) {
+        return new MarkovModulatedArrivals(meanGapNanos(baseRate), meanGapNanos(burstRate),
+                meanBase.toNanos(), meanBurst.toNanos());
+    }
+
+    private static long meanGapNanos(double perSecond) {
+        if (!(perSecond > 0)) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        return Math.max(1L, Math.round(1e9 / perSecond));
+    }
+}
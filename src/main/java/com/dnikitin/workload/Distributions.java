@@ -0,0 +1,21 @@
+package com.dnikitin.workload;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Samplers shared by arrival processes and service times.
+ */
+final class Distributions {
+
+    private Distributions() {
+    }
+
+    static long exponential(RandomGenerator random, long meanNanos) {
+        // 1 - u is in (0, 1], so the logarithm stays finite
+        return Math.round(-meanNanos * Math.log(1.0 - random.nextDouble()));
+    }
+
+    static long lognormal(RandomGenerator random, long medianNanos, double sigma) {
+        return Math.round(medianNanos * Math.exp(sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.dnikitin.workload;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Poisson arrivals whose rate alternates between two states, see {@link ArrivalProcess#bursty}.
+ * <p>
+ * Exponential gaps are memoryless, so when a state ends before the next arrival, the gap drawn so far is
+ * discarded and a fresh one is drawn at the new rate from the moment of the switch.
+ */
+final class MarkovModulatedArrivals implements ArrivalProcess {
+    private final long[] meanGapNanos;
+    private final long[] meanDwellNanos;
+
+    private int state;
+    private long untilSwitch = -1;
+
+    MarkovModulatedArrivals(long baseGapNanos, long burstGapNanos, long meanBaseNanos, long meanBurstNanos) {
+        if (meanBaseNanos <= 0 || meanBurstNanos <= 0) {
+            throw new IllegalArgumentException("state durations must be positive");
+        }
+        this.meanGapNanos = new long[]{baseGapNanos, burstGapNanos};
+        this.meanDwellNanos = new long[]{meanBaseNanos, meanBurstNanos};
+    }
+
+    @Override
+    public long nextGapNanos(RandomGenerator random) {
+        if (untilSwitch < 0) {
+            untilSwitch = Distributions.exponential(random, meanDwellNanos[state]);
+        }
+        long gap = 0;
+        while (true) {
+            long next = Distributions.exponential(random, meanGapNanos[state]);
+            if (next < untilSwitch) {
+                untilSwitch -= next;
+                return gap + next;
+            }
+            gap += untilSwitch;
+            state ^= 1;
+            untilSwitch = Distributions.exponential(random, meanDwellNanos[state]);
+        }
+    }
+
+    /**
+     * @return true during a burst.
+     */
+    boolean inBurst() {
+        return state == 1;
+    }
+}
@@ -0,0 +1,135 @@
+package com.dnikitin.workload;
+
+import com.dnikitin.metrics.LogLinearHistogram;
+import com.dnikitin.model.Library;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link Library} with an open-loop {@link Workload}.
+ * <p>
+ * One generator thread walks the arrival schedule and starts a virtual thread per request at its intended
+ * arrival time, whether or not earlier requests have finished. Latency is measured from that intended time,
+ * not from when the request actually got going, so a stall in the library or in the generator itself shows up
+ * in the percentiles instead of silently thinning out the load (coordinated omission).
+ */
+public class OpenLoopDriver {
+    private final Library library;
+    private final Workload workload;
+
+    public OpenLoopDriver(Library library, Workload workload) {
+        if (library == null || workload == null) {
+            throw new IllegalArgumentException("library and workload must not be null");
+        }
+        this.library = library;
+        this.workload = workload;
+    }
+
+    /**
+     * Issues requests for the given time, then waits until all of them have completed.
+     *
+     * @param duration How long new requests keep arriving.
+     * @return Throughput and latency of the run.
+     */
+    public WorkloadResult run(Duration duration) throws InterruptedException {
+        return run(duration.toNanos(), Long.MAX_VALUE);
+    }
+
+    /**
+     * Issues the given number of requests, then waits until all of them have completed.
+     *
+     * @param operations Number of requests.
+     * @return Throughput and latency of the run.
+     */
+    public WorkloadResult run(long operations) throws InterruptedException {
+        return run(Long.MAX_VALUE, operations);
+    }
+
+    private WorkloadResult run(long durationNanos, long operations) throws InterruptedException {
+        if (durationNanos < 0 || operations < 0) {
+            throw new IllegalArgumentException("duration and operations must not be negative");
+        }
+        SplittableRandom random = new SplittableRandom(workload.seed());
+        LogLinearHistogram readLatency = new LogLinearHistogram();
+        LogLinearHistogram writeLatency = new LogLinearHistogram();
+        AtomicLong completed = new AtomicLong();
+        LongAccumulator lastCompletion = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        long maxLag = 0;
+        long issued = 0;
+
+        long start = System.nanoTime();
+        long intended = start;
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (issued < operations) {
+                intended += workload.arrivals().nextGapNanos(random);
+                if (intended - start >= durationNanos) {
+                    break;
+                }
+                boolean write = random.nextDouble() < workload.writerShare();
+                long service = (write ? workload.writeTime() : workload.readTime()).nextNanos(random);
+                maxLag = Math.max(maxLag, parkUntil(intended));
+
+                long arrival = intended;
+                LogLinearHistogram latency = write ? writeLatency : readLatency;
+                requests.execute(() -> {
+                    if (visit(write, service)) {
+                        long now = System.nanoTime();
+                        latency.record(TimeUnit.NANOSECONDS.toMicros(now - arrival));
+                        lastCompletion.accumulate(now);
+                        completed.incrementAndGet();
+                    }
+                });
+                issued++;
+            }
+        }
+
+        long elapsed = completed.get() == 0 ? 0 : lastCompletion.get() - start;
+        double offered = issued == 0 ? 0 : issued * 1e9 / Math.max(1L, intended - start);
+        double achieved = elapsed == 0 ? 0 : completed.get() * 1e9 / elapsed;
+        return new WorkloadResult(issued, completed.get(), elapsed, offered, achieved, maxLag,
+                readLatency.snapshot(), writeLatency.snapshot());
+    }
+
+    // returns how late the generator is; a late generator does not catch up by skipping requests
+    private static long parkUntil(long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return -remaining;
+    }
+
+    private boolean visit(boolean write, long serviceNanos) {
+        int millis = (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(serviceNanos));
+        try {
+            if (write) {
+                library.startWriting(millis);
+            } else {
+                library.startReading(millis);
+            }
+            try {
+                Thread.sleep(Duration.ofNanos(serviceNanos));
+            } finally {
+                if (write) {
+                    library.stopWriting();
+                } else {
+                    library.stopReading();
+                }
+            }
+            return true;
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.dnikitin.workload;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Time a reader or writer spends inside the library.
+ * <p>
+ * Like {@link ArrivalProcess}, an instance is drawn from by one generator thread only.
+ */
+@FunctionalInterface
+public interface ServiceTime {
+
+    /**
+     * @param random Source of randomness of the run.
+     * @return Service time in nanoseconds.
+     */
+    long nextNanos(RandomGenerator random);
+
+    /**
+     * Same time for every visit.
+     */
+    static ServiceTime fixed(Duration time) {
+        long nanos = nonNegative(time);
+        return _ -> nanos;
+    }
+
+    /**
+     * Uniformly distributed between the bounds, both inclusive; {@code uniform(1s, 3s)} is the classic runner.
+     */
+    static ServiceTime uniform(Duration min, Duration max) {
+        long low = nonNegative(min);
+        long high = nonNegative(max);
+        if (high < low) {
+            throw new IllegalArgumentException("max must not be below min");
+        }
+        return random -> random.nextLong(low, high + 1);
+    }
+
+    /**
+     * Exponentially distributed with the given mean.
+     */
+    static ServiceTime exponential(Duration mean) {
+        long nanos = nonNegative(mean);
+        return random -> Distributions.exponential(random, nanos);
+    }
+
+    /**
+     * Lognormal with the given median; {@code sigma} around 1 gives the long right tail typical for I/O.
+     */
+    static ServiceTime lognormal(Duration median, double sigma) {
+        long nanos = nonNegative(median);
+        if (!(sigma >= 0)) {
+            throw new IllegalArgumentException("sigma must not be negative");
+        }
+        return random -> Distributions.lognormal(random, nanos, sigma);
+    }
+
+    /**
+     * Replays recorded service times in order, starting over after the last one.
+     */
+    static ServiceTime trace(List<Duration> times) {
+        if (times.isEmpty()) {
+            throw new IllegalArgumentException("trace must not be empty");
+        }
+        long[] nanos = times.stream().mapToLong(ServiceTime::nonNegative).toArray();
+        int[] next = {0};
+        return _ -> {
+            long time = nanos[next[0]];
+            next[0] = (next[0] + 1) % nanos.length;
+            return time;
+        };
+    }
+
+    /**
+     * Reads a trace with one service time in (possibly fractional) milliseconds per line.
+     * Blank lines and lines starting with {@code #} are skipped.
+     */
+    static ServiceTime trace(Path file) throws IOException {
+        List<Duration> times;
+        try (var lines = Files.lines(file)) {
+            times = lines.map(String::strip)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(line -> Duration.ofNanos(Math.round(Double.parseDouble(line) * 1e6)))
+                    .toList();
+        }
+        return trace(times);
+    }
+
+    private static long nonNegative(Duration time) {
+        if (time.isNegative()) {
+            throw new IllegalArgumentException("time must not be negative");
+        }
+        return time.toNanos();
+    }
+}
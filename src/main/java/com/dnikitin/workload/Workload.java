@@ -0,0 +1,30 @@
+package com.dnikitin.workload;
+
+/**
+ * Description of an open-loop workload.
+ *
+ * @param arrivals    When requests arrive, independent of how fast earlier ones complete.
+ * @param writerShare Probability that a request is a write, between 0 and 1.
+ * @param readTime    Time a read spends inside the library.
+ * @param writeTime   Time a write spends inside the library.
+ * @param seed        Seed for request types and sampled times; the same seed gives the same schedule.
+ */
+public record Workload(ArrivalProcess arrivals, double writerShare, ServiceTime readTime, ServiceTime writeTime,
+                       long seed) {
+
+    public Workload {
+        if (arrivals == null || readTime == null || writeTime == null) {
+            throw new IllegalArgumentException("arrivals and service times must not be null");
+        }
+        if (!(writerShare >= 0 && writerShare <= 1)) {
+            throw new IllegalArgumentException("writerShare must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Same service time distribution for reads and writes.
+     */
+    public Workload(ArrivalProcess arrivals, double writerShare, ServiceTime serviceTime, long seed) {
+        this(arrivals, writerShare, serviceTime, serviceTime, seed);
+    }
+}
@@ -0,0 +1,34 @@
+package com.dnikitin.workload;
+
+import com.dnikitin.metrics.HistogramSnapshot;
+
+/**
+ * Outcome of an {@link OpenLoopDriver} run. Latencies are microseconds, measured from the intended arrival time.
+ *
+ * @param issued         Requests the schedule produced.
+ * @param completed      Requests that finished.
+ * @param elapsedNanos   Time from the first intended arrival to the last completion.
+ * @param offeredRate    Requests per second the schedule asked for.
+ * @param achievedRate   Completed requests per second.
+ * @param maxLagNanos    Largest delay of the generator behind its own schedule.
+ * @param readLatency    Latency of reads.
+ * @param writeLatency   Latency of writes.
+ */
+public record WorkloadResult(long issued, long completed, long elapsedNanos, double offeredRate, double achievedRate,
+                             long maxLagNanos, HistogramSnapshot readLatency, HistogramSnapshot writeLatency) {
+
+    /**
+     * @return Multi-line human-readable report.
+     */
+    public String describe() {
+        return String.format("""
+                        Issued %,d and completed %,d requests in %,d ms
+                        Offered %.1f/s, achieved %.1f/s, generator lag up to %,d us
+                        Read latency us:  mean %d, p50 %d, p99 %d, p99.9 %d, max %d
+                        Write latency us: mean %d, p50 %d, p99 %d, p99.9 %d, max %d""",
+                issued, completed, elapsedNanos / 1_000_000, offeredRate, achievedRate, maxLagNanos / 1_000,
+                readLatency.mean(), readLatency.p50(), readLatency.p99(), readLatency.p999(), readLatency.max(),
+                writeLatency.mean(), writeLatency.p50(), writeLatency.p99(), writeLatency.p999(),
+                writeLatency.max());
+    }
+}
@@ -1,6 +1,17 @@
 package com.dnikitin;
 
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.PhaseFairLockStrategy;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import com.dnikitin.metrics.FairnessAuditor;
+import com.dnikitin.metrics.RunSummary;
+import com.dnikitin.model.Library;
+import com.dnikitin.workload.Workload;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -52,4 +63,99 @@ class LibraryRunnerTest {
                 () -> assertEquals(2000, params.restingTime())
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldParseSimulationFlagsNextToPositionalArguments() {
+        String[] args = {"--simulate", "8", "--seed=7", "4", "--cycles=500"};
+
+        LibraryRunner.SimulationParams params = LibraryRunner.parseArguments(args);
+        LibraryRunner.VirtualClockParams virtualClock = LibraryRunner.parseVirtualClock(args).orElseThrow();
+
+        assertAll(
+                () -> assertEquals(8, params.numReaders()),
+                () -> assertEquals(4, params.numWriters()),
+                () -> assertEquals(7, virtualClock.seed()),
+                () -> assertEquals(500, virtualClock.cycles())
+        );
+    }
+
+    @Test
+    void shouldStayOnRealThreadsWithoutSimulateFlag() {
+        assertTrue(LibraryRunner.parseVirtualClock(new String[]{"5", "2", "--seed=7"}).isEmpty());
+        assertEquals(1_000_000, LibraryRunner.parseVirtualClock(new String[]{"--simulate", "--cycles=x"})
+                .orElseThrow().cycles());
+    }
+
+    @Test
+    void shouldBuildOpenLoopWorkloadFromFlags() throws Exception {
+        String[] args = {"9", "1", "--rate=50", "--arrivals=bursty", "--service=exponential", "--seed=3"};
+
+        LibraryRunner.OpenLoopParams openLoop = LibraryRunner.parseOpenLoop(args).orElseThrow();
+        Workload workload = LibraryRunner.workloadOf(LibraryRunner.parseArguments(args), openLoop);
+
+        assertAll(
+                () -> assertEquals(new LibraryRunner.OpenLoopParams(50, "bursty", "exponential", 3), openLoop),
+                () -> assertEquals(0.1, workload.writerShare(), 1e-9),
+                () -> assertEquals(3, workload.seed()),
+                () -> assertTrue(LibraryRunner.parseOpenLoop(new String[]{"--rate=0"}).isEmpty()),
+                () -> assertThrows(IllegalArgumentException.class, () -> LibraryRunner.workloadOf(
+                        LibraryRunner.parseArguments(args),
+                        new LibraryRunner.OpenLoopParams(1, "gamma", "uniform", 1)))
+        );
+    }
+
+    @Test
+    void shouldParseRunLimits() {
+        LibraryRunner.RunLimits limits = LibraryRunner.parseLimits(new String[]{"5", "--duration=30", "--operations=x"});
+
+        assertEquals(new LibraryRunner.RunLimits(Duration.ofSeconds(30), 0), limits);
+        assertTrue(limits.isBounded());
+        assertFalse(LibraryRunner.parseLimits(new String[]{"--duration=-1"}).isBounded());
+    }
+
+    @Test
+    void shouldParseAuditFlag() {
+        assertTrue(LibraryRunner.parseAudit(new String[]{"5", "2"}).isEmpty());
+        assertEquals(Optional.of(FairnessAuditor.DEFAULT_WAIT_BOUND), LibraryRunner.parseAudit(new String[]{"--audit"}));
+        assertEquals(Optional.of(Duration.ofMillis(250)), LibraryRunner.parseAudit(new String[]{"--audit=250"}));
+        assertEquals(Optional.of(FairnessAuditor.DEFAULT_WAIT_BOUND), LibraryRunner.parseAudit(new String[]{"--audit=x"}));
+    }
+
+    @Test
+    @Timeout(value = 10)
+    void shouldInterruptAndDrainActorsWhenDurationEnds() throws InterruptedException {
+        Library library = new Library(new SemaphoreLockStrategy(Library.DEFAULT_MAX_READERS), EventRecorder.DISABLED);
+        LibraryRunner.SimulationParams params = new LibraryRunner.SimulationParams(6, 2, 0);
+
+        RunSummary summary = LibraryRunner.runActors(library, params,
+                new LibraryRunner.RunLimits(Duration.ofMillis(500), 0));
+
+        assertTrue(library.getRunningList().isEmpty());
+        assertTrue(library.getWaitingList().isEmpty());
+        // interrupted visits still leave the library, so they are counted
+        assertTrue(summary.readerOps() + summary.writerOps() > 0);
+        assertTrue(summary.maxQueueLength() >= 1);
+        assertTrue(summary.elapsed().compareTo(Duration.ofSeconds(3)) < 0);
+        assertTrue(summary.readerSlotUtilization() > 0 && summary.readerSlotUtilization() <= 1);
+    }
+
+    @Test
+    @Timeout(value = 10)
+    void shouldStopAfterOperationBudget() throws InterruptedException {
+        Library library = new Library(new SemaphoreLockStrategy(Library.DEFAULT_MAX_READERS), EventRecorder.DISABLED);
+
+        RunSummary summary = LibraryRunner.runActors(library, new LibraryRunner.SimulationParams(3, 1, 0),
+                new LibraryRunner.RunLimits(Duration.ZERO, 2));
+
+        assertEquals(2, summary.readerOps() + summary.writerOps());
+        assertTrue(summary.describe().contains("Longest queue"));
+    }
+
+    @Test
+    void shouldSelectPolicyByName() {
+        assertEquals(LibraryRunner.Policy.PHASE_FAIR, LibraryRunner.Policy.parse(new String[]{"--policy=phase-fair"}));
+        assertEquals(LibraryRunner.Policy.BATCH, LibraryRunner.Policy.parse(new String[]{"--policy=batch"}));
+        assertEquals(LibraryRunner.Policy.FIFO, LibraryRunner.Policy.parse(new String[]{"--policy=lifo"}));
+        assertInstanceOf(PhaseFairLockStrategy.class, LibraryRunner.Policy.PHASE_FAIR.newStrategy(2));
+    }
+}
@@ -0,0 +1,152 @@
+package com.dnikitin.event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncEventRecorderTest {
+
+    @Test
+    @Timeout(value = 5)
+    void shouldFormatEventsOnBackgroundThread() {
+        StringBuffer output = new StringBuffer();
+        AsyncEventRecorder recorder = new AsyncEventRecorder(output::append, 16, 1);
+        Thread thread = Thread.currentThread();
+
+        recorder.record(EventType.ARRIVED, thread, 0, 1, 0);
+        recorder.record(EventType.READING, thread, 1500, 0, 1);
+        recorder.record(EventType.LEFT, thread, 0, 0, 0);
+        recorder.close();
+
+        String name = thread.getName();
+        assertThat(output.toString())
+                .contains("Event: " + name + " wants to enter.")
+                .contains("Event: " + name + " is inside. Reading for 1500 ms.")
+                .contains("Event: " + name + " leaves.")
+                .contains("In queue (1)")
+                .contains("Inside (1)");
+        assertThat(output.toString().indexOf("wants to enter"))
+                .isLessThan(output.toString().indexOf("leaves"));
+        assertEquals(0, recorder.getDroppedCount());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void shouldListThreadNamesWhenAsked() {
+        StringBuffer output = new StringBuffer();
+        AsyncEventRecorder recorder = new AsyncEventRecorder(output::append, 16, 1, true);
+        Thread thread = Thread.currentThread();
+
+        assertTrue(recorder.recordsThreads());
+        recorder.record(EventType.ARRIVED, thread, 0, () -> List.of(thread), List::of);
+        recorder.record(EventType.READING, thread, 10, List::of, () -> List.of(thread));
+        recorder.close();
+
+        String name = thread.getName();
+        assertThat(output.toString())
+                .contains("In queue (1) : " + name)
+                .contains("Inside (1) : " + name);
+        try (AsyncEventRecorder countsOnly = new AsyncEventRecorder(_ -> {
+        }, 16, 1)) {
+            assertFalse(countsOnly.recordsThreads());
+        }
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void sampledOutEventsShouldNotTakeSnapshots() {
+        StringBuffer output = new StringBuffer();
+        AsyncEventRecorder recorder = new AsyncEventRecorder(output::append, 4096, 100, true);
+        AtomicInteger snapshots = new AtomicInteger();
+        Supplier<List<Thread>> counting = () -> {
+            snapshots.incrementAndGet();
+            return List.of();
+        };
+
+        for (int i = 0; i < 2000; i++) {
+            recorder.record(EventType.LEFT, Thread.currentThread(), 0, counting, List::of);
+        }
+        recorder.close();
+
+        long recorded = output.toString().lines().filter(line -> line.startsWith("Event:")).count();
+        assertEquals(recorded, snapshots.get(), "Only kept events take a snapshot");
+        assertThat(recorded).isLessThan(200L);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void shouldDropInsteadOfBlockingWhenFull() throws InterruptedException {
+        CountDownLatch consumerStuck = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncEventRecorder recorder = new AsyncEventRecorder(text -> {
+            consumerStuck.countDown();
+            try {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        }, 4, 1);
+
+        // the first event is taken by the consumer, which then blocks in the sink
+        recorder.record(EventType.ARRIVED, Thread.currentThread(), 0, 0, 0);
+        assertTrue(consumerStuck.await(2, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 10; i++) {
+            recorder.record(EventType.LEFT, Thread.currentThread(), 0, 0, 0);
+        }
+
+        assertEquals(6, recorder.getDroppedCount());
+        release.countDown();
+        recorder.close();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void shouldRecordOnlySampleOfEvents() {
+        StringBuffer output = new StringBuffer();
+        AsyncEventRecorder recorder = new AsyncEventRecorder(output::append, 4096, 100);
+
+        for (int i = 0; i < 2000; i++) {
+            recorder.record(EventType.LEFT, Thread.currentThread(), 0, 0, 0);
+        }
+        recorder.close();
+
+        long recorded = output.toString().lines().filter(line -> line.startsWith("Event:")).count();
+        assertThat(recorded).isBetween(1L, 200L);
+    }
+
+    @Test
+    void shouldIgnoreEventsAfterClose() {
+        StringBuffer output = new StringBuffer();
+        AsyncEventRecorder recorder = new AsyncEventRecorder(output::append, 4, 1);
+        recorder.close();
+
+        recorder.record(EventType.ARRIVED, Thread.currentThread(), 0, 0, 0);
+
+        assertThat(output.toString()).isEmpty();
+    }
+
+    @Test
+    void disabledRecorderShouldAcceptEverything() {
+        assertDoesNotThrow(() -> {
+            EventRecorder.DISABLED.record(EventType.WRITING, Thread.currentThread(), 10, 0, 1);
+            EventRecorder.DISABLED.close();
+        });
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncEventRecorder(_ -> {
+        }, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncEventRecorder(_ -> {
+        }, 8, 0));
+    }
+}
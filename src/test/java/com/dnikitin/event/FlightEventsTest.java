@@ -0,0 +1,74 @@
+package com.dnikitin.event;
+
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import com.dnikitin.model.Library;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightEventsTest {
+
+    @Test
+    void shouldRecordLifecycleOfEveryVisit(@TempDir Path dir) throws Exception {
+        Library library = new Library(new SemaphoreLockStrategy(2), EventRecorder.DISABLED);
+        Path file = dir.resolve("library.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("com.dnikitin.LibraryEnqueue");
+            recording.enable("com.dnikitin.LibraryAdmit");
+            recording.enable("com.dnikitin.LibraryLeave");
+            recording.enable("com.dnikitin.LibraryAbandon");
+            recording.start();
+
+            library.startWriting(0);
+            Thread.sleep(20);
+            Thread.ofVirtual().name("Reader-1").start(() -> assertFalse(library.tryStartReading())).join();
+            library.stopWriting();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertThat(events).extracting(e -> e.getEventType().getName()).containsExactlyInAnyOrder(
+                "com.dnikitin.LibraryEnqueue", "com.dnikitin.LibraryAdmit", "com.dnikitin.LibraryLeave",
+                "com.dnikitin.LibraryEnqueue", "com.dnikitin.LibraryAbandon");
+
+        RecordedEvent leave = only(events, "com.dnikitin.LibraryLeave");
+        assertEquals(Thread.currentThread().getName(), leave.getString("visitor"));
+        assertEquals("WRITER", leave.getString("role"));
+        assertThat(leave.getDuration("holdDuration")).isGreaterThanOrEqualTo(Duration.ofMillis(20));
+
+        RecordedEvent abandon = only(events, "com.dnikitin.LibraryAbandon");
+        assertEquals("Reader-1", abandon.getString("visitor"));
+        assertEquals("READER", abandon.getString("role"));
+        assertEquals(0, only(events, "com.dnikitin.LibraryAdmit").getInt("queueLength"));
+    }
+
+    @Test
+    void shouldEmitNothingWithoutRecording() {
+        // no recording is running, so every call stops at shouldCommit()
+        for (int i = 0; i < 1_000; i++) {
+            FlightEvents.enqueued(Thread.currentThread(), "READER", i, 1);
+            FlightEvents.admitted(Thread.currentThread(), "READER", i, 0, 0);
+            FlightEvents.left(Thread.currentThread(), "READER", i, 0, 0);
+            FlightEvents.abandoned(Thread.currentThread(), "READER", i, 0);
+        }
+        assertFalse(new LibraryAdmitEvent().isEnabled());
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+        assertEquals(1, matching.size(), name);
+        return matching.getFirst();
+    }
+}
@@ -0,0 +1,150 @@
+package com.dnikitin.lock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchAdmissionLockStrategyTest {
+    private final BatchAdmissionLockStrategy strategy = new BatchAdmissionLockStrategy(3);
+
+    @Test
+    @Timeout(value = 5)
+    void leavingWriterShouldAdmitTheFrontRunOfReadersUpToTheLimit() throws InterruptedException {
+        long writerStamp = strategy.acquireWrite();
+        CountDownLatch readersIn = new CountDownLatch(4);
+        CountDownLatch leave = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            readers.add(startReader(readersIn, leave));
+            awaitWaiting(readers);
+        }
+
+        strategy.releaseWrite(writerStamp);
+
+        assertFalse(readersIn.await(200, TimeUnit.MILLISECONDS), "Only three readers fit");
+        assertEquals(1L, readersIn.getCount());
+        leave.countDown();
+        assertTrue(readersIn.await(2, TimeUnit.SECONDS), "The fourth enters once one of the three leaves");
+        for (Thread reader : readers) {
+            reader.join();
+        }
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void writerQueuedBetweenReadersShouldSplitTheRun() throws InterruptedException {
+        long writerStamp = strategy.acquireWrite();
+        CountDownLatch firstIn = new CountDownLatch(1);
+        CountDownLatch leave = new CountDownLatch(1);
+        Thread first = startReader(firstIn, leave);
+        awaitWaiting(List.of(first));
+        AtomicLong secondWriter = new AtomicLong();
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                secondWriter.set(strategy.acquireWrite());
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        awaitWaiting(List.of(writer));
+
+        strategy.releaseWrite(writerStamp);
+
+        assertTrue(firstIn.await(2, TimeUnit.SECONDS));
+        assertEquals(0L, strategy.tryAcquireRead(0, TimeUnit.MILLISECONDS),
+                "A reader behind the waiting writer must not overtake it");
+        leave.countDown();
+        writer.join();
+        assertNotEquals(0L, secondWriter.get());
+        strategy.releaseWrite(secondWriter.get());
+        first.join();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void downgradeShouldAdmitTheWaitingReaders() throws InterruptedException {
+        long writerStamp = strategy.acquireWrite();
+        CountDownLatch readersIn = new CountDownLatch(2);
+        CountDownLatch leave = new CountDownLatch(1);
+        List<Thread> readers = List.of(startReader(readersIn, leave), startReader(readersIn, leave));
+        awaitWaiting(readers);
+
+        long readStamp = strategy.downgradeToRead(writerStamp);
+
+        assertTrue(readersIn.await(2, TimeUnit.SECONDS));
+        assertEquals(0L, strategy.tryAcquireRead(0, TimeUnit.MILLISECONDS), "The downgraded writer holds a slot");
+        strategy.releaseRead(readStamp);
+        leave.countDown();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void writerGivingUpAtTheHeadShouldReleaseReadersBehindIt() throws InterruptedException {
+        long reader = strategy.acquireRead();
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                assertEquals(0L, strategy.tryAcquireWrite(300, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        awaitWaiting(List.of(writer));
+
+        long blocked = strategy.tryAcquireRead(2, TimeUnit.SECONDS);
+
+        assertNotEquals(0L, blocked);
+        writer.join();
+        strategy.releaseRead(blocked);
+        strategy.releaseRead(reader);
+        strategy.releaseWrite(strategy.acquireWrite());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void interruptedReaderShouldLeaveNoTrace() throws InterruptedException {
+        long writerStamp = strategy.acquireWrite();
+        Thread reader = Thread.ofVirtual().start(() -> {
+            assertThrows(InterruptedException.class, strategy::acquireRead);
+        });
+        awaitWaiting(List.of(reader));
+
+        reader.interrupt();
+        reader.join();
+        strategy.releaseWrite(writerStamp);
+
+        long next = strategy.tryAcquireWrite(0, TimeUnit.MILLISECONDS);
+        assertNotEquals(0L, next);
+        strategy.releaseWrite(next);
+    }
+
+    private Thread startReader(CountDownLatch entered, CountDownLatch leave) {
+        return Thread.ofVirtual().start(() -> {
+            try {
+                long stamp = strategy.acquireRead();
+                entered.countDown();
+                leave.await();
+                strategy.releaseRead(stamp);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(5);
+            }
+        }
+    }
+}
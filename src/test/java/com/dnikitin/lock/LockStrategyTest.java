@@ -0,0 +1,398 @@
+package com.dnikitin.lock;
+
+import com.dnikitin.model.Library;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contract tests shared by every {@link LockStrategy} implementation.
+ */
+class LockStrategyTest {
+    private static final int MAX_READERS = 3;
+
+    static Stream<Supplier<LockStrategy>> allStrategies() {
+        return Stream.concat(strategies(),
+                Stream.of(() -> new ReaderBiasedLockStrategy(new SemaphoreLockStrategy(MAX_READERS))));
+    }
+
+    static Stream<Supplier<LockStrategy>> strategies() {
+        return Stream.of(
+                () -> new SemaphoreLockStrategy(MAX_READERS),
+                () -> new BatchAdmissionLockStrategy(MAX_READERS),
+                () -> new ReadWriteLockStrategy(MAX_READERS, true),
+                () -> new ReadWriteLockStrategy(MAX_READERS, false),
+                () -> new StampedLockStrategy(MAX_READERS),
+                () -> new PhaseFairLockStrategy(MAX_READERS)
+        );
+    }
+
+    static Stream<Supplier<LockStrategy>> convertibleStrategies() {
+        return Stream.of(
+                () -> new SemaphoreLockStrategy(MAX_READERS),
+                () -> new PhaseFairLockStrategy(MAX_READERS)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    @Timeout(value = 5)
+    void shouldCapConcurrentReaders(Supplier<LockStrategy> factory) throws InterruptedException {
+        LockStrategy strategy = factory.get();
+        long[] stamps = new long[MAX_READERS];
+        for (int i = 0; i < MAX_READERS; i++) {
+            stamps[i] = strategy.acquireRead();
+        }
+
+        CountDownLatch entered = new CountDownLatch(1);
+        Thread extraReader = Thread.ofVirtual().start(() -> {
+            try {
+                long stamp = strategy.acquireRead();
+                entered.countDown();
+                strategy.releaseRead(stamp);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(entered.await(200, TimeUnit.MILLISECONDS), "Reader above the limit must wait");
+
+        strategy.releaseRead(stamps[0]);
+        assertTrue(entered.await(2, TimeUnit.SECONDS), "Reader should enter once a slot is free");
+        extraReader.join();
+
+        for (int i = 1; i < MAX_READERS; i++) {
+            strategy.releaseRead(stamps[i]);
+        }
+        assertEquals(MAX_READERS, strategy.getMaxReaders());
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    @Timeout(value = 5)
+    void shouldGiveWriterExclusiveAccess(Supplier<LockStrategy> factory) throws InterruptedException {
+        LockStrategy strategy = factory.get();
+        long writeStamp = strategy.acquireWrite();
+
+        CountDownLatch readerEntered = new CountDownLatch(1);
+        Thread reader = Thread.ofVirtual().start(() -> {
+            try {
+                long stamp = strategy.acquireRead();
+                readerEntered.countDown();
+                strategy.releaseRead(stamp);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(readerEntered.await(200, TimeUnit.MILLISECONDS), "Reader must wait for the writer");
+
+        strategy.releaseWrite(writeStamp);
+        assertTrue(readerEntered.await(2, TimeUnit.SECONDS));
+        reader.join();
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    @Timeout(value = 5)
+    void shouldMakeWriterWaitForReaders(Supplier<LockStrategy> factory) throws InterruptedException {
+        LockStrategy strategy = factory.get();
+        long readStamp = strategy.acquireRead();
+
+        CountDownLatch writerEntered = new CountDownLatch(1);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                long stamp = strategy.acquireWrite();
+                writerEntered.countDown();
+                strategy.releaseWrite(stamp);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(writerEntered.await(200, TimeUnit.MILLISECONDS), "Writer must wait for the reader");
+
+        strategy.releaseRead(readStamp);
+        assertTrue(writerEntered.await(2, TimeUnit.SECONDS));
+        writer.join();
+    }
+
+    @Test
+    void stampedLockShouldInvalidateOptimisticReadAfterWrite() throws InterruptedException {
+        LockStrategy strategy = new StampedLockStrategy(MAX_READERS);
+
+        long stamp = strategy.tryOptimisticRead();
+        assertNotEquals(0L, stamp);
+        assertTrue(strategy.validate(stamp));
+
+        strategy.releaseWrite(strategy.acquireWrite());
+
+        assertFalse(strategy.validate(stamp), "A writer entered since the stamp was issued");
+    }
+
+    @Test
+    void semaphoreShouldNotSupportOptimisticReads() {
+        LockStrategy strategy = new SemaphoreLockStrategy(MAX_READERS);
+
+        assertEquals(0L, strategy.tryOptimisticRead());
+        assertFalse(strategy.validate(0L));
+    }
+
+    @Test
+    void shouldRejectNonPositiveReaderLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new SemaphoreLockStrategy(0));
+        assertThrows(IllegalArgumentException.class, () -> new ReadWriteLockStrategy(0, true));
+        assertThrows(IllegalArgumentException.class, () -> new StampedLockStrategy(-1));
+        assertThrows(IllegalArgumentException.class, () -> new PhaseFairLockStrategy(0));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    @Timeout(value = 5)
+    void libraryShouldFallBackToRegularReadWhenOptimisticFails(Supplier<LockStrategy> factory) throws InterruptedException {
+        Library library = new Library(factory.get());
+
+        String result = library.readOptimistically(() -> "value");
+
+        assertEquals("value", result);
+        assertThat(library.getRunningList()).isEmpty();
+        assertEquals(MAX_READERS, library.getMaxReaders());
+    }
+
+    @ParameterizedTest
+    @MethodSource("allStrategies")
+    @Timeout(value = 5)
+    void timedAcquisitionShouldGiveUpCleanly(Supplier<LockStrategy> factory) throws InterruptedException {
+        LockStrategy strategy = factory.get();
+        long writeStamp = strategy.acquireWrite();
+
+        Thread contender = Thread.ofVirtual().start(() -> {
+            try {
+                assertEquals(0L, strategy.tryAcquireRead(100, TimeUnit.MILLISECONDS));
+                assertEquals(0L, strategy.tryAcquireWrite(0, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        contender.join();
+        strategy.releaseWrite(writeStamp);
+
+        // nothing was leaked: a writer still gets exclusive access
+        writeStamp = strategy.tryAcquireWrite(1, TimeUnit.SECONDS);
+        assertNotEquals(0L, writeStamp);
+        strategy.releaseWrite(writeStamp);
+        long readStamp = strategy.tryAcquireRead(Long.MAX_VALUE, TimeUnit.DAYS);
+        assertNotEquals(0L, readStamp);
+        strategy.releaseRead(readStamp);
+    }
+
+    @ParameterizedTest
+    @MethodSource("allStrategies")
+    @Timeout(value = 5)
+    void timedWriterShouldEnterWhenReaderLeavesInTime(Supplier<LockStrategy> factory) throws InterruptedException {
+        LockStrategy strategy = factory.get();
+        long readStamp = strategy.acquireRead();
+
+        CountDownLatch entered = new CountDownLatch(1);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                long stamp = strategy.tryAcquireWrite(3, TimeUnit.SECONDS);
+                if (stamp != 0L) {
+                    entered.countDown();
+                    strategy.releaseWrite(stamp);
+                }
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Thread.sleep(100);
+        strategy.releaseRead(readStamp);
+        assertTrue(entered.await(2, TimeUnit.SECONDS));
+        writer.join();
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    @Timeout(value = 5)
+    void raisedLimitShouldApplyOnceOldReadersLeave(Supplier<LockStrategy> factory) throws InterruptedException {
+        LockStrategy strategy = factory.get();
+        long[] old = new long[MAX_READERS];
+        for (int i = 0; i < MAX_READERS; i++) {
+            old[i] = strategy.acquireRead();
+        }
+
+        strategy.setMaxReaders(MAX_READERS + 2);
+        assertEquals(MAX_READERS + 2, strategy.getMaxReaders());
+        for (long stamp : old) {
+            strategy.releaseRead(stamp);
+        }
+
+        long[] stamps = new long[MAX_READERS + 2];
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i] = strategy.tryAcquireRead(0, TimeUnit.MILLISECONDS);
+            assertNotEquals(0L, stamps[i], "Reader " + (i + 1) + " fits under the raised limit");
+        }
+        assertEquals(0L, strategy.tryAcquireRead(0, TimeUnit.MILLISECONDS), "Raised limit is still a limit");
+        assertEquals(0L, strategy.tryAcquireWrite(0, TimeUnit.MILLISECONDS), "Writer must wait for every reader");
+        for (long stamp : stamps) {
+            strategy.releaseRead(stamp);
+        }
+        strategy.releaseWrite(strategy.acquireWrite());
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    @Timeout(value = 5)
+    void loweredLimitShouldDrainBeforeAdmittingMoreReaders(Supplier<LockStrategy> factory) throws InterruptedException {
+        LockStrategy strategy = factory.get();
+        long[] stamps = new long[MAX_READERS];
+        for (int i = 0; i < MAX_READERS; i++) {
+            stamps[i] = strategy.acquireRead();
+        }
+
+        strategy.setMaxReaders(1);
+
+        // two of the three old readers leave, one is still inside so the single slot is taken
+        strategy.releaseRead(stamps[0]);
+        strategy.releaseRead(stamps[1]);
+        assertEquals(0L, strategy.tryAcquireRead(0, TimeUnit.MILLISECONDS));
+        assertEquals(0L, strategy.tryAcquireWrite(0, TimeUnit.MILLISECONDS), "Writer must wait for the last reader");
+
+        strategy.releaseRead(stamps[2]);
+        long stamp = strategy.tryAcquireRead(0, TimeUnit.MILLISECONDS);
+        assertNotEquals(0L, stamp);
+        strategy.releaseRead(stamp);
+        strategy.releaseWrite(strategy.acquireWrite());
+    }
+
+    @ParameterizedTest
+    @MethodSource("allStrategies")
+    void shouldRejectInvalidLimitChange(Supplier<LockStrategy> factory) {
+        LockStrategy strategy = factory.get();
+
+        assertThrows(IllegalArgumentException.class, () -> strategy.setMaxReaders(0));
+        assertEquals(MAX_READERS, strategy.getMaxReaders());
+    }
+
+    @ParameterizedTest
+    @MethodSource("convertibleStrategies")
+    @Timeout(value = 5)
+    void upgradeShouldWaitForOtherReadersAndGoBeforeWaitingWriter(Supplier<LockStrategy> factory)
+            throws InterruptedException {
+        LockStrategy strategy = factory.get();
+        long upgraderRead = strategy.acquireRead();
+        long otherRead = strategy.acquireRead();
+        CountDownLatch writerEntered = new CountDownLatch(1);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                long stamp = strategy.acquireWrite();
+                writerEntered.countDown();
+                strategy.releaseWrite(stamp);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(100);
+        CountDownLatch upgraded = new CountDownLatch(1);
+        long[] writeStamp = new long[1];
+        Thread upgrader = Thread.ofVirtual().start(() -> {
+            try {
+                writeStamp[0] = strategy.upgradeToWrite(upgraderRead);
+                upgraded.countDown();
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(upgraded.await(200, TimeUnit.MILLISECONDS), "Upgrader must wait for the other reader");
+        assertEquals(0L, strategy.upgradeToWrite(otherRead), "Only one reader can upgrade at a time");
+        strategy.releaseRead(otherRead);
+
+        assertTrue(upgraded.await(2, TimeUnit.SECONDS));
+        upgrader.join();
+        assertFalse(writerEntered.await(100, TimeUnit.MILLISECONDS), "Waiting writer must not slip in");
+        assertEquals(0L, strategy.tryAcquireRead(0, TimeUnit.MILLISECONDS));
+        strategy.releaseWrite(writeStamp[0]);
+        assertTrue(writerEntered.await(2, TimeUnit.SECONDS));
+        writer.join();
+    }
+
+    @ParameterizedTest
+    @MethodSource("convertibleStrategies")
+    @Timeout(value = 5)
+    void interruptedUpgradeShouldKeepTheRead(Supplier<LockStrategy> factory) throws InterruptedException {
+        LockStrategy strategy = factory.get();
+        long upgraderRead = strategy.acquireRead();
+        long otherRead = strategy.acquireRead();
+        Thread upgrader = Thread.ofVirtual().start(
+                () -> assertThrows(InterruptedException.class, () -> strategy.upgradeToWrite(upgraderRead)));
+        Thread.sleep(100);
+
+        upgrader.interrupt();
+        upgrader.join();
+
+        assertEquals(0L, strategy.tryAcquireWrite(0, TimeUnit.MILLISECONDS), "Both reads are still held");
+        strategy.releaseRead(otherRead);
+        strategy.releaseRead(upgraderRead);
+        long stamp = strategy.tryAcquireWrite(0, TimeUnit.MILLISECONDS);
+        assertNotEquals(0L, stamp, "Nothing was leaked by the failed upgrade");
+        strategy.releaseWrite(stamp);
+    }
+
+    @ParameterizedTest
+    @MethodSource("convertibleStrategies")
+    @Timeout(value = 5)
+    void downgradeShouldAdmitWaitingReadersButNoWriter(Supplier<LockStrategy> factory)
+            throws InterruptedException {
+        LockStrategy strategy = factory.get();
+        long writeStamp = strategy.acquireWrite();
+        CountDownLatch readerEntered = new CountDownLatch(1);
+        Thread reader = Thread.ofVirtual().start(() -> {
+            try {
+                long stamp = strategy.acquireRead();
+                readerEntered.countDown();
+                strategy.releaseRead(stamp);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(100);
+
+        long readStamp = strategy.downgradeToRead(writeStamp);
+
+        assertTrue(readerEntered.await(2, TimeUnit.SECONDS));
+        reader.join();
+        assertEquals(0L, strategy.tryAcquireWrite(0, TimeUnit.MILLISECONDS), "Downgraded caller is still reading");
+        strategy.releaseRead(readStamp);
+        strategy.releaseWrite(strategy.acquireWrite());
+    }
+
+    @Test
+    void enginesWithoutConversionShouldSaySo() throws InterruptedException {
+        LockStrategy strategy = new ReadWriteLockStrategy(MAX_READERS, true);
+        long readStamp = strategy.acquireRead();
+
+        assertThrows(UnsupportedOperationException.class, () -> strategy.upgradeToWrite(readStamp));
+        assertThrows(UnsupportedOperationException.class, () -> strategy.downgradeToRead(1L));
+        strategy.releaseRead(readStamp);
+    }
+
+    @Test
+    void onlyReentrantLockEnginesShouldBeOwnerBound() {
+        assertTrue(new ReadWriteLockStrategy(MAX_READERS, true).isOwnerBound());
+        assertTrue(new ReaderBiasedLockStrategy(new ReadWriteLockStrategy(MAX_READERS, false)).isOwnerBound());
+        assertFalse(new SemaphoreLockStrategy(MAX_READERS).isOwnerBound());
+        assertFalse(new StampedLockStrategy(MAX_READERS).isOwnerBound());
+        assertFalse(new PhaseFairLockStrategy(MAX_READERS).isOwnerBound());
+    }
+}
@@ -0,0 +1,221 @@
+package com.dnikitin.lock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLockStrategyTest {
+    private static final Duration SHORT_LEASE = Duration.ofMillis(300);
+
+    @TempDir
+    Path dir;
+
+    private final List<MappedLockStrategy> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() {
+        opened.forEach(MappedLockStrategy::close);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void shouldCapReadersAndExcludeWriter() throws Exception {
+        MappedLockStrategy strategy = open(5, MappedLockStrategy.DEFAULT_LEASE);
+        List<Long> stamps = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            stamps.add(strategy.tryAcquireRead(1, TimeUnit.SECONDS));
+        }
+
+        assertFalse(stamps.contains(0L));
+        assertEquals(0L, strategy.tryAcquireRead(50, TimeUnit.MILLISECONDS), "The sixth reader must not enter");
+        assertEquals(0L, strategy.tryAcquireWrite(50, TimeUnit.MILLISECONDS));
+
+        stamps.forEach(strategy::releaseRead);
+        long writer = strategy.tryAcquireWrite(1, TimeUnit.SECONDS);
+        assertNotEquals(0L, writer);
+        strategy.releaseWrite(writer);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void instancesOnTheSameFileShouldExcludeEachOther() throws Exception {
+        MappedLockStrategy first = open(5, MappedLockStrategy.DEFAULT_LEASE);
+        MappedLockStrategy second = open(5, MappedLockStrategy.DEFAULT_LEASE);
+
+        long writer = first.acquireWrite();
+        assertEquals(0L, second.tryAcquireRead(100, TimeUnit.MILLISECONDS));
+        first.releaseWrite(writer);
+
+        long reader = second.tryAcquireRead(1, TimeUnit.SECONDS);
+        assertNotEquals(0L, reader);
+        assertEquals(0L, first.tryAcquireWrite(100, TimeUnit.MILLISECONDS));
+        second.releaseRead(reader);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void waitingWriterShouldHoldBackLaterReaders() throws Exception {
+        MappedLockStrategy strategy = open(5, MappedLockStrategy.DEFAULT_LEASE);
+        long reader = strategy.acquireRead();
+        AtomicLong writer = new AtomicLong();
+        Thread writerThread = Thread.ofVirtual().start(() -> {
+            try {
+                writer.set(strategy.acquireWrite());
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(100);
+
+        assertEquals(0L, strategy.tryAcquireRead(100, TimeUnit.MILLISECONDS),
+                "A reader arriving after the writer queues behind it");
+
+        strategy.releaseRead(reader);
+        writerThread.join();
+        assertNotEquals(0L, writer.get());
+        strategy.releaseWrite(writer.get());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void abandonedTicketsShouldBeSkipped() throws Exception {
+        MappedLockStrategy strategy = open(5, MappedLockStrategy.DEFAULT_LEASE);
+        long writer = strategy.acquireWrite();
+        assertEquals(0L, strategy.tryAcquireWrite(50, TimeUnit.MILLISECONDS));
+        Thread interrupted = Thread.ofVirtual().start(() -> {
+            Thread.currentThread().interrupt();
+            assertThrows(InterruptedException.class, strategy::acquireRead);
+        });
+        interrupted.join();
+        strategy.releaseWrite(writer);
+
+        long reader = strategy.tryAcquireRead(1, TimeUnit.SECONDS);
+        assertNotEquals(0L, reader, "Tickets given up must not stall the queue until a lease runs out");
+        strategy.releaseRead(reader);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void crashedReadersShouldLoseTheirSlotsWhenTheLeaseRunsOut() throws Exception {
+        MappedLockStrategy crashed = open(2, SHORT_LEASE);
+        crashed.acquireRead();
+        crashed.acquireRead();
+        // stops renewing without releasing, like a process that died
+        crashed.close();
+
+        MappedLockStrategy survivor = open(2, SHORT_LEASE);
+        long writer = survivor.tryAcquireWrite(3, TimeUnit.SECONDS);
+        assertNotEquals(0L, writer);
+        survivor.releaseWrite(writer);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void liveHoldersShouldKeepTheirLeases() throws Exception {
+        MappedLockStrategy holder = open(5, SHORT_LEASE);
+        MappedLockStrategy other = open(5, SHORT_LEASE);
+        long writer = holder.acquireWrite();
+
+        assertEquals(0L, other.tryAcquireRead(3 * SHORT_LEASE.toMillis(), TimeUnit.MILLISECONDS),
+                "A renewed lease must not expire");
+        holder.releaseWrite(writer);
+    }
+
+    @Test
+    @Timeout(value = 10)
+    void staleSkipShouldNotEvictTheNextWriter() throws Exception {
+        MappedLockStrategy crashed = open(5, SHORT_LEASE);
+        crashed.acquireWrite();
+        crashed.close();
+        MappedLockStrategy survivor = open(5, SHORT_LEASE);
+        long writer = survivor.tryAcquireWrite(3, TimeUnit.SECONDS);
+        assertNotEquals(0L, writer);
+
+        // a waiter that saw the crashed writer's turn expire acts only after the survivor has entered
+        survivor.expireTurn(0L);
+
+        MappedLockStrategy other = open(5, SHORT_LEASE);
+        assertEquals(0L, other.tryAcquireRead(3 * SHORT_LEASE.toMillis(), TimeUnit.MILLISECONDS),
+                "The live writer must keep renewing its lease");
+        survivor.releaseWrite(writer);
+    }
+
+    @Test
+    @Timeout(value = 30)
+    void writerInAProcessThatDiedShouldBeRecovered() throws Exception {
+        Path file = dir.resolve("library.lock");
+        Process process = startHolder(file);
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            assertEquals(Holder.HELD, output.readLine());
+            MappedLockStrategy strategy = track(new MappedLockStrategy(file, 5, SHORT_LEASE));
+            assertEquals(0L, strategy.tryAcquireRead(100, TimeUnit.MILLISECONDS),
+                    "The other process must be excluded");
+
+            process.destroyForcibly().waitFor();
+
+            long reader = strategy.tryAcquireRead(5, TimeUnit.SECONDS);
+            assertNotEquals(0L, reader);
+            strategy.releaseRead(reader);
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    @Test
+    void shouldRejectALimitOtherThanTheTables() throws IOException {
+        open(5, MappedLockStrategy.DEFAULT_LEASE);
+
+        assertThrows(IllegalArgumentException.class, () -> open(3, MappedLockStrategy.DEFAULT_LEASE));
+        assertThrows(UnsupportedOperationException.class, () -> opened.getFirst().setMaxReaders(3));
+    }
+
+    private MappedLockStrategy open(int maxReaders, Duration lease) throws IOException {
+        return track(new MappedLockStrategy(dir.resolve("library.lock"), maxReaders, lease));
+    }
+
+    private MappedLockStrategy track(MappedLockStrategy strategy) {
+        opened.add(strategy);
+        return strategy;
+    }
+
+    private static Process startHolder(Path file) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(argument -> argument.equals("--enable-preview"))
+                .forEach(command::add);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), Holder.class.getName(),
+                file.toString(), String.valueOf(SHORT_LEASE.toMillis())));
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    /**
+     * Second process: takes the write lock, reports it and waits to be killed.
+     */
+    static final class Holder {
+        static final String HELD = "held";
+
+        public static void main(String[] args) throws Exception {
+            MappedLockStrategy strategy = new MappedLockStrategy(Path.of(args[0]), 5,
+                    Duration.ofMillis(Long.parseLong(args[1])));
+            strategy.acquireWrite();
+            System.out.println(HELD);
+            System.out.flush();
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.dnikitin.lock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhaseFairLockStrategyTest {
+    private final PhaseFairLockStrategy strategy = new PhaseFairLockStrategy(5);
+
+    @Test
+    @Timeout(value = 5)
+    void readersBlockedByWriterShouldEnterTogetherBeforeNextWriter() throws InterruptedException {
+        long firstWriter = strategy.acquireWrite();
+        CountDownLatch readersIn = new CountDownLatch(3);
+        CountDownLatch leave = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(Thread.ofVirtual().start(() -> {
+                try {
+                    long stamp = strategy.acquireRead();
+                    readersIn.countDown();
+                    leave.await();
+                    strategy.releaseRead(stamp);
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        awaitWaiting(readers);
+        AtomicLong secondWriter = new AtomicLong();
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                secondWriter.set(strategy.acquireWrite());
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        awaitWaiting(List.of(writer));
+
+        strategy.releaseWrite(firstWriter);
+
+        assertTrue(readersIn.await(2, TimeUnit.SECONDS), "All blocked readers enter, the waiting writer does not");
+        assertEquals(0L, secondWriter.get());
+        assertEquals(0L, strategy.tryAcquireRead(0, TimeUnit.MILLISECONDS),
+                "A reader arriving behind the waiting writer belongs to the next reader phase");
+
+        leave.countDown();
+        writer.join();
+        assertNotEquals(0L, secondWriter.get());
+        strategy.releaseWrite(secondWriter.get());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void readersShouldShareTheLibraryWhileNoWriterIsPresent() throws InterruptedException {
+        long first = strategy.tryAcquireRead(0, TimeUnit.MILLISECONDS);
+        long second = strategy.tryAcquireRead(0, TimeUnit.MILLISECONDS);
+
+        assertNotEquals(0L, first);
+        assertNotEquals(0L, second);
+        assertEquals(0L, strategy.tryAcquireWrite(0, TimeUnit.MILLISECONDS));
+        strategy.releaseRead(first);
+        strategy.releaseRead(second);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void writerGivingUpShouldReleaseReadersQueuedBehindIt() throws InterruptedException {
+        long reader = strategy.acquireRead();
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                assertEquals(0L, strategy.tryAcquireWrite(300, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        awaitWaiting(List.of(writer));
+
+        long blocked = strategy.tryAcquireRead(2, TimeUnit.SECONDS);
+
+        assertNotEquals(0L, blocked);
+        writer.join();
+        strategy.releaseRead(blocked);
+        strategy.releaseRead(reader);
+        strategy.releaseWrite(strategy.acquireWrite());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void interruptedReaderShouldLeaveNoTrace() throws InterruptedException {
+        long writerStamp = strategy.acquireWrite();
+        Thread reader = Thread.ofVirtual().start(() -> {
+            assertThrows(InterruptedException.class, strategy::acquireRead);
+        });
+        awaitWaiting(List.of(reader));
+
+        reader.interrupt();
+        reader.join();
+        strategy.releaseWrite(writerStamp);
+
+        // the interrupted reader is not counted in the reader phase, so a writer gets in right away
+        long next = strategy.tryAcquireWrite(0, TimeUnit.MILLISECONDS);
+        assertNotEquals(0L, next);
+        strategy.releaseWrite(next);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void readerInterruptedDuringPhaseChangeShouldLeaveNoTrace() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+        PhaseFairLockStrategy observed = new PhaseFairLockStrategy(5, lock);
+        long writerStamp = observed.acquireWrite();
+        Thread reader = Thread.ofVirtual().start(() -> {
+            assertThrows(InterruptedException.class, observed::acquireRead);
+        });
+        awaitWaiting(List.of(reader));
+
+        // holding the strategy's lock, the interrupted reader cannot run until the writer has left and
+        // startReaderPhase has counted it as admitted
+        lock.lock();
+        try {
+            reader.interrupt();
+            while (!lock.hasQueuedThread(reader)) {
+                Thread.sleep(1);
+            }
+            observed.releaseWrite(writerStamp);
+        } finally {
+            lock.unlock();
+        }
+        reader.join();
+
+        long next = observed.tryAcquireWrite(1, TimeUnit.SECONDS);
+        assertNotEquals(0L, next, "The interrupted reader must not stay counted in the reader phase");
+        observed.releaseWrite(next);
+    }
+
+    private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(5);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.dnikitin.lock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReaderBiasedLockStrategyTest {
+
+    @Test
+    @Timeout(value = 5)
+    void fastPathReadersShouldNotUseUnderlyingPermits() throws InterruptedException {
+        SemaphoreLockStrategy underlying = new SemaphoreLockStrategy(1);
+        ReaderBiasedLockStrategy strategy = new ReaderBiasedLockStrategy(underlying, 1 << 16);
+
+        // the single underlying slot is taken by the slow path of a second read on the same thread
+        long fast = strategy.acquireRead();
+        long slow = strategy.acquireRead();
+
+        CountDownLatch entered = new CountDownLatch(1);
+        Thread other = Thread.ofVirtual().start(() -> {
+            try {
+                long stamp = strategy.acquireRead();
+                entered.countDown();
+                strategy.releaseRead(stamp);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(entered.await(2, TimeUnit.SECONDS), "Biased reader should enter without an underlying permit");
+        other.join();
+        strategy.releaseRead(slow);
+        strategy.releaseRead(fast);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void writerShouldRevokeBiasAndWaitForFastPathReaders() throws InterruptedException {
+        ReaderBiasedLockStrategy strategy = new ReaderBiasedLockStrategy(new SemaphoreLockStrategy(5));
+        long readStamp = strategy.acquireRead();
+        assertTrue(strategy.isReadBiased());
+
+        CountDownLatch writerEntered = new CountDownLatch(1);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                long stamp = strategy.acquireWrite();
+                writerEntered.countDown();
+                strategy.releaseWrite(stamp);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(writerEntered.await(200, TimeUnit.MILLISECONDS), "Writer must wait for the biased reader");
+        assertFalse(strategy.isReadBiased(), "Writer should have revoked the bias");
+
+        strategy.releaseRead(readStamp);
+        assertTrue(writerEntered.await(2, TimeUnit.SECONDS));
+        writer.join();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void readersShouldWaitForWriterAfterRevocation() throws InterruptedException {
+        ReaderBiasedLockStrategy strategy = new ReaderBiasedLockStrategy(new SemaphoreLockStrategy(5));
+        long writeStamp = strategy.acquireWrite();
+
+        CountDownLatch readerEntered = new CountDownLatch(1);
+        Thread reader = Thread.ofVirtual().start(() -> {
+            try {
+                long stamp = strategy.acquireRead();
+                readerEntered.countDown();
+                strategy.releaseRead(stamp);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(readerEntered.await(200, TimeUnit.MILLISECONDS), "Reader must not bypass an active writer");
+        strategy.releaseWrite(writeStamp);
+        assertTrue(readerEntered.await(2, TimeUnit.SECONDS));
+        reader.join();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void slowPathReaderShouldRestoreBiasAfterInhibitPeriod() throws InterruptedException {
+        ReaderBiasedLockStrategy strategy = new ReaderBiasedLockStrategy(new SemaphoreLockStrategy(5));
+        strategy.releaseWrite(strategy.acquireWrite());
+        assertFalse(strategy.isReadBiased());
+
+        // revocation with an empty table is near-instant, so the inhibit period is already over
+        Thread.sleep(10);
+        strategy.releaseRead(strategy.acquireRead());
+
+        assertTrue(strategy.isReadBiased());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void stampShouldTellFastPathFromSlowPath() throws InterruptedException {
+        SemaphoreLockStrategy underlying = new SemaphoreLockStrategy(5);
+        ReaderBiasedLockStrategy strategy = new ReaderBiasedLockStrategy(underlying, 1 << 16);
+
+        long fast = strategy.acquireRead();
+        long slow = strategy.acquireRead();
+        assertTrue(fast < 0, "Fast-path stamp encodes the slot");
+        assertTrue(slow > 0, "Slow-path stamp comes from the underlying strategy");
+
+        strategy.releaseRead(fast);
+        strategy.releaseRead(slow);
+
+        // both sides were released: the underlying writer and a new fast-path reader get in
+        long writeStamp = underlying.tryAcquireWrite(0, TimeUnit.MILLISECONDS);
+        assertNotEquals(0L, writeStamp);
+        underlying.releaseWrite(writeStamp);
+        assertEquals(5, strategy.getMaxReaders());
+    }
+}
@@ -0,0 +1,234 @@
+package com.dnikitin.metrics;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.LockStrategy;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import com.dnikitin.model.Library;
+import com.dnikitin.model.Role;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairnessAuditorTest {
+
+    @Test
+    @Timeout(value = 5)
+    void inOrderVisitsShouldBeFair() throws InterruptedException {
+        Library library = new Library(new SemaphoreLockStrategy(2), EventRecorder.DISABLED);
+        try (FairnessAuditor auditor = new FairnessAuditor(library)) {
+            for (int i = 0; i < 10; i++) {
+                library.startReading(0);
+                library.stopReading();
+                library.startWriting(0);
+                library.stopWriting();
+            }
+
+            FairnessReport report = auditor.report();
+
+            assertEquals("SemaphoreLockStrategy", report.policy());
+            assertEquals(20, report.admitted());
+            assertEquals(20, report.audited());
+            assertTrue(report.isFair(), report.describe());
+            assertThat(report.worstOffenders()).hasSize(5);
+        }
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void writerEnteringAfterALaterReaderShouldBeReportedAsOvertaken() throws InterruptedException {
+        GateStrategy gates = new GateStrategy();
+        Library library = new Library(gates, EventRecorder.DISABLED);
+        try (FairnessAuditor auditor = new FairnessAuditor(library)) {
+            Thread writer = Thread.ofVirtual().name("early-writer").start(() -> visit(library, Role.WRITER));
+            awaitWaiting(library, 1);
+            // clearly later, arrivals closer together than the slack are not ordered
+            Thread.sleep(FairnessAuditor.DEFAULT_ARRIVAL_SLACK.multipliedBy(2));
+            Thread reader = Thread.ofVirtual().name("late-reader").start(() -> visit(library, Role.READER));
+            awaitWaiting(library, 2);
+
+            gates.open(reader);
+            reader.join();
+            gates.open(writer);
+            writer.join();
+
+            FairnessReport report = auditor.report();
+            assertEquals(1, report.overtakenVisits());
+            assertEquals(1, report.overtakes());
+            assertFalse(report.isFair());
+            FairnessReport.Offender worst = report.worstOffenders().getFirst();
+            assertEquals("early-writer", worst.thread());
+            assertEquals(1, worst.overtakenBy());
+        }
+    }
+
+    @Test
+    @Timeout(value = 10)
+    void fifoEngineShouldAuditAsFairUnderContention() throws InterruptedException {
+        Library library = new Library(new SemaphoreLockStrategy(3), EventRecorder.DISABLED);
+        try (FairnessAuditor auditor = new FairnessAuditor(library)) {
+            List<Thread> visitors = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                visitors.add(Thread.ofVirtual().start(() -> {
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            if (i % 4 == 0) {
+                                library.startWriting(0);
+                                Thread.sleep(1);
+                                library.stopWriting();
+                            } else {
+                                library.startReading(0);
+                                Thread.sleep(1);
+                                library.stopReading();
+                            }
+                        }
+                    } catch (InterruptedException _) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+            }
+            for (Thread visitor : visitors) {
+                visitor.join();
+            }
+
+            FairnessReport report = auditor.report();
+            assertEquals(400, report.audited());
+            assertEquals(0, report.overtakes(), report.describe());
+            assertTrue(report.isFair(), report.describe());
+        }
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void longWaitsShouldCountEvenWhenAbandoned() throws InterruptedException {
+        Library library = new Library(new SemaphoreLockStrategy(2), EventRecorder.DISABLED);
+        try (FairnessAuditor auditor = new FairnessAuditor(library, Duration.ofMillis(50), 1024)) {
+            library.startWriting(0);
+            Thread waiting = Thread.ofVirtual().start(() -> visit(library, Role.READER));
+            Thread impatient = Thread.ofVirtual().start(() -> {
+                try {
+                    assertFalse(library.tryStartReading(Duration.ofMillis(100)));
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            impatient.join();
+            library.stopWriting();
+            waiting.join();
+
+            FairnessReport report = auditor.report();
+            assertEquals(1, report.abandoned());
+            assertEquals(2, report.waitsOverBound());
+            assertThat(report.maxWait()).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+            assertEquals(Role.READER, report.worstOffenders().getFirst().role());
+        }
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void traceShouldStayWithinItsCapacity() throws InterruptedException {
+        Library library = new Library(new SemaphoreLockStrategy(2), EventRecorder.DISABLED);
+        try (FairnessAuditor auditor = new FairnessAuditor(library, Duration.ofSeconds(1), 1)) {
+            for (int i = 0; i < 200; i++) {
+                library.startReading(0);
+                library.stopReading();
+            }
+
+            FairnessReport report = auditor.report();
+            assertEquals(200, report.admitted());
+            assertThat(report.audited()).isLessThanOrEqualTo(FairnessAuditor.CHUNK_SIZE);
+
+            auditor.reset();
+            assertEquals(0, auditor.report().admitted());
+            assertEquals(0, auditor.report().audited());
+        }
+    }
+
+    @Test
+    void closedAuditorShouldStopRecording() throws InterruptedException {
+        Library library = new Library(new SemaphoreLockStrategy(2), EventRecorder.DISABLED);
+        FairnessAuditor auditor = new FairnessAuditor(library);
+        auditor.close();
+
+        library.startReading(0);
+        library.stopReading();
+
+        assertEquals(0, auditor.report().admitted());
+    }
+
+    private static void visit(Library library, Role role) {
+        try {
+            if (role == Role.READER) {
+                library.startReading(0);
+                library.stopReading();
+            } else {
+                library.startWriting(0);
+                library.stopWriting();
+            }
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitWaiting(Library library, int threads) throws InterruptedException {
+        while (library.getWaitingCount() < threads) {
+            Thread.sleep(5);
+        }
+    }
+
+    // admits each thread only when the test opens its gate, to force a chosen order
+    private static final class GateStrategy implements LockStrategy {
+        private final Map<Thread, CountDownLatch> gates = new ConcurrentHashMap<>();
+
+        void open(Thread thread) {
+            gate(thread).countDown();
+        }
+
+        @Override
+        public long acquireRead() throws InterruptedException {
+            gate(Thread.currentThread()).await();
+            return 1L;
+        }
+
+        @Override
+        public long tryAcquireRead(long timeout, TimeUnit unit) throws InterruptedException {
+            return gate(Thread.currentThread()).await(timeout, unit) ? 1L : 0L;
+        }
+
+        @Override
+        public void releaseRead(long stamp) {
+        }
+
+        @Override
+        public long acquireWrite() throws InterruptedException {
+            return acquireRead();
+        }
+
+        @Override
+        public long tryAcquireWrite(long timeout, TimeUnit unit) throws InterruptedException {
+            return tryAcquireRead(timeout, unit);
+        }
+
+        @Override
+        public void releaseWrite(long stamp) {
+        }
+
+        @Override
+        public int getMaxReaders() {
+            return 1;
+        }
+
+        private CountDownLatch gate(Thread thread) {
+            return gates.computeIfAbsent(thread, _ -> new CountDownLatch(1));
+        }
+    }
+}
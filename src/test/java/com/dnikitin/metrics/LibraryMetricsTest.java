@@ -0,0 +1,91 @@
+package com.dnikitin.metrics;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import com.dnikitin.model.Library;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryMetricsTest {
+    private final Library library = new Library(new SemaphoreLockStrategy(2), EventRecorder.DISABLED);
+
+    @Test
+    @Timeout(value = 5)
+    void shouldRecordWaitAndHoldPerRole() throws InterruptedException {
+        try (LibraryMetrics metrics = new LibraryMetrics(library)) {
+            library.startWriting(0);
+            Thread reader = Thread.ofVirtual().start(() -> {
+                try {
+                    library.startReading(0);
+                    library.stopReading();
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            while (library.getWaitingCount() == 0) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, metrics.getWaiting());
+            assertEquals(1, metrics.getInside());
+            Thread.sleep(50);
+            library.stopWriting();
+            reader.join();
+
+            MetricsSnapshot snapshot = metrics.getSnapshot();
+            assertEquals(1, snapshot.readerWait().count());
+            assertThat(snapshot.readerWait().max()).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+            assertThat(snapshot.writerHold().max()).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+            assertEquals(1, snapshot.writerWait().count());
+            assertEquals(1, snapshot.readerHold().count());
+            assertEquals(1, snapshot.queueDepth().p50());
+            assertEquals(1, snapshot.occupancy().max());
+            assertEquals(0, snapshot.inside());
+            assertEquals(2, snapshot.maxReaders());
+        }
+    }
+
+    @Test
+    void shouldCountAbandonedWaitsAndReset() throws InterruptedException {
+        LibraryMetrics metrics = new LibraryMetrics(library);
+        library.startWriting(0);
+        Thread.ofVirtual().start(() -> assertFalse(library.tryStartReading())).join();
+        library.stopWriting();
+
+        assertEquals(1, metrics.getAbandoned());
+        metrics.reset();
+        assertEquals(0, metrics.getAbandoned());
+        assertEquals(HistogramSnapshot.EMPTY, metrics.getSnapshot().writerHold());
+
+        metrics.close();
+        library.startWriting(0);
+        library.stopWriting();
+        assertEquals(0, metrics.getSnapshot().writerWait().count(), "Closed metrics stop collecting");
+    }
+
+    @Test
+    void shouldPublishSnapshotOverJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("com.dnikitin:type=Library,name=\"metrics-test\"");
+
+        try (LibraryMetrics metrics = new LibraryMetrics(library)) {
+            metrics.registerMBean("metrics-test");
+            library.startReading(0);
+            library.stopReading();
+
+            CompositeData snapshot = (CompositeData) server.getAttribute(name, "Snapshot");
+            assertEquals(1L, ((CompositeData) snapshot.get("readerHold")).get("count"));
+            assertEquals(2, server.getAttribute(name, "MaxReaders"));
+            assertThrows(IllegalStateException.class, () -> new LibraryMetrics(library).registerMBean("metrics-test"));
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
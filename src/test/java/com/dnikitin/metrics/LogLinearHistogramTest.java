@@ -0,0 +1,60 @@
+package com.dnikitin.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLinearHistogramTest {
+    private final LogLinearHistogram histogram = new LogLinearHistogram();
+
+    @Test
+    void shouldReportExactValuesBelowSubBucketCount() {
+        IntStream.rangeClosed(1, 10).forEach(histogram::record);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(10, snapshot.count());
+        assertEquals(5, snapshot.mean());
+        assertEquals(5, snapshot.p50());
+        assertEquals(9, snapshot.p90());
+        assertEquals(10, snapshot.max());
+    }
+
+    @Test
+    void shouldKeepRelativeErrorBounded() {
+        for (long v = 1; v <= 1_000_000; v++) {
+            histogram.record(v);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.p50()).isBetween(500_000L, 500_000L * 107 / 100);
+        assertThat(snapshot.p99()).isBetween(990_000L, 1_000_000L);
+        assertEquals(1_000_000L, snapshot.max());
+    }
+
+    @Test
+    void bucketsShouldTileTheWholeRange() {
+        for (int i = 1; i < LogLinearHistogram.BUCKETS; i++) {
+            long lower = LogLinearHistogram.upperBoundOf(i - 1) + 1;
+            assertEquals(i, LogLinearHistogram.indexOf(lower));
+            assertEquals(i, LogLinearHistogram.indexOf(LogLinearHistogram.upperBoundOf(i)));
+        }
+        assertEquals(Long.MAX_VALUE, LogLinearHistogram.upperBoundOf(LogLinearHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    void shouldStartOverAfterReset() {
+        histogram.record(-5);
+        histogram.record(42);
+        histogram.reset();
+
+        assertEquals(HistogramSnapshot.EMPTY, histogram.snapshot());
+
+        histogram.record(-5);
+        assertEquals(0, histogram.snapshot().max());
+    }
+}
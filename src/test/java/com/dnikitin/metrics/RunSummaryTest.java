@@ -0,0 +1,41 @@
+package com.dnikitin.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunSummaryTest {
+
+    @Test
+    void shouldDeriveRatesAndUtilizationFromSnapshot() {
+        // 10 readers holding 1 s each and 2 writers over a 4 s run with 5 reader slots
+        HistogramSnapshot readerHold = new HistogramSnapshot(10, 1_000_000_000L, 0, 0, 0, 0, 0);
+        HistogramSnapshot writerHold = new HistogramSnapshot(2, 1_000_000_000L, 0, 0, 0, 0, 0);
+        HistogramSnapshot queueDepth = new HistogramSnapshot(12, 1, 7, 1, 1, 7, 7);
+        MetricsSnapshot snapshot = new MetricsSnapshot(HistogramSnapshot.EMPTY, HistogramSnapshot.EMPTY,
+                readerHold, writerHold, queueDepth, HistogramSnapshot.EMPTY, 0, 0, 0, 0, 5);
+
+        RunSummary summary = RunSummary.of(snapshot, Duration.ofSeconds(4));
+
+        assertEquals(10, summary.readerOps());
+        assertEquals(2.5, summary.readerOpsPerSecond(), 1e-9);
+        assertEquals(0.5, summary.writerOpsPerSecond(), 1e-9);
+        assertEquals(7, summary.maxQueueLength());
+        assertEquals(0.5, summary.readerSlotUtilization(), 1e-9);
+    }
+
+    @Test
+    void emptyRunShouldReportZeros() {
+        MetricsSnapshot snapshot = new MetricsSnapshot(HistogramSnapshot.EMPTY, HistogramSnapshot.EMPTY,
+                HistogramSnapshot.EMPTY, HistogramSnapshot.EMPTY, HistogramSnapshot.EMPTY, HistogramSnapshot.EMPTY,
+                0, 0, 0, 0, 5);
+
+        RunSummary summary = RunSummary.of(snapshot, Duration.ZERO);
+
+        assertEquals(0, summary.readerOpsPerSecond());
+        assertEquals(0, summary.readerSlotUtilization());
+        assertTrue(summary.describe().startsWith("Run of 0 ms"));
+    }
+}
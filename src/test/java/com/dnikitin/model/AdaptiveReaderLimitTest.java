@@ -0,0 +1,109 @@
+package com.dnikitin.model;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveReaderLimitTest {
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Library library = new Library(new SemaphoreLockStrategy(5), EventRecorder.DISABLED);
+    private long sequence;
+
+    @Test
+    void shouldGrowWhenReadersQueueAtBaselineHoldTime() {
+        AdaptiveReaderLimit controller = new AdaptiveReaderLimit(library, 1, 64);
+
+        readers(controller, 10, MILLI, MILLI, 3);
+
+        assertEquals(6, controller.adjust());
+        assertEquals(6, library.getMaxReaders());
+    }
+
+    @Test
+    void shouldShrinkWhenHoldTimeRisesAboveBaseline() {
+        AdaptiveReaderLimit controller = new AdaptiveReaderLimit(library, 1, 64);
+        readers(controller, 10, MILLI, 0, 0);
+        assertEquals(5, controller.adjust(), "No queueing and no slowdown keeps the limit");
+
+        readers(controller, 10, 4 * MILLI, 0, 0);
+
+        // gradient is capped at 0.5, halfway there after smoothing: 5 -> 3.75
+        assertEquals(4, controller.adjust());
+    }
+
+    @Test
+    void shouldIgnoreNegligibleQueueing() {
+        AdaptiveReaderLimit controller = new AdaptiveReaderLimit(library, 1, 64);
+
+        readers(controller, 10, MILLI, MILLI / 100, 3);
+
+        assertEquals(5, controller.adjust());
+    }
+
+    @Test
+    void shouldKeepLimitInBoundsAndOverIdleWindows() {
+        AdaptiveReaderLimit controller = new AdaptiveReaderLimit(library, 2, 6);
+
+        for (int i = 0; i < 10; i++) {
+            readers(controller, 10, MILLI, MILLI, 3);
+            controller.adjust();
+        }
+        assertEquals(6, controller.getLimit());
+        assertEquals(6, controller.adjust(), "Idle window keeps the limit");
+
+        for (int i = 0; i < 10; i++) {
+            readers(controller, 10, 100 * MILLI, 0, 0);
+            controller.adjust();
+        }
+        assertEquals(2, controller.getLimit());
+    }
+
+    @Test
+    void shouldClampInitialLimitAndValidateBounds() {
+        new AdaptiveReaderLimit(library, 8, 16);
+
+        assertEquals(8, library.getMaxReaders());
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveReaderLimit(library, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveReaderLimit(library, 4, 3));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveReaderLimit(library, 4, library.getReaderLimitCeiling() + 1));
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void shouldObserveLibraryUntilClosed() throws InterruptedException {
+        AdaptiveReaderLimit controller = new AdaptiveReaderLimit(library, 1, 64);
+        controller.start(Duration.ofHours(1));
+
+        library.startReading(0);
+        library.stopReading();
+        controller.close();
+        library.startReading(0);
+        library.stopReading();
+
+        // one reader was seen, so the first window only sets the baseline
+        assertEquals(5, controller.adjust());
+        assertThrows(IllegalStateException.class, () -> {
+            try (AdaptiveReaderLimit other = new AdaptiveReaderLimit(library, 1, 64)) {
+                other.start(Duration.ofHours(1));
+                other.start(Duration.ofHours(1));
+            }
+        });
+    }
+
+    private void readers(AdaptiveReaderLimit controller, int count, long holdNanos, long waitNanos, int queueLength) {
+        for (int i = 0; i < count; i++) {
+            Visit visit = new Visit(Thread.currentThread(), Role.READER, sequence++, 1_000L);
+            visit.markAdmitted(1_000L + waitNanos);
+            controller.onAdmitted(visit, queueLength);
+            controller.onLeft(visit, holdNanos);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.dnikitin.model;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.ReadWriteLockStrategy;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncAdmissionTest {
+    private static final Executor DIRECT = Runnable::run;
+
+    private final Library library = new Library(new SemaphoreLockStrategy(5), EventRecorder.DISABLED);
+
+    @Test
+    @Timeout(value = 10)
+    void waitersShouldQueueWithoutThreadsAndDrainOnRelease() throws Exception {
+        library.startWriting(0);
+        List<CompletableFuture<Integer>> reads = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int value = i;
+            reads.add(library.readAsync(() -> value, DIRECT));
+        }
+
+        assertEquals(20_000, library.getWaitingCount());
+        assertThat(reads).noneMatch(CompletableFuture::isDone);
+
+        library.stopWriting();
+
+        CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < reads.size(); i++) {
+            assertEquals(i, reads.get(i).getNow(-1));
+        }
+        assertEquals(0, library.getWaitingCount());
+        assertEquals(0, library.getRunningCount());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void asyncWriterShouldHoldBackLaterReadersAndRunOnExecutor() throws Exception {
+        AtomicInteger executed = new AtomicInteger();
+        Executor counting = command -> {
+            executed.incrementAndGet();
+            Thread.ofVirtual().start(command);
+        };
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        library.startReading(0);
+
+        CompletableFuture<Integer> write = library.writeAsync(() -> {
+            order.add("writer");
+            return library.getRunningCount();
+        }, counting);
+        CompletableFuture<Void> read = library.readAsync(() -> {
+            order.add("reader");
+            return null;
+        }, counting);
+        Thread.sleep(100);
+        assertFalse(write.isDone(), "Writer waits for the blocking reader");
+        assertFalse(read.isDone(), "Reader waits behind the writer");
+
+        library.stopReading();
+
+        assertEquals(1, write.get(2, TimeUnit.SECONDS), "Writer was alone inside");
+        read.get(2, TimeUnit.SECONDS);
+        assertThat(order).containsExactly("writer", "reader");
+        assertEquals(2, executed.get());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void cancelledRequestShouldLeaveTheQueue() throws InterruptedException {
+        library.startWriting(0);
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Integer> read = library.readAsync(runs::incrementAndGet, DIRECT);
+
+        assertTrue(read.cancel(false));
+
+        assertEquals(0, library.getWaitingCount());
+        library.stopWriting();
+        assertTrue(library.tryStartWriting(Duration.ofSeconds(1)), "The withdrawn acquisition holds nothing");
+        library.stopWriting();
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void failingOperationShouldReleaseTheLibrary() {
+        CompletableFuture<Object> failed = library.writeAsync(() -> {
+            throw new IllegalStateException("boom");
+        }, DIRECT);
+
+        ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(0, library.getRunningCount());
+        assertTrue(library.tryStartWriting());
+        library.stopWriting();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void blockingWaiterGivingUpShouldWakeAsyncWaiters() throws Exception {
+        library.startReading(0);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                assertFalse(library.tryStartWriting(Duration.ofMillis(300)));
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        while (library.getWaitingCount() == 0) {
+            Thread.sleep(5);
+        }
+
+        CompletableFuture<String> read = library.readAsync(() -> "read", DIRECT);
+        assertFalse(read.isDone(), "The fair queue holds the reader behind the waiting writer");
+
+        writer.join();
+        assertEquals("read", read.get(1, TimeUnit.SECONDS));
+        library.stopReading();
+    }
+
+    @Test
+    void submitShouldNotBeStoppedByInterruptOfTheCaller() {
+        Thread.currentThread().interrupt();
+        CompletableFuture<String> read = library.readAsync(() -> "read", DIRECT);
+
+        assertTrue(Thread.interrupted(), "Interrupt status is kept");
+        assertEquals("read", read.getNow(null));
+    }
+
+    @Test
+    @Timeout(value = 10)
+    void asyncWriterShouldNotStarveBehindArrivingReaders() throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> readers = new ArrayList<>();
+        // overlapping readers, so there is never a moment without a reader inside
+        for (int i = 0; i < 4; i++) {
+            readers.add(Thread.ofVirtual().start(() -> {
+                try {
+                    while (!stop.get()) {
+                        library.startReading(0);
+                        Thread.sleep(2);
+                        library.stopReading();
+                    }
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        while (library.getRunningCount() == 0) {
+            Thread.sleep(5);
+        }
+
+        try {
+            CompletableFuture<Integer> write = library.writeAsync(library::getRunningCount, DIRECT);
+            assertEquals(1, write.get(2, TimeUnit.SECONDS), "Writer was alone inside");
+        } finally {
+            stop.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+    }
+
+    @Test
+    void ownerBoundStrategyShouldBeRejected() {
+        Library ownerBound = new Library(new ReadWriteLockStrategy(5, true), EventRecorder.DISABLED);
+
+        assertThrows(UnsupportedOperationException.class, () -> ownerBound.readAsync(() -> 1));
+        assertThrows(IllegalArgumentException.class, () -> library.writeAsync(null));
+        assertEquals(0, ownerBound.getWaitingCount());
+    }
+}
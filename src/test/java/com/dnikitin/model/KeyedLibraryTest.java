@@ -0,0 +1,101 @@
+package com.dnikitin.model;
+
+import com.dnikitin.lock.ReadWriteLockStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedLibraryTest {
+    private final KeyedLibrary<String> library = new KeyedLibrary<>();
+
+    @Test
+    @Timeout(value = 5)
+    void writerOnOneKeyShouldNotBlockOtherKeys() throws InterruptedException {
+        library.startWriting("a");
+
+        CountDownLatch entered = new CountDownLatch(2);
+        Thread other = Thread.ofVirtual().start(() -> {
+            try {
+                library.startReading("b");
+                entered.countDown();
+                library.stopReading("b");
+                library.startWriting("c");
+                entered.countDown();
+                library.stopWriting("c");
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(entered.await(2, TimeUnit.SECONDS), "Other keys must be independent");
+        other.join();
+        library.stopWriting("a");
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void writerShouldExcludeReadersOfSameKey() throws InterruptedException {
+        library.startWriting("a");
+
+        CountDownLatch entered = new CountDownLatch(1);
+        Thread reader = Thread.ofVirtual().start(() -> {
+            try {
+                library.startReading("a");
+                entered.countDown();
+                library.stopReading("a");
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(entered.await(200, TimeUnit.MILLISECONDS), "Reader of the same key must wait");
+        library.stopWriting("a");
+        assertTrue(entered.await(2, TimeUnit.SECONDS));
+        reader.join();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void shouldEvictLocksNoLongerInUse() throws InterruptedException {
+        library.startReading("a");
+        library.startReading("a");
+        library.startWriting("b");
+        assertEquals(2, library.activeKeys());
+
+        library.stopReading("a");
+        assertEquals(2, library.activeKeys(), "Key is still held by one reader");
+
+        library.stopReading("a");
+        library.stopWriting("b");
+        assertEquals(0, library.activeKeys());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void shouldReleaseKeyWhenWaiterIsInterrupted() throws InterruptedException {
+        library.startWriting("a");
+
+        Thread waiter = Thread.ofVirtual().start(() ->
+                assertThrows(InterruptedException.class, () -> library.startWriting("a")));
+        Thread.sleep(200);
+        waiter.interrupt();
+        waiter.join();
+
+        library.stopWriting("a");
+        assertEquals(0, library.activeKeys());
+    }
+
+    @Test
+    void shouldUseProvidedStrategyFactoryAndRejectUnknownKeys() throws InterruptedException {
+        KeyedLibrary<Integer> keyed = new KeyedLibrary<>(() -> new ReadWriteLockStrategy(2, true));
+        keyed.startReading(1);
+        keyed.stopReading(1);
+
+        assertThrows(IllegalStateException.class, () -> keyed.stopWriting(42));
+        assertThrows(IllegalArgumentException.class, () -> new KeyedLibrary<String>(null));
+    }
+}
@@ -0,0 +1,75 @@
+package com.dnikitin.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaseWheelTest {
+    private final LinkedBlockingQueue<Lease> expired = new LinkedBlockingQueue<>();
+    private final LeaseWheel wheel = new LeaseWheel(expired::add);
+
+    @Test
+    @Timeout(value = 5)
+    void leaseShouldExpireAfterItsDuration() throws InterruptedException {
+        Lease lease = lease(Duration.ofMillis(100));
+        long scheduled = System.nanoTime();
+        wheel.schedule(lease);
+
+        assertSame(lease, expired.poll(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - scheduled >= TimeUnit.MILLISECONDS.toNanos(100), "Never before the expiry");
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void renewalShouldPostponeTheExpiry() throws InterruptedException {
+        Lease lease = lease(Duration.ofMillis(100));
+        wheel.schedule(lease);
+
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(50);
+            assertTrue(lease.renew());
+        }
+
+        assertNull(expired.poll(0, TimeUnit.MILLISECONDS), "A renewed lease must not expire");
+        assertSame(lease, expired.poll(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void endedLeaseShouldBeDropped() throws InterruptedException {
+        Lease released = lease(Duration.ofMillis(50));
+        Lease kept = lease(Duration.ofMillis(100));
+        wheel.schedule(released);
+        wheel.schedule(kept);
+
+        assertTrue(released.release());
+
+        assertSame(kept, expired.poll(2, TimeUnit.SECONDS));
+        assertTrue(expired.isEmpty());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void timerShouldStopWhenIdleAndRestartForTheNextLease() throws InterruptedException {
+        Lease first = lease(Duration.ofMillis(20));
+        wheel.schedule(first);
+        assertSame(first, expired.poll(2, TimeUnit.SECONDS));
+        while (wheel.isRunning()) {
+            Thread.sleep(5);
+        }
+
+        Lease second = lease(Duration.ofMillis(20));
+        wheel.schedule(second);
+
+        assertSame(second, expired.poll(2, TimeUnit.SECONDS));
+    }
+
+    private static Lease lease(Duration duration) {
+        return new Lease(new Visit(Thread.currentThread(), Role.READER, 1, System.nanoTime()), duration);
+    }
+}
@@ -1,9 +1,16 @@
 package com.dnikitin.model;
 
+import com.dnikitin.lock.ReadWriteLockStrategy;
+import com.dnikitin.metrics.LibraryMetrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -133,4 +140,239 @@ public class LibraryTest {
         assertThat(library.getRunningList()).isEmpty();
         assertThat(library.getWaitingList()).isEmpty();
     }
+
+    @Test
+    void shouldRejectLeavingWithoutEntering() throws InterruptedException {
+        assertThrows(IllegalStateException.class, () -> library.stopReading());
+        assertThrows(IllegalStateException.class, () -> library.stopWriting());
+
+        // a reader cannot leave as a writer
+        library.startReading(100);
+        assertThrows(IllegalStateException.class, () -> library.stopWriting());
+        library.stopReading();
+        assertThat(library.getRunningList()).isEmpty();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void tryStartShouldFailImmediatelyWhileWriterIsInside() throws InterruptedException {
+        library.startWriting(100);
+
+        Thread other = new Thread(() -> {
+            assertFalse(library.tryStartReading());
+            assertFalse(library.tryStartWriting());
+        });
+        other.start();
+        other.join();
+
+        assertThat(library.getWaitingList()).isEmpty();
+        assertThat(library.getRunningList()).containsExactly(Thread.currentThread());
+        library.stopWriting();
+
+        assertTrue(library.tryStartReading());
+        library.stopReading();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void timedOutWriterShouldLeaveNoTrace() throws InterruptedException {
+        library.startReading(100);
+
+        Thread writer = new Thread(() -> {
+            try {
+                assertFalse(library.tryStartWriting(Duration.ofMillis(200)));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+        Thread.sleep(50);
+        assertThat(library.getWaitingList()).containsExactly(writer);
+        writer.join();
+
+        assertThat(library.getWaitingList()).isEmpty();
+        // all permits are still available: the reader leaves and a full set of readers fits in
+        library.stopReading();
+        for (int i = 0; i < MAX_READERS; i++) {
+            assertTrue(library.tryStartReading());
+        }
+        for (int i = 0; i < MAX_READERS; i++) {
+            library.stopReading();
+        }
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void timedReaderShouldEnterOnceWriterLeaves() throws InterruptedException {
+        library.startWriting(100);
+
+        Thread reader = new Thread(() -> {
+            try {
+                assertTrue(library.tryStartReading(Duration.ofSeconds(3)));
+                library.stopReading();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        reader.start();
+        Thread.sleep(200);
+        library.stopWriting();
+        reader.join();
+
+        assertThat(library.getRunningList()).isEmpty();
+        assertThat(library.getWaitingList()).isEmpty();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void pastDeadlineShouldNotWait() throws InterruptedException {
+        library.startWriting(100);
+
+        Thread reader = new Thread(() -> {
+            try {
+                assertFalse(library.tryStartReading(Instant.now().minusSeconds(1)));
+                assertFalse(library.tryStartWriting(Instant.now().plusMillis(100)));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        reader.start();
+        reader.join();
+
+        library.stopWriting();
+        assertThat(library.getWaitingList()).isEmpty();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void interruptedWaiterShouldBeRemovedFromWaitingList() throws InterruptedException {
+        library.startWriting(100);
+
+        Thread blockedReader = new Thread(() -> assertThrows(InterruptedException.class, () -> library.startReading(100)));
+        blockedReader.start();
+        Thread.sleep(200);
+        blockedReader.interrupt();
+        blockedReader.join();
+
+        assertThat(library.getWaitingList()).isEmpty();
+        library.stopWriting();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void upgradeShouldTurnReadIntoWriteInPlace() throws InterruptedException {
+        library.startReading(100);
+
+        assertTrue(library.upgradeToWriting());
+
+        assertThat(library.getRunningList()).containsExactly(Thread.currentThread());
+        assertThat(library.getWaitingList()).isEmpty();
+        AtomicBoolean otherReaderEntered = new AtomicBoolean(true);
+        Thread.ofVirtual().start(() -> otherReaderEntered.set(library.tryStartReading())).join();
+        assertFalse(otherReaderEntered.get());
+        assertThrows(IllegalStateException.class, library::stopReading, "The read was turned into the write");
+        library.stopWriting();
+        assertThat(library.getRunningList()).isEmpty();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void downgradeShouldLetWaitingReaderIn() throws InterruptedException {
+        library.startWriting(100);
+        Thread reader = new Thread(() -> {
+            try {
+                library.startReading(100);
+                library.stopReading();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        reader.start();
+        Thread.sleep(100);
+
+        library.downgradeToReading();
+
+        reader.join(2000);
+        assertFalse(reader.isAlive(), "Waiting reader enters while the downgraded caller still reads");
+        assertThat(library.getRunningList()).containsExactly(Thread.currentThread());
+        library.stopReading();
+    }
+
+    @Test
+    void conversionShouldRequireMatchingRole() throws InterruptedException {
+        assertThrows(IllegalStateException.class, library::upgradeToWriting);
+        assertThrows(IllegalStateException.class, library::downgradeToReading);
+
+        Library unsupported = new Library(new ReadWriteLockStrategy(MAX_READERS, true));
+        unsupported.startReading(100);
+        assertThrows(UnsupportedOperationException.class, unsupported::upgradeToWriting);
+        assertThat(unsupported.getWaitingList()).isEmpty();
+        unsupported.stopReading();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void stuckWriterShouldBePutOutWhenItsLeaseExpires() throws InterruptedException {
+        LibraryMetrics metrics = new LibraryMetrics(library);
+        AtomicBoolean expired = new AtomicBoolean();
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch wakeUp = new CountDownLatch(1);
+        Thread stuck = Thread.ofVirtual().start(() -> {
+            try {
+                library.startWriting(Duration.ofMillis(100));
+                inside.countDown();
+                wakeUp.await();
+                library.stopWriting();
+            } catch (LeaseExpiredException _) {
+                expired.set(true);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        inside.await();
+
+        assertTrue(library.tryStartReading(Duration.ofSeconds(2)), "The revoked writer's permits are reclaimed");
+        assertThat(library.getRunningList()).containsExactly(Thread.currentThread());
+        assertEquals(1, metrics.getRevoked());
+        library.stopReading();
+
+        wakeUp.countDown();
+        stuck.join();
+        assertTrue(expired.get(), "The writer learns that it was put out");
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void renewedLeaseShouldKeepTheReaderInside() throws InterruptedException {
+        Lease lease = library.startReading(Duration.ofMillis(100));
+        AtomicBoolean writerEntered = new AtomicBoolean();
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                writerEntered.set(library.tryStartWriting(Duration.ofMillis(400)));
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        while (writer.isAlive()) {
+            assertTrue(lease.renew());
+            Thread.sleep(20);
+        }
+
+        assertFalse(writerEntered.get());
+        assertFalse(lease.isRevoked());
+        assertDoesNotThrow(library::stopReading);
+        assertFalse(lease.renew(), "An ended lease cannot be renewed");
+    }
+
+    @Test
+    void leasesShouldNeedAStrategyThatAnotherThreadCanRelease() throws InterruptedException {
+        Library ownerBound = new Library(new ReadWriteLockStrategy(MAX_READERS, true));
+        assertThrows(UnsupportedOperationException.class, () -> ownerBound.startReading(Duration.ofSeconds(1)));
+        assertThat(ownerBound.getWaitingList()).isEmpty();
+        assertThrows(IllegalArgumentException.class, () -> library.startWriting(Duration.ZERO));
+
+        library.startReading(Duration.ofSeconds(5));
+        assertThrows(IllegalStateException.class, library::upgradeToWriting);
+        library.stopReading();
+    }
 }
@@ -0,0 +1,105 @@
+package com.dnikitin.model;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiVersionResourceTest {
+    private final Library library = new Library(new SemaphoreLockStrategy(5), EventRecorder.DISABLED);
+    private final MultiVersionResource<String> resource = new MultiVersionResource<>(library, "v0", 3);
+
+    @Test
+    void snapshotShouldKeepItsVersionWhileWritersCommit() throws InterruptedException {
+        try (MultiVersionResource<String>.Snapshot snapshot = resource.openSnapshot()) {
+            resource.update(_ -> "v1");
+            resource.update(_ -> "v2");
+
+            assertEquals(0L, snapshot.version());
+            assertEquals("v0", snapshot.get());
+            assertEquals("v2", resource.get());
+            assertEquals(2, resource.getRetainedVersions(), "Pinned v0 and the latest v2");
+        }
+
+        resource.update(_ -> "v3");
+        assertEquals(1, resource.getRetainedVersions(), "Unpinned versions are reclaimed on the next commit");
+    }
+
+    @Test
+    void capShouldForceOldestLaggardToRefresh() throws InterruptedException {
+        MultiVersionResource<String>.Snapshot v0 = resource.openSnapshot();
+        resource.update(_ -> "v1");
+        MultiVersionResource<String>.Snapshot v1 = resource.openSnapshot();
+        resource.update(_ -> "v2");
+        MultiVersionResource<String>.Snapshot v2 = resource.openSnapshot();
+
+        resource.update(_ -> "v3");
+
+        assertEquals(3, resource.getRetainedVersions());
+        assertEquals(1, resource.getForcedReclaims());
+        assertTrue(v0.isStale());
+        assertThrows(StaleSnapshotException.class, v0::get);
+        assertEquals("v1", v1.get());
+        assertEquals("v2", v2.get());
+
+        v0.close();
+        try (MultiVersionResource<String>.Snapshot fresh = resource.openSnapshot()) {
+            assertEquals("v3", fresh.get());
+        }
+        v1.close();
+        v2.close();
+        resource.update(_ -> "v4");
+        assertEquals(1, resource.getRetainedVersions());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void snapshotShouldNotWaitForWriterInside() throws InterruptedException {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                resource.update(_ -> {
+                    inside.countDown();
+                    try {
+                        finish.await();
+                    } catch (InterruptedException _) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "v1";
+                });
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(inside.await(2, TimeUnit.SECONDS));
+
+        AtomicReference<String> seen = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> {
+            try (MultiVersionResource<String>.Snapshot snapshot = resource.openSnapshot()) {
+                seen.set(snapshot.get());
+            }
+        }).join(2_000);
+
+        assertEquals("v0", seen.get());
+        finish.countDown();
+        writer.join();
+        assertEquals(1L, resource.getVersion());
+    }
+
+    @Test
+    void closedSnapshotShouldRejectReads() {
+        MultiVersionResource<String>.Snapshot snapshot = resource.openSnapshot();
+        snapshot.close();
+        snapshot.close();
+
+        assertThrows(IllegalStateException.class, snapshot::get);
+        assertThrows(IllegalArgumentException.class, () -> new MultiVersionResource<>(library, "x", 0));
+    }
+}
@@ -0,0 +1,206 @@
+package com.dnikitin.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeLibraryTest {
+    private static final Duration SHORT = Duration.ofMillis(100);
+
+    private final RangeLibrary library = new RangeLibrary(2);
+
+    @Test
+    @Timeout(value = 5)
+    void writersOfDisjointRangesShouldRunInParallel() throws InterruptedException {
+        library.startWriting(0, 10);
+
+        CountDownLatch entered = new CountDownLatch(1);
+        Thread other = Thread.ofVirtual().start(() -> {
+            try {
+                library.startWriting(10, 20);
+                entered.countDown();
+                library.stopWriting(10, 20);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(entered.await(2, TimeUnit.SECONDS), "Adjacent ranges do not overlap");
+        other.join();
+        library.stopWriting(0, 10);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void overlappingWriterShouldWait() throws InterruptedException {
+        library.startWriting(0, 10);
+
+        CountDownLatch entered = new CountDownLatch(1);
+        Thread other = Thread.ofVirtual().start(() -> {
+            try {
+                library.startWriting(9, 20);
+                entered.countDown();
+                library.stopWriting(9, 20);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(entered.await(200, TimeUnit.MILLISECONDS), "Overlapping writer must wait");
+        library.stopWriting(0, 10);
+        assertTrue(entered.await(2, TimeUnit.SECONDS));
+        other.join();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void readersShouldShareUpToTheLimit() throws InterruptedException {
+        library.startReading(0, 10);
+        Thread other = Thread.ofVirtual().start(() -> {
+            try {
+                assertTrue(library.tryStartReading(5, 15, SHORT));
+                assertFalse(library.tryStartReading(0, 10, SHORT), "Two earlier overlapping readers fill the limit");
+                assertTrue(library.tryStartReading(10, 20, SHORT));
+                assertFalse(library.tryStartWriting(8, 9, SHORT));
+                library.stopReading(10, 20);
+                library.stopReading(5, 15);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        other.join();
+        library.stopReading(0, 10);
+        assertEquals(0, library.pendingVisits());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void readersShouldNotOvertakeAnOverlappingWriter() throws InterruptedException {
+        library.startReading(0, 10);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch leave = new CountDownLatch(1);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                library.startWriting(5, 15);
+                writing.countDown();
+                leave.await();
+                library.stopWriting(5, 15);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        awaitPending(2);
+
+        assertFalse(library.tryStartReading(12, 20, SHORT), "A later reader queues behind the waiting writer");
+        library.stopReading(0, 10);
+        assertTrue(writing.await(2, TimeUnit.SECONDS));
+        leave.countDown();
+        writer.join();
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void timedOutWaiterShouldLetLaterVisitsIn() throws InterruptedException {
+        library.startWriting(0, 10);
+        AtomicBoolean later = new AtomicBoolean();
+        Thread other = Thread.ofVirtual().start(() -> {
+            try {
+                assertFalse(library.tryStartWriting(5, 15, SHORT));
+                later.set(library.tryStartReading(10, 20, Duration.ZERO));
+                library.stopReading(10, 20);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        other.join();
+
+        assertTrue(later.get(), "The withdrawn writer must not hold back readers behind it");
+        library.stopWriting(0, 10);
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void interruptedWaiterShouldWithdraw() throws InterruptedException {
+        library.startWriting(0, 10);
+        Thread waiter = Thread.ofVirtual().start(() ->
+                assertThrows(InterruptedException.class, () -> library.startReading(0, 10)));
+        awaitPending(2);
+
+        waiter.interrupt();
+        waiter.join();
+        assertEquals(1, library.pendingVisits());
+        library.stopWriting(0, 10);
+    }
+
+    @Test
+    void shouldRejectEmptyRangesAndUnmatchedExits() {
+        assertThrows(IllegalArgumentException.class, () -> library.startWriting(5, 5));
+        assertThrows(IllegalStateException.class, () -> library.stopReading(0, 10));
+    }
+
+    @Test
+    @Timeout(value = 20)
+    void randomVisitsShouldNeverConflict() throws InterruptedException {
+        int cells = 64;
+        AtomicIntegerArray readers = new AtomicIntegerArray(cells);
+        AtomicIntegerArray writers = new AtomicIntegerArray(cells);
+        AtomicBoolean conflict = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    for (int i = 0; i < 300; i++) {
+                        int start = random.nextInt(cells - 1);
+                        int end = start + 1 + random.nextInt(Math.min(8, cells - start));
+                        if (random.nextInt(3) == 0) {
+                            library.startWriting(start, end);
+                            for (int c = start; c < end; c++) {
+                                conflict.compareAndSet(false, writers.incrementAndGet(c) > 1 || readers.get(c) > 0);
+                            }
+                            Thread.yield();
+                            for (int c = start; c < end; c++) {
+                                writers.decrementAndGet(c);
+                            }
+                            library.stopWriting(start, end);
+                        } else {
+                            library.startReading(start, end);
+                            for (int c = start; c < end; c++) {
+                                conflict.compareAndSet(false, readers.incrementAndGet(c) > 2 || writers.get(c) > 0);
+                            }
+                            Thread.yield();
+                            for (int c = start; c < end; c++) {
+                                readers.decrementAndGet(c);
+                            }
+                            library.stopReading(start, end);
+                        }
+                    }
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertFalse(conflict.get());
+        assertEquals(0, library.pendingVisits());
+    }
+
+    private void awaitPending(int visits) throws InterruptedException {
+        while (library.pendingVisits() < visits) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.dnikitin.model;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedResourceTest {
+    private final Library library = new Library(new SemaphoreLockStrategy(5), EventRecorder.DISABLED);
+    private final VersionedResource<List<String>> resource = new VersionedResource<>(library, List.of());
+
+    @Test
+    @Timeout(value = 5)
+    void readersShouldNotWaitForWriterInside() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                resource.update(books -> {
+                    inside.countDown();
+                    awaitQuietly(finish);
+                    return append(books, "Dune");
+                });
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(inside.await(2, TimeUnit.SECONDS));
+
+        // the writer holds the library, yet reading returns the old version right away
+        assertEquals(0L, resource.read().number());
+        assertThat(resource.get()).isEmpty();
+
+        finish.countDown();
+        writer.join();
+        assertEquals(new VersionedResource.Version<>(1L, List.of("Dune")), resource.read());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void concurrentUpdatesShouldNotBeLost() throws InterruptedException {
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String book = "Book-" + i;
+            writers.add(Thread.ofVirtual().start(() -> {
+                try {
+                    resource.update(books -> append(books, book));
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(20L, resource.read().number());
+        assertThat(resource.get()).hasSize(20).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void failedUpdateShouldPublishNothing() throws Exception {
+        resource.update(books -> append(books, "Dune"));
+
+        assertThrows(IllegalStateException.class, () -> resource.update(_ -> {
+            throw new IllegalStateException("rejected");
+        }));
+        CompletableFuture<VersionedResource.Version<List<String>>> failed = resource.submitUpdate(_ -> {
+            throw new IllegalStateException("rejected");
+        });
+
+        assertThrows(ExecutionException.class, failed::get);
+        assertEquals(1L, resource.read().number());
+        assertThat(library.getRunningList()).isEmpty();
+    }
+
+    @Test
+    void submittedUpdateShouldCompleteWithPublishedVersion() throws Exception {
+        VersionedResource.Version<List<String>> version = resource.submitUpdate(books -> append(books, "Emma")).get();
+
+        assertEquals(1L, version.number());
+        assertSame(version, resource.read());
+    }
+
+    private static List<String> append(List<String> books, String book) {
+        List<String> next = new ArrayList<>(books);
+        next.add(book);
+        return List.copyOf(next);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
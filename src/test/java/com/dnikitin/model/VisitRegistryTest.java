@@ -0,0 +1,68 @@
+package com.dnikitin.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisitRegistryTest {
+    private final VisitRegistry registry = new VisitRegistry();
+
+    @Test
+    void shouldKeepArrivalOrderInSnapshots() {
+        Thread first = Thread.ofVirtual().unstarted(() -> {});
+        Thread second = Thread.ofVirtual().unstarted(() -> {});
+        Thread third = Thread.ofVirtual().unstarted(() -> {});
+
+        Visit firstVisit = registry.arrive(first, Role.READER);
+        Visit secondVisit = registry.arrive(second, Role.WRITER);
+        registry.arrive(third, Role.READER);
+
+        assertThat(registry.waitingThreads()).containsExactly(first, second, third);
+        assertTrue(firstVisit.getSequence() < secondVisit.getSequence());
+
+        registry.admit(secondVisit);
+        registry.admit(firstVisit);
+
+        assertThat(registry.waitingThreads()).containsExactly(third);
+        assertThat(registry.runningThreads()).containsExactly(first, second);
+        assertEquals(1, registry.waitingCount());
+        assertEquals(2, registry.runningCount());
+    }
+
+    @Test
+    void shouldTrackSameThreadSeveralTimes() {
+        Thread thread = Thread.currentThread();
+        Visit one = registry.arrive(thread, Role.READER);
+        Visit two = registry.arrive(thread, Role.READER);
+        registry.admit(one);
+        registry.admit(two);
+
+        assertThat(registry.runningThreads()).containsExactly(thread, thread);
+
+        registry.leave(one);
+        assertThat(registry.runningThreads()).containsExactly(thread);
+        assertEquals(0, registry.waitingCount());
+    }
+
+    @Test
+    void shouldRecordAdmissionTime() {
+        Visit visit = registry.arrive(Thread.currentThread(), Role.WRITER);
+        assertEquals(0L, visit.getAdmittedNanos());
+
+        registry.admit(visit);
+
+        assertThat(visit.getAdmittedNanos()).isGreaterThanOrEqualTo(visit.getArrivedNanos());
+        assertEquals(Role.WRITER, visit.getRole());
+    }
+
+    @Test
+    void shouldForgetAbandonedVisits() {
+        Visit visit = registry.arrive(Thread.currentThread(), Role.READER);
+
+        registry.abandon(visit);
+
+        assertThat(registry.waitingThreads()).isEmpty();
+        assertThat(registry.runningThreads()).isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+package com.dnikitin.model;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteCombinerTest {
+    private final Library library = new Library(new SemaphoreLockStrategy(5), EventRecorder.DISABLED);
+    private final AtomicInteger writerSections = new AtomicInteger();
+
+    WriteCombinerTest() {
+        library.addObserver(new AccessObserver() {
+            @Override
+            public void onAdmitted(Visit visit, int queueLength) {
+                if (visit.getRole() == Role.WRITER) {
+                    writerSections.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void shouldRunBurstInOneExclusiveSection() throws Exception {
+        List<Integer> results = burst(library::submitWrite, 50);
+
+        assertThat(results).hasSize(50).doesNotHaveDuplicates();
+        // the blocking writer plus one combined section
+        assertEquals(2, writerSections.get());
+    }
+
+    @Test
+    @Timeout(value = 5)
+    void shouldSplitLongBurstIntoBatches() throws Exception {
+        WriteCombiner combiner = new WriteCombiner(library, 2);
+
+        assertThat(burst(combiner::submit, 5)).containsExactly(0, 1, 2, 3, 4);
+        assertEquals(1 + 3, writerSections.get());
+    }
+
+    @Test
+    void shouldRunOperationWithExclusiveAccess() throws Exception {
+        CompletableFuture<List<Thread>> inside = library.submitWrite(library::getRunningList);
+
+        assertThat(inside.get()).containsExactly(Thread.currentThread());
+        assertThat(library.getRunningList()).isEmpty();
+    }
+
+    @Test
+    void failingOperationShouldOnlyFailItsOwnFuture() throws Exception {
+        CompletableFuture<Object> failed = library.submitWrite(() -> {
+            throw new IllegalStateException("boom");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals("ok", library.submitWrite(() -> "ok").get());
+        assertThat(library.getRunningList()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> library.submitWrite(null));
+        assertThrows(IllegalArgumentException.class, () -> new WriteCombiner(library, 0));
+    }
+
+    // submits count operations while the test thread holds the library, so they all pile up behind one combiner
+    private List<Integer> burst(Submitter submitter, int count) throws Exception {
+        library.startWriting(0);
+        List<CompletableFuture<CompletableFuture<Integer>>> handles = new ArrayList<>();
+        CountDownLatch submitted = new CountDownLatch(count - 1);
+        for (int i = 0; i < count; i++) {
+            CompletableFuture<CompletableFuture<Integer>> handle = new CompletableFuture<>();
+            handles.add(handle);
+            int value = i;
+            Thread.ofVirtual().start(() -> {
+                handle.complete(submitter.submit(() -> value));
+                submitted.countDown();
+            });
+        }
+        assertTrue(submitted.await(2, TimeUnit.SECONDS), "Everyone but the combiner returns right away");
+        library.stopWriting();
+
+        List<Integer> results = new ArrayList<>();
+        for (CompletableFuture<CompletableFuture<Integer>> handle : handles) {
+            results.add(handle.get(2, TimeUnit.SECONDS).get(2, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    @FunctionalInterface
+    private interface Submitter {
+        CompletableFuture<Integer> submit(Supplier<Integer> operation);
+    }
+}
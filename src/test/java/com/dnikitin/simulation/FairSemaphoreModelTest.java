@@ -0,0 +1,44 @@
+package com.dnikitin.simulation;
+
+import com.dnikitin.model.Role;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairSemaphoreModelTest {
+    private final FairSemaphoreModel model = new FairSemaphoreModel(2);
+
+    @Test
+    void writerAtHeadShouldBlockLaterReaders() {
+        Visitor reader1 = new Visitor(1, Role.READER);
+        Visitor writer = new Visitor(2, Role.WRITER);
+        Visitor reader2 = new Visitor(3, Role.READER);
+        model.arrive(reader1);
+        model.arrive(writer);
+        model.arrive(reader2);
+
+        assertSame(reader1, model.admitNext());
+        assertNull(model.admitNext(), "Writer waits for the reader and reader 2 waits behind the writer");
+        assertEquals(1, model.readersInside());
+
+        model.leave(reader1);
+        assertSame(writer, model.admitNext());
+        assertTrue(model.writerInside());
+        assertNull(model.admitNext());
+
+        model.leave(writer);
+        assertSame(reader2, model.admitNext());
+    }
+
+    @Test
+    void shouldCapReaders() {
+        for (int i = 1; i <= 3; i++) {
+            model.arrive(new Visitor(i, Role.READER));
+        }
+
+        assertNotNull(model.admitNext());
+        assertNotNull(model.admitNext());
+        assertNull(model.admitNext());
+        assertEquals(2, model.readersInside());
+    }
+}
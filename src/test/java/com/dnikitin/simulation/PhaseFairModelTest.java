@@ -0,0 +1,45 @@
+package com.dnikitin.simulation;
+
+import com.dnikitin.model.Role;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhaseFairModelTest {
+    private final PhaseFairModel model = new PhaseFairModel(5);
+
+    @Test
+    void readersQueuedBehindWriterShouldEnterBeforeNextWriter() {
+        Visitor writer1 = new Visitor(1, Role.WRITER);
+        Visitor reader1 = new Visitor(2, Role.READER);
+        Visitor writer2 = new Visitor(3, Role.WRITER);
+        Visitor reader2 = new Visitor(4, Role.READER);
+        model.arrive(writer1);
+        assertSame(writer1, model.admitNext());
+        model.arrive(reader1);
+        model.arrive(writer2);
+        model.arrive(reader2);
+
+        model.leave(writer1);
+
+        // both readers arrived during the write phase, so they form the next reader phase together
+        assertSame(reader1, model.admitNext());
+        assertSame(reader2, model.admitNext());
+        assertNull(model.admitNext());
+        model.leave(reader1);
+        model.leave(reader2);
+        assertSame(writer2, model.admitNext());
+    }
+
+    @Test
+    void readersShouldBeatFifoInMixedWorkload() {
+        Simulation.Config config = Simulation.Config.of(10, 3, 2000, 42);
+
+        SimulationResult fifo = new Simulation(config, new FairSemaphoreModel(5)).run(100_000);
+        SimulationResult phaseFair = new Simulation(config, new PhaseFairModel(5)).run(100_000);
+
+        assertThat(phaseFair.readerWait().mean()).isLessThan(fifo.readerWait().mean());
+        assertThat(phaseFair.writerCycles()).isPositive();
+    }
+}
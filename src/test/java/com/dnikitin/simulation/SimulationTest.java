@@ -0,0 +1,54 @@
+package com.dnikitin.simulation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationTest {
+
+    @Test
+    void sameSeedShouldReplayTheSameRun() {
+        Simulation.Config config = Simulation.Config.of(10, 3, 2000, 42);
+
+        SimulationResult first = new Simulation(config, new FairSemaphoreModel(5)).run(10_000);
+        SimulationResult second = new Simulation(config, new FairSemaphoreModel(5)).run(10_000);
+        SimulationResult other = new Simulation(Simulation.Config.of(10, 3, 2000, 43), new FairSemaphoreModel(5))
+                .run(10_000);
+
+        assertEquals(first, second);
+        assertNotEquals(first.simulatedMillis(), other.simulatedMillis());
+    }
+
+    @Test
+    @Timeout(value = 10)
+    void shouldRunMillionCyclesQuickly() {
+        SimulationResult result = new Simulation(Simulation.Config.of(10, 3, 2000, 1), new FairSemaphoreModel(5))
+                .run(1_000_000);
+
+        assertEquals(1_000_000, result.readerCycles() + result.writerCycles());
+        assertThat(result.writerCycles()).as("fair admission must not starve writers").isPositive();
+        assertThat(result.simulatedMillis()).isGreaterThan(1_000_000L);
+        assertThat(result.meanReadersInside()).isBetween(0.0, 5.0);
+        assertThat(result.writerBusyShare()).isBetween(0.0, 1.0);
+    }
+
+    @Test
+    void readersAloneShouldNeverWaitBelowTheLimit() {
+        SimulationResult result = new Simulation(new Simulation.Config(4, 0, 10, 5, 5, 3), new FairSemaphoreModel(5))
+                .run(1_000);
+
+        assertEquals(0, result.readerWait().max());
+        assertEquals(0, result.writerCycles());
+        // each reader is inside 5 of every 15 ms
+        assertEquals(4.0 / 3, result.meanReadersInside(), 0.05);
+        assertThat(result.describe()).contains("1,000 reader");
+    }
+
+    @Test
+    void shouldRejectInvalidConfig() {
+        assertThrows(IllegalArgumentException.class, () -> new Simulation.Config(0, 0, 10, 1, 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Simulation.Config(1, 1, 10, 5, 2, 1));
+    }
+}
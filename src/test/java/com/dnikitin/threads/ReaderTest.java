@@ -3,6 +3,8 @@ package com.dnikitin.threads;
 import com.dnikitin.model.Library;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
@@ -40,4 +42,30 @@ class ReaderTest {
         assertFalse(vThread.isAlive());
         verify(mockLibrary, never()).stopReading();
     }
+
+    @Test
+    void testReaderLeavesWhenInterruptedWhileReading() throws InterruptedException {
+        Library mockLibrary = mock(Library.class);
+        Thread vThread = Thread.ofVirtual().name("Reader-1").start(new Reader(mockLibrary, 10));
+
+        verify(mockLibrary, timeout(5000)).startReading(anyInt());
+        vThread.interrupt();
+        vThread.join(1000);
+
+        assertFalse(vThread.isAlive());
+        verify(mockLibrary).stopReading();
+    }
+
+    @Test
+    void testReaderStopsWhenVisitsRunOut() throws InterruptedException {
+        Library mockLibrary = mock(Library.class);
+        AtomicLong remainingVisits = new AtomicLong(1);
+
+        Thread vThread = Thread.ofVirtual().name("Reader-1").start(new Reader(mockLibrary, 0, remainingVisits));
+        vThread.join(5000);
+
+        assertFalse(vThread.isAlive());
+        verify(mockLibrary, times(1)).startReading(anyInt());
+        verify(mockLibrary, times(1)).stopReading();
+    }
 }
@@ -3,7 +3,10 @@ package com.dnikitin.threads;
 import com.dnikitin.model.Library;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 class WriterTest {
@@ -35,4 +38,30 @@ class WriterTest {
         assertFalse(vThread.isAlive());
         verify(mockLibrary, never()).stopWriting();
     }
+
+    @Test
+    void testWriterLeavesWhenInterruptedWhileWriting() throws InterruptedException {
+        Library mockLibrary = mock(Library.class);
+        Thread vThread = Thread.ofVirtual().name("Writer-1").start(new Writer(mockLibrary, 10));
+
+        verify(mockLibrary, timeout(5000)).startWriting(anyInt());
+        vThread.interrupt();
+        vThread.join(1000);
+
+        assertFalse(vThread.isAlive());
+        verify(mockLibrary).stopWriting();
+    }
+
+    @Test
+    void testWriterStopsWhenVisitsRunOut() throws InterruptedException {
+        Library mockLibrary = mock(Library.class);
+        AtomicLong remainingVisits = new AtomicLong(1);
+
+        Thread vThread = Thread.ofVirtual().name("Writer-1").start(new Writer(mockLibrary, 0, remainingVisits));
+        vThread.join(5000);
+
+        assertFalse(vThread.isAlive());
+        verify(mockLibrary, times(1)).startWriting(anyInt());
+        verify(mockLibrary, times(1)).stopWriting();
+    }
 }
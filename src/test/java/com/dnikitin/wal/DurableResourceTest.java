@@ -0,0 +1,139 @@
+package com.dnikitin.wal;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import com.dnikitin.model.AccessObserver;
+import com.dnikitin.model.Library;
+import com.dnikitin.model.Visit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableResourceTest {
+    private final Library library = new Library(new SemaphoreLockStrategy(5), EventRecorder.DISABLED);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldRecoverFromLogAfterRestart() throws Exception {
+        try (DurableResource<String, String> catalog = open(1_000)) {
+            catalog.update("Dune");
+            catalog.update("Emma");
+            assertEquals("Dune,Emma", catalog.get());
+        }
+
+        try (DurableResource<String, String> catalog = open(1_000)) {
+            assertEquals("Dune,Emma", catalog.get());
+            assertEquals("Dune,Emma,Ulysses", catalog.update("Ulysses"));
+        }
+    }
+
+    @Test
+    void checkpointShouldSnapshotAndCompactLog() throws Exception {
+        try (DurableResource<String, String> catalog = open(3)) {
+            for (int i = 0; i < 10; i++) {
+                catalog.update("Book-" + i);
+            }
+            assertTrue(Files.exists(dir.resolve(DurableResource.SNAPSHOT_FILE)));
+        }
+
+        try (DurableResource<String, String> catalog = open(3)) {
+            assertThat(catalog.get().split(",")).hasSize(10).startsWith("Book-0").endsWith("Book-9");
+            assertEquals(10L, catalog.getLog().getLastLsn(), "Numbering continues after the snapshot");
+        }
+    }
+
+    @Test
+    void truncatedSnapshotShouldBeReportedAsCorrupt() throws Exception {
+        try (DurableResource<String, String> catalog = open(1)) {
+            catalog.update("Dune");
+        }
+        Path snapshot = dir.resolve(DurableResource.SNAPSHOT_FILE);
+        Files.write(snapshot, new byte[Long.BYTES]);
+
+        IOException e = assertThrows(IOException.class, () -> open(1));
+        assertThat(e).hasMessageContaining(snapshot.toString());
+    }
+
+    @Test
+    void checkpointShouldWaitForTheRecordsItCovers() throws Exception {
+        try (DurableResource<String, String> catalog = open(1_000)) {
+            AtomicLong durableAfterCheckpoint = new AtomicLong(-1L);
+            // runs while the writer leaves the library, after its append and before its sync
+            library.addObserver(new AccessObserver() {
+                @Override
+                public void onLeft(Visit visit, long holdNanos) {
+                    try {
+                        catalog.checkpoint();
+                    } catch (InterruptedException _) {
+                        Thread.currentThread().interrupt();
+                    }
+                    durableAfterCheckpoint.set(catalog.getLog().getDurableLsn());
+                }
+            });
+
+            catalog.update("Dune");
+
+            assertEquals(1L, durableAfterCheckpoint.get(), "The snapshot never gets ahead of the durable log");
+        }
+    }
+
+    @Test
+    void failingOperationShouldLeaveNoTrace() throws Exception {
+        try (DurableResource<String, String> catalog = open(1_000)) {
+            catalog.update("Dune");
+            assertThrows(IllegalArgumentException.class, () -> catalog.update(""));
+            assertEquals(1L, catalog.getLog().getLastLsn());
+            assertThat(library.getRunningList()).isEmpty();
+        }
+    }
+
+    @Test
+    void concurrentWritersShouldAllBeRecovered() throws Exception {
+        try (DurableResource<String, String> catalog = open(50)) {
+            List<Thread> writers = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                int writer = w;
+                writers.add(Thread.ofVirtual().start(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        try {
+                            catalog.update(writer + "-" + i);
+                        } catch (InterruptedException _) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+
+        try (DurableResource<String, String> catalog = open(50)) {
+            assertThat(catalog.get().split(",")).hasSize(200).doesNotHaveDuplicates();
+        }
+    }
+
+    private DurableResource<String, String> open(long checkpointEvery) throws IOException {
+        return new DurableResource<>(library, dir, "", DurableResourceTest::add,
+                Codec.UTF8, Codec.UTF8, checkpointEvery);
+    }
+
+    private static String add(String books, String book) {
+        if (book.isEmpty()) {
+            throw new IllegalArgumentException("empty title");
+        }
+        return books.isEmpty() ? book : books + "," + book;
+    }
+}
@@ -0,0 +1,177 @@
+package com.dnikitin.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+    private static final int SEGMENT_BYTES = 256;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldReplayRecordsAfterReopen() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            assertEquals(1L, log.append(Codec.UTF8.encode("a")));
+            assertEquals(2L, log.append(Codec.UTF8.encode("b")));
+            log.sync(2L);
+            assertEquals(2L, log.getDurableLsn());
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            assertThat(payloads(log, 0L)).containsExactly("a", "b");
+            assertThat(payloads(log, 1L)).containsExactly("b");
+            assertEquals(3L, log.append(Codec.UTF8.encode("c")));
+        }
+    }
+
+    @Test
+    void shouldCutOffTornTail() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            log.append(Codec.UTF8.encode("kept"));
+            log.append(Codec.UTF8.encode("torn"));
+        }
+        // flip a payload byte of the second record, as if the crash hit while it was written
+        Path segment = segments().getFirst();
+        int secondRecord = WriteAheadLog.HEADER_BYTES + 4;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), secondRecord + WriteAheadLog.HEADER_BYTES);
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            assertThat(payloads(log, 0L)).containsExactly("kept");
+            assertEquals(1L, log.getLastLsn());
+            assertEquals(2L, log.append(Codec.UTF8.encode("again")));
+            assertThat(payloads(log, 0L)).containsExactly("kept", "again");
+        }
+    }
+
+    @Test
+    void shouldClearLeftoversBehindEndMarker() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            log.append(Codec.UTF8.encode("a"));
+            log.append(Codec.UTF8.encode("b"));
+            log.append(Codec.UTF8.encode("c"));
+        }
+        // the length of the second record never reached the disk, the records behind it did
+        Path segment = segments().getFirst();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), WriteAheadLog.HEADER_BYTES + 1);
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            assertEquals(1L, log.getLastLsn());
+            // a longer record ends in the middle of the leftovers, then the log rolls over and leaves them behind
+            log.append(Codec.UTF8.encode("xx"));
+            log.append(new byte[SEGMENT_BYTES - WriteAheadLog.HEADER_BYTES]);
+            assertEquals(2, log.getSegmentCount());
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            assertThat(payloads(log, 0L)).startsWith("a", "xx").hasSize(3);
+        }
+    }
+
+    @Test
+    void shouldRollOverAndCompactSegments() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 20; i++) {
+                log.append(new byte[48]);
+            }
+            assertThat(log.getSegmentCount()).isGreaterThan(3);
+
+            log.compact(10L);
+
+            List<Long> lsns = new ArrayList<>();
+            log.replay(0L, r -> lsns.add(r.lsn()));
+            assertThat(lsns.getFirst()).isLessThanOrEqualTo(11L);
+            assertEquals(20L, lsns.getLast());
+
+            log.compact(20L);
+            assertEquals(1, log.getSegmentCount(), "The active segment is always kept");
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            // numbering continues even though older segments are gone
+            assertEquals(21L, log.append(new byte[1]));
+        }
+    }
+
+    @Test
+    void shouldRejectCorruptSegmentBeforeTheLast() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 10; i++) {
+                log.append(new byte[48]);
+            }
+        }
+        Path first = segments().getFirst();
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), WriteAheadLog.HEADER_BYTES);
+        }
+
+        IOException e = assertThrows(IOException.class, () -> new WriteAheadLog(dir, SEGMENT_BYTES));
+        assertThat(e).hasMessageContaining(first.toString());
+    }
+
+    @Test
+    void shouldRejectRecordLargerThanSegment() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(dir, SEGMENT_BYTES)) {
+            assertThrows(IllegalArgumentException.class, () -> log.append(new byte[SEGMENT_BYTES]));
+            assertEquals(0L, log.getLastLsn());
+        }
+    }
+
+    @Test
+    @Timeout(value = 10)
+    void concurrentSyncsShouldShareForces() throws Exception {
+        int writers = 16;
+        int perWriter = 50;
+        try (WriteAheadLog log = new WriteAheadLog(dir)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < perWriter; i++) {
+                        try {
+                            log.sync(log.append(new byte[64]));
+                        } catch (InterruptedException _) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(writers * perWriter, log.getDurableLsn());
+            assertThat(log.getForceCount()).isLessThan(writers * perWriter);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<String> payloads(WriteAheadLog log, long afterLsn) {
+        List<String> payloads = new ArrayList<>();
+        log.replay(afterLsn, r -> payloads.add(Codec.UTF8.decode(r.payload())));
+        return payloads;
+    }
+}
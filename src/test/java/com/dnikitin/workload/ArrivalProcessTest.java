@@ -0,0 +1,72 @@
+package com.dnikitin.workload;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrivalProcessTest {
+    private static final int SAMPLES = 200_000;
+
+    private final SplittableRandom random = new SplittableRandom(1);
+
+    @Test
+    void poissonShouldMatchTargetRate() {
+        ArrivalProcess poisson = ArrivalProcess.poisson(1000);
+
+        double meanGap = meanGap(poisson);
+
+        assertEquals(1_000_000, meanGap, 10_000);
+    }
+
+    @Test
+    void constantShouldSpaceArrivalsEvenly() {
+        ArrivalProcess constant = ArrivalProcess.constant(4);
+
+        assertEquals(250_000_000, constant.nextGapNanos(random));
+        assertEquals(250_000_000, constant.nextGapNanos(random));
+    }
+
+    @Test
+    void burstyShouldAverageBothStates() {
+        // equal time in both states, so the long-run rate is the mean of the two rates
+        ArrivalProcess bursty = ArrivalProcess.bursty(100, 900, Duration.ofMillis(50), Duration.ofMillis(50));
+
+        double meanGap = meanGap(bursty);
+
+        assertEquals(1e9 / 500, meanGap, 1e9 / 500 * 0.05);
+    }
+
+    @Test
+    void burstyShouldSwitchStates() {
+        MarkovModulatedArrivals bursty = new MarkovModulatedArrivals(1_000, 100, 10_000, 10_000);
+        boolean sawBurst = false;
+        boolean sawBase = false;
+
+        for (int i = 0; i < 1_000; i++) {
+            bursty.nextGapNanos(random);
+            sawBurst |= bursty.inBurst();
+            sawBase |= !bursty.inBurst();
+        }
+
+        assertTrue(sawBurst && sawBase);
+    }
+
+    @Test
+    void shouldRejectInvalidRates() {
+        assertThrows(IllegalArgumentException.class, () -> ArrivalProcess.poisson(0));
+        assertThrows(IllegalArgumentException.class, () -> ArrivalProcess.constant(Double.NaN));
+        assertThrows(IllegalArgumentException.class,
+                () -> ArrivalProcess.bursty(1, 2, Duration.ZERO, Duration.ofSeconds(1)));
+    }
+
+    private double meanGap(ArrivalProcess process) {
+        long total = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            total += process.nextGapNanos(random);
+        }
+        return (double) total / SAMPLES;
+    }
+}
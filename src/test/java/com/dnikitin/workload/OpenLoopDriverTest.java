@@ -0,0 +1,78 @@
+package com.dnikitin.workload;
+
+import com.dnikitin.event.EventRecorder;
+import com.dnikitin.lock.SemaphoreLockStrategy;
+import com.dnikitin.model.Library;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenLoopDriverTest {
+    private final Library library = new Library(new SemaphoreLockStrategy(5), EventRecorder.DISABLED);
+
+    @Test
+    @Timeout(value = 10)
+    void shouldIssueAndCompleteRequestedOperations() throws InterruptedException {
+        Workload workload = new Workload(ArrivalProcess.poisson(2_000), 0.2, ServiceTime.fixed(Duration.ZERO), 1);
+
+        WorkloadResult result = new OpenLoopDriver(library, workload).run(500);
+
+        assertEquals(500, result.issued());
+        assertEquals(500, result.completed());
+        assertEquals(500, result.readLatency().count() + result.writeLatency().count());
+        assertThat(result.writeLatency().count()).isBetween(50L, 150L);
+        assertThat(result.achievedRate()).isPositive();
+        assertThat(library.getRunningList()).isEmpty();
+    }
+
+    @Test
+    @Timeout(value = 10)
+    void shouldStopIssuingAfterDuration() throws InterruptedException {
+        Workload workload = new Workload(ArrivalProcess.constant(100), 0, ServiceTime.fixed(Duration.ZERO), 1);
+
+        WorkloadResult result = new OpenLoopDriver(library, workload).run(Duration.ofMillis(200));
+
+        // arrivals at 10, 20, ... 190 ms
+        assertEquals(19, result.issued());
+        assertEquals(100, result.offeredRate(), 10);
+    }
+
+    @Test
+    @Timeout(value = 10)
+    void stallShouldShowUpInLatencyOfEveryDelayedRequest() throws InterruptedException {
+        Workload workload = new Workload(ArrivalProcess.constant(1_000), 0, ServiceTime.fixed(Duration.ZERO), 1);
+        CountDownLatch writing = new CountDownLatch(1);
+        Thread.ofVirtual().start(() -> {
+            try {
+                library.startWriting(300);
+                writing.countDown();
+                Thread.sleep(300);
+                library.stopWriting();
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        writing.await();
+
+        WorkloadResult result = new OpenLoopDriver(library, workload).run(Duration.ofMillis(400));
+
+        // requests that arrived during the stall queued behind the writer; a closed loop would record just one
+        assertThat(result.readLatency().p50()).isGreaterThan(10_000);
+        assertThat(result.readLatency().max()).isGreaterThan(250_000);
+    }
+
+    @Test
+    void shouldRejectInvalidArguments() {
+        Workload workload = new Workload(ArrivalProcess.constant(1), 0, ServiceTime.fixed(Duration.ZERO), 1);
+
+        assertThrows(IllegalArgumentException.class, () -> new OpenLoopDriver(null, workload));
+        assertThrows(IllegalArgumentException.class, () -> new OpenLoopDriver(library, workload).run(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Workload(ArrivalProcess.constant(1), 1.5, ServiceTime.fixed(Duration.ZERO), 1));
+    }
+}
@@ -0,0 +1,74 @@
+package com.dnikitin.workload;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceTimeTest {
+    private static final int SAMPLES = 100_000;
+
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    @Test
+    void exponentialShouldMatchMean() {
+        long[] samples = sample(ServiceTime.exponential(Duration.ofMillis(2)));
+
+        assertEquals(2_000_000, Arrays.stream(samples).average().orElseThrow(), 40_000);
+    }
+
+    @Test
+    void lognormalShouldMatchMedian() {
+        long[] samples = sample(ServiceTime.lognormal(Duration.ofMillis(2), 1.0));
+        Arrays.sort(samples);
+
+        assertEquals(2_000_000, samples[SAMPLES / 2], 50_000);
+        // heavy right tail: p99 is about e^2.33 times the median
+        assertTrue(samples[SAMPLES * 99 / 100] > 8 * samples[SAMPLES / 2]);
+    }
+
+    @Test
+    void uniformShouldStayWithinBounds() {
+        long[] samples = sample(ServiceTime.uniform(Duration.ofSeconds(1), Duration.ofSeconds(3)));
+
+        assertTrue(Arrays.stream(samples).allMatch(s -> s >= 1_000_000_000L && s <= 3_000_000_000L));
+        assertEquals(5, ServiceTime.fixed(Duration.ofNanos(5)).nextNanos(random));
+    }
+
+    @Test
+    void traceShouldReplayInOrderAndWrapAround(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("trace.txt");
+        Files.writeString(file, "# service times in ms\n1\n\n2.5\n");
+
+        ServiceTime trace = ServiceTime.trace(file);
+
+        assertEquals(1_000_000, trace.nextNanos(random));
+        assertEquals(2_500_000, trace.nextNanos(random));
+        assertEquals(1_000_000, trace.nextNanos(random));
+    }
+
+    @Test
+    void shouldRejectInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ServiceTime.trace(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> ServiceTime.fixed(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> ServiceTime.uniform(Duration.ofSeconds(2), Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> ServiceTime.lognormal(Duration.ofSeconds(1), -1));
+    }
+
+    private long[] sample(ServiceTime time) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = time.nextNanos(random);
+        }
+        return samples;
+    }
+}